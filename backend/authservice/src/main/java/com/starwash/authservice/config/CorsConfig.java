@@ -21,7 +21,7 @@ public class CorsConfig {
                         .allowedOrigins("http://localhost:3000", "https://starwashph.com", "https://www.starwashph.com")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "HEAD")
                         .allowedHeaders("*")
-                        .exposedHeaders("Authorization", "Content-Type", "Content-Disposition")
+                        .exposedHeaders("Authorization", "Content-Type", "Content-Disposition", "X-Next-Cursor", "X-Has-More")
                         .allowCredentials(true)
                         .maxAge(3600);
                 
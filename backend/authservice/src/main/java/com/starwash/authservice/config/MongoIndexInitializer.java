@@ -0,0 +1,121 @@
+package com.starwash.authservice.config;
+
+import com.mongodb.MongoException;
+import org.bson.Document;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexOptions;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the @Document models (@Indexed, @CompoundIndex, TTLs, partial
+ * filters). MongoConfig builds its own MongoTemplate, whose mapping context never auto-creates
+ * indexes, so spring.data.mongodb.auto-index-creation has no effect on it; without this the
+ * annotations are documentation only.
+ *
+ * Runs before the data migrations. createIndex is a no-op for an index that already exists, and
+ * keys already indexed under another name count as covered. A TTL index that exists with another
+ * expiry is updated in place (collMod), so changing expireAfter takes effect. Any other failure
+ * (e.g. duplicates under a unique index) is logged and skipped so it never blocks startup.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final String MODEL_PACKAGE = "com.starwash.authservice.model";
+    // "Index already exists with a different name": a field index and a compound index on the same key
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        long startTime = System.currentTimeMillis();
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        int created = 0;
+        int covered = 0;
+        int failed = 0;
+        for (Class<?> type : documentTypes()) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+                try {
+                    indexOps.createIndex(index);
+                    created++;
+                } catch (Exception e) {
+                    if (errorCode(e) == INDEX_OPTIONS_CONFLICT) {
+                        if (index.getIndexOptions().containsKey("expireAfterSeconds")) {
+                            // An existing TTL index with another expiry (or none) would silently keep it
+                            if (alterTtl(indexOps, index, type)) {
+                                created++;
+                            } else {
+                                failed++;
+                            }
+                            continue;
+                        }
+                        covered++; // same keys already indexed under another name
+                        continue;
+                    }
+                    failed++;
+                    System.err.println("❌ Could not create index " + index.getIndexOptions().get("name") + " on "
+                            + type.getSimpleName() + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("🗂️ Ensured " + created + " MongoDB indexes (" + covered + " already covered, "
+                + failed + " failed) in " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    // collMod the expiry of an existing index in place instead of dropping and rebuilding it
+    private static boolean alterTtl(IndexOperations indexOps, IndexDefinition index, Class<?> type) {
+        Document options = index.getIndexOptions();
+        String name = options.getString("name");
+        Duration expiry = Duration.ofSeconds(((Number) options.get("expireAfterSeconds")).longValue());
+        try {
+            indexOps.alterIndex(name, IndexOptions.expireAfter(expiry));
+            System.out.println("🗂️ Updated TTL of " + type.getSimpleName() + "." + name + " to " + expiry);
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Could not update TTL index " + name + " on " + type.getSimpleName() + ": "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    private static int errorCode(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof MongoException mongoException) {
+                return mongoException.getCode();
+            }
+        }
+        return -1;
+    }
+
+    private static List<Class<?>> documentTypes() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(org.springframework.data.mongodb.core.mapping.Document.class));
+        List<Class<?>> types = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(MODEL_PACKAGE)) {
+            types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), MongoIndexInitializer.class.getClassLoader()));
+        }
+        return types;
+    }
+}
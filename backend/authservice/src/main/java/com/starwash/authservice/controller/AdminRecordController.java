@@ -1,5 +1,6 @@
 package com.starwash.authservice.controller;
 
+import com.starwash.authservice.dto.AdminRecordPageDto;
 import com.starwash.authservice.dto.AdminRecordResponseDto;
 import com.starwash.authservice.service.TransactionService;
 import org.springframework.cache.annotation.CacheEvict;
@@ -21,14 +22,19 @@ public class AdminRecordController {
     }
 
     // ✅ GET /api/admin/records — returns paginated transaction records with admin
-    // fields
+    // fields. Pass the X-Next-Cursor header back as ?after= for constant-cost next pages.
     @GetMapping("/records")
     public ResponseEntity<List<AdminRecordResponseDto>> getAllAdminRecords(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
-            @RequestParam(required = false) String search) {
-        System.out.println("📋 Fetching all admin records - Page: " + page + ", Size: " + size + ", Search: " + search);
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String after) {
+        System.out.println("📋 Fetching all admin records - Page: " + page + ", Size: " + size + ", Search: " + search
+                + (after != null ? ", After: " + after : ""));
+        if (after != null || page == 0) {
+            return cursorResponse(transactionService.getAdminRecordsPage(after, size, "all", search));
+        }
         return ResponseEntity.ok(transactionService.getAllAdminRecords(page, size, search));
     }
 
@@ -39,15 +45,19 @@ public class AdminRecordController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
             @RequestParam(defaultValue = "today") String timeFilter,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String after) {
         System.out.println("🔍 Fetching admin records by time - Filter: " + timeFilter + ", Page: " + page + ", Size: " + size
-                + ", Search: " + search);
+                + ", Search: " + search + (after != null ? ", After: " + after : ""));
 
         List<String> validFilters = Arrays.asList("today", "week", "month", "year", "all");
         if (!validFilters.contains(timeFilter)) {
             return ResponseEntity.badRequest().build();
         }
 
+        if (after != null || page == 0) {
+            return cursorResponse(transactionService.getAdminRecordsPage(after, size, timeFilter, search));
+        }
         return ResponseEntity.ok(transactionService.getAllAdminRecordsByTime(page, size, timeFilter, search));
     }
 
@@ -55,7 +65,11 @@ public class AdminRecordController {
     @GetMapping("/records/count")
     public ResponseEntity<Long> getTotalAdminRecordsCount(
             @RequestHeader("Authorization") String authHeader,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean estimate) {
+        if (estimate && (search == null || search.trim().isEmpty())) {
+            return ResponseEntity.ok(transactionService.getEstimatedAdminRecordsCount());
+        }
         long totalCount = transactionService.getTotalAdminRecordsCount(search);
         return ResponseEntity.ok(totalCount);
     }
@@ -103,4 +117,13 @@ public class AdminRecordController {
         System.out.println("🧹 Clearing all admin record caches...");
         return ResponseEntity.ok("Admin caches cleared successfully!");
     }
+
+    private ResponseEntity<List<AdminRecordResponseDto>> cursorResponse(AdminRecordPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Has-More", String.valueOf(page.isHasMore()));
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getRecords());
+    }
 }
@@ -1,6 +1,7 @@
 package com.starwash.authservice.controller;
 
 import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.service.DisposalWarningService;
 import com.starwash.authservice.service.LaundryJobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +18,9 @@ public class DisposalWarningController {
     @Autowired
     private LaundryJobService laundryJobService;
 
+    @Autowired
+    private DisposalWarningService disposalWarningService;
+
     @PostMapping("/send-manual")
     public ResponseEntity<Map<String, Object>> sendManualDisposalWarnings() {
         try {
@@ -34,6 +38,12 @@ public class DisposalWarningController {
         }
     }
 
+    // Progress of the running warning batch (if any) and the totals of the last one
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getDisposalWarningMetrics() {
+        return ResponseEntity.ok(disposalWarningService.getMetrics());
+    }
+
     @GetMapping("/pending")
     public ResponseEntity<Map<String, Object>> getPendingDisposalWarnings() {
         try {
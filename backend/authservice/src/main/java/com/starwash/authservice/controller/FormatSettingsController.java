@@ -4,6 +4,7 @@ import com.starwash.authservice.dto.FormatSettingsDto;
 import com.starwash.authservice.model.FormatSettings;
 import com.starwash.authservice.repository.FormatSettingsRepository;
 import com.starwash.authservice.security.JwtUtil;
+import com.starwash.authservice.service.ReferenceDataCache;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +16,13 @@ public class FormatSettingsController {
 
     private final FormatSettingsRepository repository;
     private final JwtUtil jwtUtil;
+    private final ReferenceDataCache referenceDataCache;
 
-    public FormatSettingsController(FormatSettingsRepository repository, JwtUtil jwtUtil) {
+    public FormatSettingsController(FormatSettingsRepository repository, JwtUtil jwtUtil,
+                                    ReferenceDataCache referenceDataCache) {
         this.repository = repository;
         this.jwtUtil = jwtUtil;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @PostMapping
@@ -37,6 +41,7 @@ public class FormatSettingsController {
         settings.setTrackingUrl(dto.getTrackingUrl());
 
         repository.save(settings);
+        referenceDataCache.refresh();
         return ResponseEntity.ok("Saved");
     }
 
@@ -1,22 +1,37 @@
 package com.starwash.authservice.controller;
 
 import com.starwash.authservice.dto.LaundryJobDto;
+import com.starwash.authservice.dto.LoadOperationDto;
+import com.starwash.authservice.dto.LoadOperationResultDto;
 import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.service.CompletedLoadCounterService;
+import com.starwash.authservice.service.CycleTimerService;
+import com.starwash.authservice.service.JobExpiryScheduler;
 import com.starwash.authservice.service.LaundryJobService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/laundry-jobs")
 public class LaundryJobController {
 
     private final LaundryJobService laundryJobService;
-
-    public LaundryJobController(LaundryJobService laundryJobService) {
+    private final CompletedLoadCounterService completedLoadCounterService;
+    private final JobExpiryScheduler jobExpiryScheduler;
+    private final CycleTimerService cycleTimerService;
+
+    public LaundryJobController(LaundryJobService laundryJobService,
+            CompletedLoadCounterService completedLoadCounterService,
+            JobExpiryScheduler jobExpiryScheduler,
+            CycleTimerService cycleTimerService) {
         this.laundryJobService = laundryJobService;
+        this.completedLoadCounterService = completedLoadCounterService;
+        this.jobExpiryScheduler = jobExpiryScheduler;
+        this.cycleTimerService = cycleTimerService;
     }
 
     // GET all laundry jobs
@@ -128,6 +143,15 @@ public class LaundryJobController {
         return ResponseEntity.ok(toDto(job));
     }
 
+    // Batch of assign/start/advance/complete/release operations across jobs; one result per operation
+    @PostMapping("/load-operations")
+    public ResponseEntity<List<LoadOperationResultDto>> applyLoadOperations(
+            @RequestBody List<LoadOperationDto> operations,
+            Principal principal) {
+        String username = principal.getName();
+        return ResponseEntity.ok(laundryJobService.applyLoadOperations(operations, username));
+    }
+
     // Update load duration - REMOVED logic
     @PatchMapping("/{transactionId}/update-duration")
     public ResponseEntity<LaundryJobDto> updateLoadDuration(@PathVariable String transactionId,
@@ -163,6 +187,30 @@ public class LaundryJobController {
         }
     }
 
+    // Recompute the completed-load counters from the jobs (also runs nightly)
+    @PostMapping("/completed-counts/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileCompletedCounts() {
+        return ResponseEntity.ok(completedLoadCounterService.reconcile());
+    }
+
+    // Jobs armed for expiry in the current window, plus expiry counters
+    @GetMapping("/expiry-scheduler")
+    public ResponseEntity<Map<String, Object>> getExpiryScheduler() {
+        return ResponseEntity.ok(jobExpiryScheduler.getMetrics());
+    }
+
+    // Re-reads the expiry window now, e.g. after editing due dates directly in the database
+    @PostMapping("/expiry-scheduler/refill")
+    public ResponseEntity<Map<String, Object>> refillExpiryScheduler() {
+        jobExpiryScheduler.refill();
+        return ResponseEntity.ok(jobExpiryScheduler.getMetrics());
+    }
+
+    @GetMapping("/cycle-timers")
+    public ResponseEntity<Map<String, Object>> getCycleTimers() {
+        return ResponseEntity.ok(cycleTimerService.getMetrics());
+    }
+
     // ========== DTO Conversion ==========
     private LaundryJobDto toDto(LaundryJob job) {
         LaundryJobDto dto = new LaundryJobDto();
@@ -3,8 +3,15 @@ package com.starwash.authservice.controller;
 import com.starwash.authservice.dto.MachineItemDto;
 import com.starwash.authservice.model.MachineItem;
 import com.starwash.authservice.repository.MachineRepository;
+import com.starwash.authservice.service.LoadDispatcher;
+import com.starwash.authservice.service.MachineAvailabilityRegistry;
 import com.starwash.authservice.service.MachineService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,9 +30,21 @@ public class MachineController {
     @Autowired
     private MachineService machineService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private com.starwash.authservice.service.ReferenceDataCache referenceDataCache;
+
     @Autowired
     private com.starwash.authservice.service.AiService aiService;
 
+    @Autowired
+    private MachineAvailabilityRegistry machineAvailabilityRegistry;
+
+    @Autowired
+    private LoadDispatcher loadDispatcher;
+
     @GetMapping
     public ResponseEntity<List<MachineItemDto>> getAllMachines() {
         List<MachineItemDto> dtos = machineRepository.findAll().stream()
@@ -39,43 +58,87 @@ public class MachineController {
         MachineItem item = toEntity(dto);
         item.setId(null);
         MachineItem saved = machineRepository.save(item);
+        machineAvailabilityRegistry.onMachineChanged(saved);
+        if (machineAvailabilityRegistry.isFree(saved.getId())) {
+            loadDispatcher.onMachineFreed(saved.getId());
+        }
+        referenceDataCache.refresh();
         aiService.clearCache("machine_health_analysis");
         return ResponseEntity.ok(toDto(saved));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<MachineItemDto> updateMachine(@PathVariable String id, @RequestBody MachineItemDto dto) {
-        return machineRepository.findById(id)
-                .map(existing -> {
-                    existing.setName(dto.getName());
-                    existing.setType(dto.getType());
-                    existing.setCapacityKg(dto.getCapacityKg());
-                    
-                    // If changing status to Maintenance, update the lastMaintenance date and reset loads count
-                    if ("Maintenance".equals(dto.getStatus()) && !"Maintenance".equals(existing.getStatus())) {
-                        existing.setLastMaintenance(java.time.LocalDate.now().toString());
-                        existing.setTotalLoadsProcessed(0L);
-                    } else if (dto.getLastMaintenance() != null) {
-                        // Only overwrite if frontend provided a value
-                        existing.setLastMaintenance(dto.getLastMaintenance());
-                    }
-                    
-                    // If changing status to In Use, increment the loads counter
-                    if ("In Use".equals(dto.getStatus()) && !"In Use".equals(existing.getStatus())) {
-                        existing.setTotalLoadsProcessed(existing.getTotalLoadsProcessed() + 1);
-                    }
-                    
-                    existing.setStatus(dto.getStatus());
-                    
-                    if (dto.getNextMaintenance() != null) {
-                        existing.setNextMaintenance(dto.getNextMaintenance());
-                    }
-                    
-                    MachineItem updated = machineRepository.save(existing);
-                    aiService.clearCache("machine_health_analysis");
-                    return ResponseEntity.ok(toDto(updated));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        MachineItem existing = machineRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String status = dto.getStatus();
+        boolean statusChanged = status != null && !status.equals(existing.getStatus());
+
+        // Only the edited fields are written, so saving the form can't undo a claim made since it was loaded
+        Update update = new Update();
+        if (dto.getName() != null) {
+            update.set("name", dto.getName());
+        }
+        if (dto.getType() != null) {
+            update.set("type", dto.getType());
+        }
+        if (dto.getCapacityKg() != null) {
+            update.set("capacityKg", dto.getCapacityKg());
+        }
+        // Going into maintenance stamps its own date; otherwise only overwrite if frontend provided a value
+        if (dto.getLastMaintenance() != null && !(statusChanged && "Maintenance".equals(status))) {
+            update.set("lastMaintenance", dto.getLastMaintenance());
+        }
+        if (dto.getNextMaintenance() != null) {
+            update.set("nextMaintenance", dto.getNextMaintenance());
+        }
+
+        MachineItem updated = existing;
+        if (!update.getUpdateObject().isEmpty()) {
+            updated = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                    FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+            if (updated == null) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+
+        // Status changes go through the registry's guarded updates
+        if (statusChanged) {
+            MachineItem changed = changeStatus(id, status, existing.getStatus());
+            if (changed != null) {
+                updated = changed;
+            }
+        }
+
+        machineAvailabilityRegistry.onMachineChanged(updated);
+        if (machineAvailabilityRegistry.isFree(id)) {
+            loadDispatcher.onMachineFreed(id); // e.g. back from maintenance
+        }
+        referenceDataCache.refresh();
+        aiService.clearCache("machine_health_analysis");
+        return ResponseEntity.ok(toDto(updated));
+    }
+
+    // null when the machine was already in the requested state by the time of the write
+    private MachineItem changeStatus(String id, String status, String previousStatus) {
+        switch (status) {
+            case MachineAvailabilityRegistry.STATUS_MAINTENANCE:
+                // Update the lastMaintenance date and reset loads count
+                return machineAvailabilityRegistry.startMaintenance(id, java.time.LocalDate.now().toString());
+            case MachineAvailabilityRegistry.STATUS_IN_USE:
+                // Marking it In Use counts a processed load
+                return machineAvailabilityRegistry.markStarted(id);
+            case MachineAvailabilityRegistry.STATUS_AVAILABLE:
+                if (MachineAvailabilityRegistry.STATUS_MAINTENANCE.equals(previousStatus)) {
+                    return machineAvailabilityRegistry.endMaintenance(id);
+                }
+                machineAvailabilityRegistry.release(id);
+                return machineRepository.findById(id).orElse(null);
+            default:
+                throw new IllegalArgumentException("Unknown machine status: " + status);
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -84,6 +147,8 @@ public class MachineController {
             return ResponseEntity.notFound().build();
         }
         machineRepository.deleteById(id);
+        machineAvailabilityRegistry.onMachineDeleted(id);
+        referenceDataCache.refresh();
         aiService.clearCache("machine_health_analysis");
         return ResponseEntity.ok().build();
     }
@@ -95,12 +160,26 @@ public class MachineController {
                 .map(machine -> {
                     machine.setStatus("Available");
                     MachineItem updated = machineRepository.save(machine);
+                    machineAvailabilityRegistry.onMachineChanged(updated);
+                    loadDispatcher.onMachineFreed(id);
                     aiService.clearCache("machine_health_analysis");
                     return ResponseEntity.ok(toDto(updated));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Free machines per type/capacity plus claim counters, straight from the in-memory registry
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability() {
+        return ResponseEntity.ok(machineAvailabilityRegistry.getMetrics());
+    }
+
+    // Loads waiting for a machine per type, plus auto-assignment counters
+    @GetMapping("/dispatcher")
+    public ResponseEntity<Map<String, Object>> getDispatcher() {
+        return ResponseEntity.ok(loadDispatcher.getMetrics());
+    }
+
     // NEW ENDPOINT: Calculate loads based on weight
     @PostMapping("/calculate-loads")
     public ResponseEntity<Map<String, Object>> calculateLoads(
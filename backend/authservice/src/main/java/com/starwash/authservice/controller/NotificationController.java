@@ -31,8 +31,17 @@ public class NotificationController {
     }
 
     @GetMapping(value = "/stream", produces = "text/event-stream")
-    public SseEmitter stream(@RequestParam(required = false) String userId) {
-        return notificationService.subscribe(userId);
+    public SseEmitter stream(@RequestParam(required = false) String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        // EventSource sends the header when it reconnects by itself; our client passes the param when it rebuilds one
+        return notificationService.subscribe(userId, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    // Open connections, queue depths and slow-consumer drops/evictions
+    @GetMapping("/stream/metrics")
+    public ResponseEntity<Map<String, Object>> streamMetrics() {
+        return ResponseEntity.ok(notificationService.getStreamMetrics());
     }
 
     @GetMapping
@@ -3,6 +3,7 @@ package com.starwash.authservice.controller;
 
 import com.starwash.authservice.model.PaymentSettings;
 import com.starwash.authservice.service.PaymentSettingsService;
+import com.starwash.authservice.service.ReferenceDataCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,9 +11,12 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/payment-settings")
 public class PaymentSettingsController {
     private final PaymentSettingsService paymentSettingsService;
+    private final ReferenceDataCache referenceDataCache;
 
-    public PaymentSettingsController(PaymentSettingsService paymentSettingsService) {
+    public PaymentSettingsController(PaymentSettingsService paymentSettingsService,
+                                     ReferenceDataCache referenceDataCache) {
         this.paymentSettingsService = paymentSettingsService;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @GetMapping
@@ -22,6 +26,8 @@ public class PaymentSettingsController {
 
     @PutMapping
     public ResponseEntity<PaymentSettings> updatePaymentSettings(@RequestBody PaymentSettings settings) {
-        return ResponseEntity.ok(paymentSettingsService.updatePaymentSettings(settings.isGcashEnabled()));
+        PaymentSettings updated = paymentSettingsService.updatePaymentSettings(settings.isGcashEnabled());
+        referenceDataCache.refresh();
+        return ResponseEntity.ok(updated);
     }
 }
@@ -1,10 +1,16 @@
 package com.starwash.authservice.controller;
 
 import com.starwash.authservice.dto.RecordResponseDto;
+import com.starwash.authservice.service.RecordExportService;
 import com.starwash.authservice.service.TransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map; // Add this import
 
@@ -13,9 +19,11 @@ import java.util.Map; // Add this import
 public class RecordController {
 
     private final TransactionService transactionService;
+    private final RecordExportService recordExportService;
 
-    public RecordController(TransactionService transactionService) {
+    public RecordController(TransactionService transactionService, RecordExportService recordExportService) {
         this.transactionService = transactionService;
+        this.recordExportService = recordExportService;
     }
 
     // ✅ GET /api/records — returns all transaction records
@@ -25,12 +33,37 @@ public class RecordController {
         return ResponseEntity.ok(records);
     }
 
+    // ✅ GET /api/records/export?format=ndjson|csv&from=yyyy-MM-dd&to=yyyy-MM-dd — streams
+    // records (createdAt order, both dates inclusive and optional) without building the list in memory
+    @GetMapping("/records/export")
+    public ResponseEntity<StreamingResponseBody> exportRecords(
+            @RequestParam(defaultValue = RecordExportService.FORMAT_NDJSON) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        boolean csv = RecordExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        if (!csv && !RecordExportService.FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> recordExportService.export(out, format,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null);
+
+        String filename = "records-export." + (csv ? "csv" : "ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .body(body);
+    }
+
     // ✅ GET /api/records/staff — returns filtered records for staff with pagination
     @GetMapping("/records/staff")
     public ResponseEntity<Map<String, Object>> getStaffRecords(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Map<String, Object> response = transactionService.getStaffRecordsPaginated(page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        Map<String, Object> response = transactionService.getStaffRecordsPaginated(page, size, after, includeTotal);
         return ResponseEntity.ok(response);
     }
 
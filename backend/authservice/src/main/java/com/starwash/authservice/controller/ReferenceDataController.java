@@ -0,0 +1,31 @@
+package com.starwash.authservice.controller;
+
+import com.starwash.authservice.service.ReferenceDataCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/reference-data")
+public class ReferenceDataController {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public ReferenceDataController(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    // ✅ GET /api/reference-data/metrics — snapshot hits, refresh count and timing
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics(@RequestHeader("Authorization") String authHeader) {
+        return ResponseEntity.ok(referenceDataCache.getMetrics());
+    }
+
+    // ✅ POST /api/reference-data/refresh — reload after editing reference data outside the app
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@RequestHeader("Authorization") String authHeader) {
+        referenceDataCache.refresh();
+        return ResponseEntity.ok(referenceDataCache.getMetrics());
+    }
+}
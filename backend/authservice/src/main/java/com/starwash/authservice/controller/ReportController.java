@@ -43,4 +43,21 @@ public class ReportController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    // Rebuilds sales_rollups from the transactions collection (backfill / repair)
+    @PostMapping("/sales/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSalesRollups(
+            @RequestHeader("Authorization") String authHeader) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(reportService.rebuildSalesRollups());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 }
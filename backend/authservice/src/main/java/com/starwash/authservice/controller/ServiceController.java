@@ -3,6 +3,7 @@ package com.starwash.authservice.controller;
 import com.starwash.authservice.dto.ServiceItemDto;
 import com.starwash.authservice.model.ServiceItem;
 import com.starwash.authservice.repository.ServiceRepository;
+import com.starwash.authservice.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +19,9 @@ public class ServiceController {
     @Autowired
     private ServiceRepository serviceRepository;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     // Permanent service names that cannot be modified or deleted
     private static final String[] PERMANENT_SERVICES = {"Wash & Dry", "Wash", "Dry"};
 
@@ -64,6 +68,7 @@ public class ServiceController {
             ServiceItem item = toEntity(dto);
             item.setId(null); // Ensure new ID is generated
             ServiceItem saved = serviceRepository.save(item);
+            referenceDataCache.refresh();
             return ResponseEntity.ok(toDto(saved));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Failed to create service: " + e.getMessage());
@@ -122,6 +127,7 @@ public class ServiceController {
             }
             
             ServiceItem updated = serviceRepository.save(existing);
+            referenceDataCache.refresh();
             return ResponseEntity.ok(toDto(updated));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Failed to update service: " + e.getMessage());
@@ -145,6 +151,7 @@ public class ServiceController {
             }
 
             serviceRepository.deleteById(id);
+            referenceDataCache.refresh();
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Failed to delete service: " + e.getMessage());
@@ -8,8 +8,8 @@ import com.starwash.authservice.model.LaundryJob;
 import com.starwash.authservice.model.Transaction;
 import com.starwash.authservice.repository.LaundryJobRepository;
 import com.starwash.authservice.repository.TransactionRepository;
-import com.starwash.authservice.repository.FormatSettingsRepository;
 import com.starwash.authservice.model.FormatSettings;
+import com.starwash.authservice.service.ReferenceDataCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -27,14 +27,14 @@ public class ServiceTrackingController {
 
     private final TransactionRepository transactionRepository;
     private final LaundryJobRepository laundryJobRepository;
-    private final FormatSettingsRepository formatSettingsRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     public ServiceTrackingController(TransactionRepository transactionRepository,
                                     LaundryJobRepository laundryJobRepository,
-                                    FormatSettingsRepository formatSettingsRepository) {
+                                    ReferenceDataCache referenceDataCache) {
         this.transactionRepository = transactionRepository;
         this.laundryJobRepository = laundryJobRepository;
-        this.formatSettingsRepository = formatSettingsRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     /**
@@ -192,20 +192,8 @@ public class ServiceTrackingController {
         dto.setChange(transaction.getChange());
 
         // Calculate consumable quantities
-        if (transaction.getConsumables() != null) {
-            int detergentQty = transaction.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                    .mapToInt(c -> c.getQuantity())
-                    .sum();
-
-            int fabricQty = transaction.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                    .mapToInt(c -> c.getQuantity())
-                    .sum();
-
-            dto.setDetergentQty(detergentQty);
-            dto.setFabricQty(fabricQty);
-        }
+        dto.setDetergentQty(transaction.getDetergentQty());
+        dto.setFabricQty(transaction.getFabricQty());
 
         // Laundry job data (progress information)
         if (laundryJob != null) {
@@ -278,17 +266,8 @@ public class ServiceTrackingController {
         
         // Calculate consumable quantities for display
         if (transaction.getConsumables() != null) {
-            int detergentQty = transaction.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                    .mapToInt(c -> c.getQuantity())
-                    .sum();
-            int fabricQty = transaction.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                    .mapToInt(c -> c.getQuantity())
-                    .sum();
-            
-            dto.setDetergentQty(detergentQty);
-            dto.setFabricQty(fabricQty);
+            dto.setDetergentQty(transaction.getDetergentQty());
+            dto.setFabricQty(transaction.getFabricQty());
             dto.setLoads(transaction.getServiceQuantity());
         }
         
@@ -297,18 +276,17 @@ public class ServiceTrackingController {
         dto.setTax(0.0); // Adjust based on your tax calculation
         dto.setDiscount(0.0); // Adjust if you have discounts
         
-        // Set plasticQty to 0 (adjust if you track plastic usage)
-        dto.setPlasticQty(0);
+        dto.setPlasticQty(transaction.getPlasticQty());
         
         return dto;
     }
 
     /**
-     * ✅ NEW: Get format settings from database
+     * ✅ NEW: Get format settings (reference data snapshot, falls back to defaults)
      */
     private FormatSettingsDto getFormatSettings() {
         try {
-            Optional<FormatSettings> settingsOpt = formatSettingsRepository.findTopByOrderByIdDesc();
+            Optional<FormatSettings> settingsOpt = referenceDataCache.getFormatSettings();
             if (settingsOpt.isPresent()) {
                 FormatSettings settings = settingsOpt.get();
                 return new FormatSettingsDto(
@@ -10,6 +10,8 @@ import com.starwash.authservice.model.Transaction;
 import com.starwash.authservice.service.TransactionService;
 import com.starwash.authservice.service.LaundryJobService;
 import com.starwash.authservice.service.AuditService;
+import com.starwash.authservice.service.TransactionImportService;
+import com.starwash.authservice.service.JobExpiryScheduler;
 import com.starwash.authservice.repository.LaundryJobRepository;
 import com.starwash.authservice.repository.TransactionRepository;
 import com.starwash.authservice.security.JwtUtil;
@@ -18,7 +20,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -39,19 +43,78 @@ public class TransactionController {
     private final TransactionRepository transactionRepository;
     private final JwtUtil jwtUtil;
     private final AuditService auditService;
+    private final TransactionImportService transactionImportService;
+    private final JobExpiryScheduler jobExpiryScheduler;
 
     public TransactionController(TransactionService transactionService,
                                  LaundryJobService laundryJobService,
                                  LaundryJobRepository laundryJobRepository,
                                  TransactionRepository transactionRepository,
                                  JwtUtil jwtUtil,
-                                 AuditService auditService) {
+                                 AuditService auditService,
+                                 TransactionImportService transactionImportService,
+                                 JobExpiryScheduler jobExpiryScheduler) {
         this.transactionService = transactionService;
         this.laundryJobService = laundryJobService;
         this.laundryJobRepository = laundryJobRepository;
         this.transactionRepository = transactionRepository;
         this.jwtUtil = jwtUtil;
         this.auditService = auditService;
+        this.transactionImportService = transactionImportService;
+        this.jobExpiryScheduler = jobExpiryScheduler;
+    }
+
+    /**
+     * Bulk-load historical transactions from a CSV (header row) or NDJSON file.
+     * Each row becomes a transaction plus a finished laundry job; bad rows are reported, not fatal.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importTransactions(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(required = false) String format,
+                                                @RequestHeader("Authorization") String authHeader,
+                                                HttpServletRequest httpRequest) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(401).build();
+        }
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
+        }
+
+        String token = authHeader.replace("Bearer ", "");
+        String staffId = jwtUtil.getUsername(token);
+        String staffRole = jwtUtil.getRole(token);
+
+        // Fall back to the file extension when no format is given
+        String resolvedFormat = format;
+        if (resolvedFormat == null || resolvedFormat.isBlank()) {
+            String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+            resolvedFormat = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")
+                    ? TransactionImportService.FORMAT_NDJSON
+                    : TransactionImportService.FORMAT_CSV;
+        }
+
+        try {
+            TransactionImportService.ImportResult result =
+                    transactionImportService.importRecords(file.getInputStream(), resolvedFormat, staffId);
+
+            // One audit entry for the whole import instead of one per row
+            auditService.logActivity(
+                staffId,
+                "TRANSACTION_IMPORT",
+                staffRole,
+                file.getOriginalFilename(),
+                String.format("Imported %d of %d historical transactions (%d failed) from %s",
+                        result.getImported(), result.getTotalRows(), result.getFailed(), file.getOriginalFilename()),
+                httpRequest
+            );
+            log.info("📥 Transaction import | staff={} | imported={} | failed={}",
+                    staffId, result.getImported(), result.getFailed());
+
+            return ResponseEntity.ok(result);
+        } catch (IOException e) {
+            log.error("❌ Transaction import failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read file: " + e.getMessage()));
+        }
     }
 
     /**
@@ -213,6 +276,7 @@ public class TransactionController {
             boolean wasVerified = Boolean.TRUE.equals(transaction.getGcashVerified());
             transaction.setGcashVerified(true); 
             transactionService.saveTransaction(transaction);
+            laundryJobService.syncPaymentStatus(transaction);
             
             // Log GCash verification activity
             if (!wasVerified) {
@@ -292,7 +356,7 @@ public class TransactionController {
                     job.setDueDate(LocalDateTime.now().plusDays(7));
                 }
                 
-                laundryJobRepository.save(job);
+                jobExpiryScheduler.arm(laundryJobRepository.save(job));
                 fixedJobs++;
             }
         }
@@ -0,0 +1,26 @@
+package com.starwash.authservice.dto;
+
+import java.util.List;
+
+public class AdminRecordPageDto {
+    private List<AdminRecordResponseDto> records;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public AdminRecordPageDto() {}
+
+    public AdminRecordPageDto(List<AdminRecordResponseDto> records, String nextCursor, boolean hasMore) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<AdminRecordResponseDto> getRecords() { return records; }
+    public void setRecords(List<AdminRecordResponseDto> records) { this.records = records; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,38 @@
+package com.starwash.authservice.dto;
+
+/**
+ * One step in a batch of load operations: ASSIGN (needs machineId), START, ADVANCE (needs
+ * status), COMPLETE or RELEASE, applied to load {@code loadNumber} of job {@code transactionId}.
+ */
+public class LoadOperationDto {
+    private String type;
+    private String transactionId;
+    private int loadNumber;
+    private String machineId;
+    private String status;
+
+    public LoadOperationDto() {}
+
+    public LoadOperationDto(String type, String transactionId, int loadNumber, String machineId, String status) {
+        this.type = type;
+        this.transactionId = transactionId;
+        this.loadNumber = loadNumber;
+        this.machineId = machineId;
+        this.status = status;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public int getLoadNumber() { return loadNumber; }
+    public void setLoadNumber(int loadNumber) { this.loadNumber = loadNumber; }
+
+    public String getMachineId() { return machineId; }
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,49 @@
+package com.starwash.authservice.dto;
+
+/**
+ * Outcome of one operation in a batch, in request order. On success {@code status} and
+ * {@code machineId} are the load's state after the batch; on failure {@code error} says why.
+ */
+public class LoadOperationResultDto {
+    private int index;
+    private String type;
+    private String transactionId;
+    private int loadNumber;
+    private boolean success;
+    private String status;
+    private String machineId;
+    private String error;
+
+    public LoadOperationResultDto() {}
+
+    public LoadOperationResultDto(int index, LoadOperationDto op) {
+        this.index = index;
+        this.type = op.getType();
+        this.transactionId = op.getTransactionId();
+        this.loadNumber = op.getLoadNumber();
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public int getLoadNumber() { return loadNumber; }
+    public void setLoadNumber(int loadNumber) { this.loadNumber = loadNumber; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getMachineId() { return machineId; }
+    public void setMachineId(String machineId) { this.machineId = machineId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,40 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of laundry loads that reached COMPLETED. One document per Manila day (id "yyyy-MM-dd")
+ * plus an all-time document (id "total"), incremented as loads complete.
+ */
+@Document(collection = "completed_load_counters")
+public class CompletedLoadCounter {
+
+    public static final String TOTAL_ID = "total";
+
+    @Id
+    private String id;
+
+    private long count;
+
+    private LocalDateTime lastUpdated;
+
+    public CompletedLoadCounter() {}
+
+    public CompletedLoadCounter(String id, long count, LocalDateTime lastUpdated) {
+        this.id = id;
+        this.count = count;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
+}
@@ -0,0 +1,23 @@
+package com.starwash.authservice.model;
+
+/**
+ * Category of a consumable line, decided once from the stock item name when the
+ * transaction is written so reads and aggregations never have to match on names.
+ */
+public enum ConsumableCategory {
+    DETERGENT,
+    FABRIC,
+    PLASTIC,
+    OTHER;
+
+    public static ConsumableCategory fromName(String name) {
+        if (name == null) {
+            return OTHER;
+        }
+        String lower = name.toLowerCase();
+        if (lower.contains("detergent")) return DETERGENT;
+        if (lower.contains("fabric")) return FABRIC;
+        if (lower.contains("plastic")) return PLASTIC;
+        return OTHER;
+    }
+}
@@ -0,0 +1,67 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized forms of a customer name, stored next to customerName so searches can use an index
+ * instead of a case-insensitive $regex collection scan.
+ *
+ * key   - lower-cased, accent-stripped, whitespace-collapsed ("José  Dela Cruz" -> "jose dela cruz")
+ * terms - the key split into alphanumeric tokens ("jose", "dela", "cruz")
+ */
+public final class CustomerNameKey {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    private CustomerNameKey() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String stripped = ACCENTS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static List<String> searchTerms(String name) {
+        String key = normalize(name);
+        if (key == null || key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : NON_ALNUM.split(key)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Every word typed must be the start of some word in the name ("dela cr" matches
+     * "Juan Dela Cruz"). Terms are plain [a-z0-9], so each becomes an anchored, case-sensitive
+     * prefix regex that Mongo answers with a bounded scan of the searchTerms index.
+     */
+    public static Criteria searchCriteria(String search) {
+        List<String> terms = searchTerms(search);
+        if (terms.isEmpty()) {
+            return Criteria.where("customerNameKey").is(normalize(search));
+        }
+        if (terms.size() == 1) {
+            return Criteria.where("searchTerms").regex("^" + terms.get(0));
+        }
+        Object[] prefixes = terms.stream().map(term -> Pattern.compile("^" + term)).toArray();
+        return Criteria.where("searchTerms").all(prefixes);
+    }
+}
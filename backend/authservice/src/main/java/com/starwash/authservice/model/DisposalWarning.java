@@ -0,0 +1,57 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One disposal-warning SMS sent for a job at a given window (3, 1 or 0 days left). The id is
+ * "jobId:daysLeft", so a re-run or manual trigger can't send the same warning twice.
+ */
+@Document(collection = "disposal_warnings")
+public class DisposalWarning {
+
+    @Id
+    private String id;
+
+    private String jobId;
+
+    private String transactionId;
+
+    private int daysLeft;
+
+    // Records are only needed while the job can still get warnings
+    @Indexed(name = "sent_at_ttl_idx", expireAfter = "30d")
+    private LocalDateTime sentAt;
+
+    public DisposalWarning() {}
+
+    public DisposalWarning(String jobId, String transactionId, int daysLeft, LocalDateTime sentAt) {
+        this.id = idFor(jobId, daysLeft);
+        this.jobId = jobId;
+        this.transactionId = transactionId;
+        this.daysLeft = daysLeft;
+        this.sentAt = sentAt;
+    }
+
+    public static String idFor(String jobId, int daysLeft) {
+        return jobId + ":" + daysLeft;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public int getDaysLeft() { return daysLeft; }
+    public void setDaysLeft(int daysLeft) { this.daysLeft = daysLeft; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
@@ -2,6 +2,7 @@ package com.starwash.authservice.model;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -10,6 +11,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Document(collection = "laundry_jobs")
 @CompoundIndexes({
@@ -20,7 +22,13 @@ import java.util.List;
         @CompoundIndex(name = "expired_idx", def = "{'expired': 1}"),
         @CompoundIndex(name = "customer_name_idx", def = "{'customerName': 1}"),
         @CompoundIndex(name = "service_type_idx", def = "{'serviceType': 1}"),
-        @CompoundIndex(name = "disposed_idx", def = "{'disposed': 1}")
+        @CompoundIndex(name = "disposed_idx", def = "{'disposed': 1}"),
+        @CompoundIndex(name = "unclaimed_created_idx", def = "{'pickupStatus': 1, 'expired': 1, 'disposed': 1, 'createdAt': -1, '_id': -1}"),
+        // Only finished-but-not-picked-up jobs and jobs with work left; both sets stay small
+        @CompoundIndex(name = "completed_unclaimed_idx", def = "{'completedAt': -1}",
+                partialFilter = "{'allLoadsCompleted': true, 'pickupStatus': 'UNCLAIMED'}"),
+        @CompoundIndex(name = "pending_loads_idx", def = "{'pendingLoads': 1}",
+                partialFilter = "{'pendingLoads': {'$gt': 0}}")
 })
 public class LaundryJob {
 
@@ -31,16 +39,34 @@ public class LaundryJob {
     @Indexed
     private LocalDateTime createdAt;
 
+    // Bumped by every write, including per-load positional updates, so a stale full-document
+    // save fails instead of silently overwriting another staff member's load change
+    @Version
+    private Long version;
+
     @Indexed
     private String transactionId;
 
     @Indexed
     private String customerName;
 
+    // Derived from customerName on every write; see CustomerNameKey
+    @Indexed
+    private String customerNameKey;
+    @Indexed
+    private List<String> searchTerms;
+
     private String contact;
 
     private List<LoadAssignment> loadAssignments = new ArrayList<>();
 
+    // Summary of loadAssignments, so list queries don't inspect every load. Recomputed by
+    // setLoadAssignments/refreshLoadSummary on full saves and in the database after per-load updates.
+    private boolean allLoadsCompleted;
+    private int completedLoads;
+    private int pendingLoads;
+    private LocalDateTime completedAt; // when the last load completed, once all are
+
     private Integer detergentQty;
     private Integer fabricQty;
 
@@ -54,6 +80,11 @@ public class LaundryJob {
     private String claimReceiptNumber;
     private String claimedByStaffId;
 
+    // Mirrored from the transaction so the claiming list needs no per-job lookup; verify-gcash
+    // updates both. A GCash job is claimable only when gcashVerified is true; imported ones may carry null.
+    private String paymentMethod;
+    private Boolean gcashVerified;
+
     private String laundryProcessedBy;
 
     @Indexed
@@ -79,9 +110,9 @@ public class LaundryJob {
             Integer detergentQty, Integer fabricQty,
             List<String> statusFlow, Integer currentStep) {
         this.transactionId = transactionId;
-        this.customerName = customerName;
+        setCustomerName(customerName);
         this.contact = contact;
-        this.loadAssignments = loadAssignments != null ? loadAssignments : new ArrayList<>();
+        setLoadAssignments(loadAssignments != null ? loadAssignments : new ArrayList<>());
         this.detergentQty = detergentQty;
         this.fabricQty = fabricQty;
         this.statusFlow = statusFlow != null ? statusFlow : new ArrayList<>();
@@ -174,6 +205,14 @@ public class LaundryJob {
     }
 
     // Core getters and setters
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getId() {
         return id;
     }
@@ -196,6 +235,16 @@ public class LaundryJob {
 
     public void setCustomerName(String customerName) {
         this.customerName = customerName;
+        this.customerNameKey = CustomerNameKey.normalize(customerName);
+        this.searchTerms = CustomerNameKey.searchTerms(customerName);
+    }
+
+    public String getCustomerNameKey() {
+        return customerNameKey;
+    }
+
+    public List<String> getSearchTerms() {
+        return searchTerms;
     }
 
     public String getContact() {
@@ -212,6 +261,36 @@ public class LaundryJob {
 
     public void setLoadAssignments(List<LoadAssignment> loadAssignments) {
         this.loadAssignments = loadAssignments;
+        refreshLoadSummary();
+    }
+
+    /** Recomputes the load summary fields from loadAssignments. */
+    public void refreshLoadSummary() {
+        List<LoadAssignment> loads = loadAssignments != null ? loadAssignments : List.of();
+        completedLoads = (int) loads.stream().filter(l -> "COMPLETED".equals(l.getStatus())).count();
+        pendingLoads = loads.size() - completedLoads;
+        allLoadsCompleted = completedLoads > 0 && pendingLoads == 0;
+        completedAt = !allLoadsCompleted ? null : loads.stream()
+                .map(l -> l.getCompletedAt() != null ? l.getCompletedAt() : l.getEndTime())
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+
+    public boolean isAllLoadsCompleted() {
+        return allLoadsCompleted;
+    }
+
+    public int getCompletedLoads() {
+        return completedLoads;
+    }
+
+    public int getPendingLoads() {
+        return pendingLoads;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
     }
 
     public Integer getDetergentQty() {
@@ -254,6 +333,22 @@ public class LaundryJob {
         this.pickupStatus = pickupStatus;
     }
 
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public Boolean getGcashVerified() {
+        return gcashVerified;
+    }
+
+    public void setGcashVerified(Boolean gcashVerified) {
+        this.gcashVerified = gcashVerified;
+    }
+
     public String getServiceType() {
         return serviceType;
     }
@@ -297,6 +392,7 @@ public class LaundryJob {
         private Double durationMinutes; // CHANGED: Integer → Double
         private LocalDateTime startTime;
         private LocalDateTime endTime;
+        private LocalDateTime completedAt; // Manila time the load reached COMPLETED
 
         public LoadAssignment() {
         }
@@ -359,6 +455,14 @@ public class LaundryJob {
             this.endTime = endTime;
         }
 
+        public LocalDateTime getCompletedAt() {
+            return completedAt;
+        }
+
+        public void setCompletedAt(LocalDateTime completedAt) {
+            this.completedAt = completedAt;
+        }
+
         @Override
         public String toString() {
             return "LoadAssignment{" +
@@ -368,6 +472,7 @@ public class LaundryJob {
                     ", durationMinutes=" + durationMinutes +
                     ", startTime=" + startTime +
                     ", endTime=" + endTime +
+                    ", completedAt=" + completedAt +
                     '}';
         }
     }
@@ -1,10 +1,19 @@
 package com.starwash.authservice.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "notifications")
+@CompoundIndexes({
+        // unread lists and counts: (userId, read) then newest first
+        @CompoundIndex(name = "user_read_created_idx", def = "{'userId': 1, 'read': 1, 'createdAt': -1}"),
+        // the full list, newest first
+        @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1}")
+})
 public class Notification {
     
     @Id
@@ -17,6 +26,8 @@ public class Notification {
     private String relatedEntityId;
     private boolean read;
     private LocalDateTime createdAt;
+    // Read notifications are dropped 30 days after being read; unread ones have no readAt and stay
+    @Indexed(name = "read_at_ttl_idx", expireAfter = "30d")
     private LocalDateTime readAt;
 
     public Notification() {}
@@ -0,0 +1,88 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting to be fanned out to its recipients. Written on the request path instead
+ * of the notifications themselves; NotificationOutbox turns it into one notification per
+ * recipient and deletes it once they are saved. Entries left over from a crash or restart are
+ * picked up on the next start. An entry that keeps failing is retried with a growing delay and,
+ * after NotificationOutbox.MAX_ATTEMPTS, moved to notification_outbox_dead for a look by hand.
+ */
+@Document(collection = "notification_outbox")
+public class NotificationOutboxEntry {
+
+    // Who gets it: every user, all staff, all admins, or the one userId
+    public static final String AUDIENCE_ALL = "ALL";
+    public static final String AUDIENCE_STAFF = "STAFF";
+    public static final String AUDIENCE_ADMIN = "ADMIN";
+    public static final String AUDIENCE_USER = "USER";
+
+    @Id
+    private String id;
+
+    private String audience;
+    private String userId;
+    private String type;
+    private String title;
+    private String message;
+    private String relatedEntityId;
+
+    @Indexed(name = "created_at_idx")
+    private LocalDateTime createdAt;
+
+    // Failed deliveries so far, why the last one failed, and when it may be tried again
+    private int attempts;
+    private String lastError;
+    private LocalDateTime nextAttemptAt;
+
+    public NotificationOutboxEntry() {}
+
+    public NotificationOutboxEntry(String audience, String userId, String type, String title, String message,
+            String relatedEntityId, LocalDateTime createdAt) {
+        this.audience = audience;
+        this.userId = userId;
+        this.type = type;
+        this.title = title;
+        this.message = message;
+        this.relatedEntityId = relatedEntityId;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getAudience() { return audience; }
+    public void setAudience(String audience) { this.audience = audience; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getRelatedEntityId() { return relatedEntityId; }
+    public void setRelatedEntityId(String relatedEntityId) { this.relatedEntityId = relatedEntityId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
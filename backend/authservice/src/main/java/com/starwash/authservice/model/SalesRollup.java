@@ -0,0 +1,87 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated sales totals for one Manila-local day and one service.
+ * The id is "yyyy-MM-dd|serviceName" so every transaction maps to exactly one row.
+ */
+@Document(collection = "sales_rollups")
+@CompoundIndexes({
+        @CompoundIndex(name = "day_service_idx", def = "{'day': 1, 'serviceName': 1}"),
+        @CompoundIndex(name = "month_idx", def = "{'month': 1}")
+})
+public class SalesRollup {
+
+    @Id
+    private String id;
+
+    private String day;   // yyyy-MM-dd (Manila)
+    private String month; // yyyy-MM (Manila)
+    private int year;
+    private String serviceName;
+
+    private double income;
+    private long loads;
+    private long transactionCount;
+    private long detergentCount;
+    private long fabricCount;
+    private long plasticCount;
+
+    private LocalDateTime lastUpdated;
+
+    public SalesRollup() {}
+
+    public SalesRollup(String day, String serviceName) {
+        this.id = buildId(day, serviceName);
+        this.day = day;
+        this.month = day.substring(0, 7);
+        this.year = Integer.parseInt(day.substring(0, 4));
+        this.serviceName = serviceName;
+    }
+
+    public static String buildId(String day, String serviceName) {
+        return day + "|" + serviceName;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+
+    public String getMonth() { return month; }
+    public void setMonth(String month) { this.month = month; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+
+    public String getServiceName() { return serviceName; }
+    public void setServiceName(String serviceName) { this.serviceName = serviceName; }
+
+    public double getIncome() { return income; }
+    public void setIncome(double income) { this.income = income; }
+
+    public long getLoads() { return loads; }
+    public void setLoads(long loads) { this.loads = loads; }
+
+    public long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(long transactionCount) { this.transactionCount = transactionCount; }
+
+    public long getDetergentCount() { return detergentCount; }
+    public void setDetergentCount(long detergentCount) { this.detergentCount = detergentCount; }
+
+    public long getFabricCount() { return fabricCount; }
+    public void setFabricCount(long fabricCount) { this.fabricCount = fabricCount; }
+
+    public long getPlasticCount() { return plasticCount; }
+    public void setPlasticCount(long plasticCount) { this.plasticCount = plasticCount; }
+
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
+}
@@ -0,0 +1,48 @@
+package com.starwash.authservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark for one numbered series (invoice / claim receipt) per branch per Manila day.
+ * The id is "prefix|branch|yyyy-MM-dd"; value is the last sequence number handed to any instance.
+ */
+@Document(collection = "sequence_counters")
+public class SequenceCounter {
+
+    @Id
+    private String id;
+
+    private String prefix;
+    private String branch;
+    private String day;
+    private long value;
+
+    private LocalDateTime lastUpdated;
+
+    public SequenceCounter() {}
+
+    public static String buildId(String prefix, String branch, String day) {
+        return prefix + "|" + branch + "|" + day;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getPrefix() { return prefix; }
+    public void setPrefix(String prefix) { this.prefix = prefix; }
+
+    public String getBranch() { return branch; }
+    public void setBranch(String branch) { this.branch = branch; }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+
+    public long getValue() { return value; }
+    public void setValue(long value) { this.value = value; }
+
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
+}
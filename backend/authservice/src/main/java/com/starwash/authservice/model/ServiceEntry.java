@@ -5,6 +5,7 @@ public class ServiceEntry {
     private String name;
     private double price;
     private int quantity;
+    private ConsumableCategory category;
 
     public ServiceEntry() {}
 
@@ -12,6 +13,7 @@ public class ServiceEntry {
         this.name = name;
         this.price = price;
         this.quantity = quantity;
+        this.category = ConsumableCategory.fromName(name);
     }
 
     public String getName() {
@@ -26,6 +28,10 @@ public class ServiceEntry {
         return quantity;
     }
 
+    public ConsumableCategory getCategory() {
+        return category;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -37,4 +43,8 @@ public class ServiceEntry {
     public void setQuantity(int quantity) {
         this.quantity = quantity;
     }
-}
\ No newline at end of file
+
+    public void setCategory(ConsumableCategory category) {
+        this.category = category;
+    }
+}
@@ -11,6 +11,8 @@ import java.util.List;
 
 @Document(collection = "transactions")
 @CompoundIndex(name = "createdAt_idx", def = "{'createdAt': -1}")
+@CompoundIndex(name = "createdAt_id_idx", def = "{'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "issueDate_id_idx", def = "{'issueDate': -1, '_id': -1}")
 @CompoundIndex(name = "invoiceNumber_idx", def = "{'invoiceNumber': 1}")
 @CompoundIndex(name = "customerName_idx", def = "{'customerName': 1}")
 @CompoundIndex(name = "paymentMethod_idx", def = "{'paymentMethod': 1}")
@@ -26,6 +28,12 @@ public class Transaction {
     private String customerName;
     private String contact;
 
+    // Derived from customerName on every write; see CustomerNameKey
+    @Indexed
+    private String customerNameKey;
+    @Indexed
+    private List<String> searchTerms;
+
     private String serviceName;
     private Double servicePrice;
     private Integer serviceQuantity;
@@ -33,6 +41,11 @@ public class Transaction {
     private List<ServiceEntry> consumables;
     private Double totalPrice;
 
+    // Per-category consumable totals, kept in step with consumables on every write
+    private int detergentQty;
+    private int fabricQty;
+    private int plasticQty;
+
     @Indexed
     private String paymentMethod;
     private Double amountGiven;
@@ -64,12 +77,12 @@ public class Transaction {
                        String staffId, LocalDateTime createdAt) {
         this.id = id;
         this.invoiceNumber = invoiceNumber;
-        this.customerName = customerName;
+        setCustomerName(customerName);
         this.contact = contact;
         this.serviceName = serviceName;
         this.servicePrice = servicePrice;
         this.serviceQuantity = serviceQuantity;
-        this.consumables = consumables;
+        setConsumables(consumables);
         this.totalPrice = totalPrice;
         this.paymentMethod = paymentMethod;
         this.amountGiven = amountGiven;
@@ -98,7 +111,14 @@ public class Transaction {
     public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
     
     public String getCustomerName() { return customerName; }
-    public void setCustomerName(String customerName) { this.customerName = customerName; }
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+        this.customerNameKey = CustomerNameKey.normalize(customerName);
+        this.searchTerms = CustomerNameKey.searchTerms(customerName);
+    }
+
+    public String getCustomerNameKey() { return customerNameKey; }
+    public List<String> getSearchTerms() { return searchTerms; }
     
     public String getContact() { return contact; }
     public void setContact(String contact) { this.contact = contact; }
@@ -113,7 +133,40 @@ public class Transaction {
     public void setServiceQuantity(Integer serviceQuantity) { this.serviceQuantity = serviceQuantity; }
     
     public List<ServiceEntry> getConsumables() { return consumables; }
-    public void setConsumables(List<ServiceEntry> consumables) { this.consumables = consumables; }
+    public void setConsumables(List<ServiceEntry> consumables) {
+        this.consumables = consumables;
+        tallyConsumables();
+    }
+
+    // Tags untagged lines and recomputes the category totals (Mongo reads use field access, so this only runs on writes)
+    public void tallyConsumables() {
+        detergentQty = 0;
+        fabricQty = 0;
+        plasticQty = 0;
+        if (consumables == null) {
+            return;
+        }
+        for (ServiceEntry entry : consumables) {
+            if (entry.getCategory() == null) {
+                entry.setCategory(ConsumableCategory.fromName(entry.getName()));
+            }
+            switch (entry.getCategory()) {
+                case DETERGENT -> detergentQty += entry.getQuantity();
+                case FABRIC -> fabricQty += entry.getQuantity();
+                case PLASTIC -> plasticQty += entry.getQuantity();
+                default -> { }
+            }
+        }
+    }
+
+    public int getDetergentQty() { return detergentQty; }
+    public void setDetergentQty(int detergentQty) { this.detergentQty = detergentQty; }
+
+    public int getFabricQty() { return fabricQty; }
+    public void setFabricQty(int fabricQty) { this.fabricQty = fabricQty; }
+
+    public int getPlasticQty() { return plasticQty; }
+    public void setPlasticQty(int plasticQty) { this.plasticQty = plasticQty; }
     
     public Double getTotalPrice() { return totalPrice; }
     public void setTotalPrice(Double totalPrice) { this.totalPrice = totalPrice; }
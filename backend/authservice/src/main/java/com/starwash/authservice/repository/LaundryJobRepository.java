@@ -3,6 +3,7 @@ package com.starwash.authservice.repository;
 import com.starwash.authservice.model.LaundryJob;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -16,8 +17,7 @@ public interface LaundryJobRepository extends MongoRepository<LaundryJob, String
 
     Optional<LaundryJob> findFirstByTransactionId(String transactionId);
 
-    // Exact case-sensitive search
-    List<LaundryJob> findByCustomerName(String customerName);
+    // Customer-name search goes through CustomerNameKey.searchCriteria (indexed searchTerms prefix match)
 
     Optional<LaundryJob> findByLoadAssignmentsMachineId(String machineId);
 
@@ -38,13 +38,31 @@ public interface LaundryJobRepository extends MongoRepository<LaundryJob, String
 
     Page<LaundryJob> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
-    @Query("{ 'customerName': { $regex: ?0, $options: 'i' } }")
-    Page<LaundryJob> findByCustomerNameContainingIgnoreCase(String name, Pageable pageable);
-
     // In LaundryJobRepository.java
     @Query("{ 'loadAssignments.status': { $ne: 'COMPLETED' } }")
     List<LaundryJob> findIncompleteJobs();
 
+    // Served by the partial completed_unclaimed_idx; expired/disposed are filtered within it
+    @Query("{ 'allLoadsCompleted': true, 'pickupStatus': 'UNCLAIMED', 'expired': false, 'disposed': false }")
+    List<LaundryJob> findCompletedUnclaimed();
+
+    // As above, minus GCash payments not yet verified (paymentMethod/gcashVerified mirrored from the
+    // transaction). Same rule as ClaimingService.claimLaundry: GCash is claimable only once verified is true
+    @Query("{ 'allLoadsCompleted': true, 'pickupStatus': 'UNCLAIMED', 'expired': false, 'disposed': false, "
+            + "$or: [ { 'paymentMethod': { $ne: 'GCash' } }, { 'gcashVerified': true } ] }")
+    List<LaundryJob> findClaimableCompletedUnclaimed();
+
+    // Includes expired/disposed jobs (admin view)
+    @Query("{ 'allLoadsCompleted': true, 'pickupStatus': 'UNCLAIMED' }")
+    List<LaundryJob> findAllCompletedUnclaimed();
+
+    // Loads not yet COMPLETED, summed over jobs with work left (partial pending_loads_idx)
+    @Aggregation(pipeline = {
+            "{ $match: { 'pendingLoads': { $gt: 0 } } }",
+            "{ $group: { _id: null, total: { $sum: '$pendingLoads' } } }"
+    })
+    Integer sumPendingLoads();
+
     @Query("{ 'transactionId': { $in: ?0 } }")
     List<LaundryJob> findByTransactionIdIn(List<String> transactionIds);
 
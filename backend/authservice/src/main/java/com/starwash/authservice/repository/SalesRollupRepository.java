@@ -0,0 +1,21 @@
+package com.starwash.authservice.repository;
+
+import com.starwash.authservice.model.SalesRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends MongoRepository<SalesRollup, String> {
+
+    // Day keys are yyyy-MM-dd strings, so lexical ranges are date ranges (both ends inclusive)
+    @Query(value = "{ 'day': { $gte: ?0, $lte: ?1 } }", sort = "{ 'day': 1 }")
+    List<SalesRollup> findByDayRange(String fromDay, String toDay);
+
+    @Query(value = "{ 'day': { $gte: ?0, $lte: ?1 }, 'serviceName': ?2 }", sort = "{ 'day': 1 }")
+    List<SalesRollup> findByDayRangeAndServiceName(String fromDay, String toDay, String serviceName);
+
+    List<SalesRollup> findByYear(int year);
+}
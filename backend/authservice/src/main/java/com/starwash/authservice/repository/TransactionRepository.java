@@ -1,6 +1,7 @@
 package com.starwash.authservice.repository;
 
 import com.starwash.authservice.model.Transaction;
+import org.bson.Document;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.Aggregation;
@@ -15,17 +16,7 @@ import java.util.Optional;
 @Repository
 public interface TransactionRepository extends MongoRepository<Transaction, String> {
 
-        Page<Transaction> findByCustomerNameContainingIgnoreCase(String name, Pageable pageable);
-
-        Page<Transaction> findByIssueDateAfterAndCustomerNameContainingIgnoreCase(LocalDateTime date, String name,
-                        Pageable pageable);
-
-        long countByCustomerNameContainingIgnoreCase(String name);
-
-        long countByIssueDateAfterAndCustomerNameContainingIgnoreCase(LocalDateTime date, String name);
-
-        Page<Transaction> findByCreatedAtAfterAndCustomerNameContainingIgnoreCase(LocalDateTime date, String name,
-                        Pageable pageable);
+        // Customer-name search goes through CustomerNameKey.searchCriteria (indexed searchTerms prefix match)
 
         List<Transaction> findByCustomerNameIgnoreCase(String customerName);
 
@@ -84,7 +75,8 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
         // ✅ NEW: Find transactions by issueDate after a certain date
         List<Transaction> findByIssueDateAfter(LocalDateTime date);
 
-        // ✅ NEW: Find transactions by issueDate after with pagination
+        // ✅ NEW: Find transactions by issueDate after with pagination (inclusive, like the count and summary)
+        @Query("{ 'issueDate': { $gte: ?0 } }")
         Page<Transaction> findByIssueDateAfter(LocalDateTime date, Pageable pageable);
 
         // ✅ NEW: Aggregation for sum of totalPrice by issueDate
@@ -107,4 +99,68 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
 
         // ✅ NEW: Find transactions by issueDate range with pagination
         Page<Transaction> findByIssueDateBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
-}
\ No newline at end of file
+
+        // Latest transaction per customer in a createdAt window (one row per distinct customer)
+        @Aggregation(pipeline = {
+                        "{ $match: { 'createdAt': { $gte: ?0, $lt: ?1 } } }",
+                        "{ $sort: { 'createdAt': -1 } }",
+                        "{ $group: { _id: '$customerName', doc: { $first: '$$ROOT' } } }",
+                        "{ $replaceRoot: { newRoot: '$doc' } }",
+                        "{ $sort: { 'createdAt': -1 } }"
+        })
+        List<Transaction> findLatestPerCustomerByCreatedAtBetween(LocalDateTime from, LocalDateTime to);
+
+        @Aggregation(pipeline = {
+                        "{ $match: { 'createdAt': { $gte: ?0, $lt: ?1 }, 'serviceName': ?2 } }",
+                        "{ $sort: { 'createdAt': -1 } }",
+                        "{ $group: { _id: '$customerName', doc: { $first: '$$ROOT' } } }",
+                        "{ $replaceRoot: { newRoot: '$doc' } }",
+                        "{ $sort: { 'createdAt': -1 } }"
+        })
+        List<Transaction> findLatestPerCustomerByCreatedAtBetweenAndServiceName(LocalDateTime from,
+                        LocalDateTime to, String serviceName);
+
+        // ✅ Admin records summary in ONE aggregation: totals (incl. per-category consumables) and job states as $facet
+        // branches; expired/unclaimed come from a $lookup into laundry_jobs (transaction_id_idx).
+        // ?0 is always "now" (for due-date expiry of jobs without a laundry job document). Unclaimed needs at least
+        // one load, all COMPLETED ($allElementsTrue alone is true for an empty array).
+        String ADMIN_SUMMARY_FACET = "{ $facet: {"
+                        + " totals: [ { $group: { _id: null,"
+                        + "   income: { $sum: { $cond: [ { $gt: ['$totalPrice', 0] }, '$totalPrice', 0 ] } },"
+                        + "   loads: { $sum: { $ifNull: ['$serviceQuantity', 0] } },"
+                        + "   records: { $sum: 1 },"
+                        + "   fabric: { $sum: { $ifNull: ['$fabricQty', 0] } },"
+                        + "   detergent: { $sum: { $ifNull: ['$detergentQty', 0] } } } } ],"
+                        + " jobStates: [ { $lookup: { from: 'laundry_jobs', localField: 'invoiceNumber', foreignField: 'transactionId', as: 'jobs' } },"
+                        + "   { $project: { dueDate: 1, hasJob: { $gt: [ { $size: '$jobs' }, 0 ] }, job: { $arrayElemAt: ['$jobs', 0] } } },"
+                        + "   { $group: { _id: null,"
+                        + "     expired: { $sum: { $cond: [ { $cond: [ '$hasJob',"
+                        + "       { $and: [ { $eq: ['$job.expired', true] }, { $ne: ['$job.disposed', true] } ] },"
+                        + "       { $and: [ { $gt: ['$dueDate', null] }, { $lt: ['$dueDate', ?0] } ] } ] }, 1, 0 ] } },"
+                        + "     unclaimed: { $sum: { $cond: [ { $and: [ '$hasJob',"
+                        + "       { $eq: [ { $toUpper: '$job.pickupStatus' }, 'UNCLAIMED' ] },"
+                        + "       { $ne: ['$job.expired', true] }, { $ne: ['$job.disposed', true] },"
+                        + "       { $gt: [ { $size: { $ifNull: ['$job.loadAssignments', []] } }, 0 ] },"
+                        + "       { $allElementsTrue: [ { $map: { input: { $ifNull: ['$job.loadAssignments', []] }, as: 'l',"
+                        + "         in: { $eq: [ { $toUpper: '$$l.status' }, 'COMPLETED' ] } } } ] } ] }, 1, 0 ] } } } } ]"
+                        + " } }";
+
+        String ADMIN_SUMMARY_PROJECT = "{ $project: {"
+                        + " totalIncome: { $ifNull: [ { $arrayElemAt: ['$totals.income', 0] }, 0 ] },"
+                        + " totalLoads: { $ifNull: [ { $arrayElemAt: ['$totals.loads', 0] }, 0 ] },"
+                        + " totalRecords: { $ifNull: [ { $arrayElemAt: ['$totals.records', 0] }, 0 ] },"
+                        + " totalFabric: { $ifNull: [ { $arrayElemAt: ['$totals.fabric', 0] }, 0 ] },"
+                        + " totalDetergent: { $ifNull: [ { $arrayElemAt: ['$totals.detergent', 0] }, 0 ] },"
+                        + " expiredCount: { $ifNull: [ { $arrayElemAt: ['$jobStates.expired', 0] }, 0 ] },"
+                        + " unclaimedCount: { $ifNull: [ { $arrayElemAt: ['$jobStates.unclaimed', 0] }, 0 ] } } }";
+
+        @Aggregation(pipeline = { ADMIN_SUMMARY_FACET, ADMIN_SUMMARY_PROJECT })
+        Document summarizeAdminRecords(LocalDateTime now);
+
+        @Aggregation(pipeline = {
+                        "{ $match: { 'issueDate': { $gte: ?1 } } }",
+                        ADMIN_SUMMARY_FACET,
+                        ADMIN_SUMMARY_PROJECT
+        })
+        Document summarizeAdminRecordsIssuedSince(LocalDateTime now, LocalDateTime startDate);
+}
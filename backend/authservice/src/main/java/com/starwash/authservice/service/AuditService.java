@@ -41,7 +41,7 @@ public class AuditService {
 
         auditLogRepository.save(auditLog);
 
-        notificationService.broadcast(NotificationService.EVENT_AUDIT, description);
+        notificationService.broadcast(NotificationService.EVENT_AUDIT, entityId, description);
         System.out.println("📝 Audit log created at Manila time: " + manilaTime);
     }
 
@@ -0,0 +1,132 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges bursts of dashboard broadcasts before they reach the SSE hub.
+ *
+ * One invoice used to fan out as several LAUNDRY/TRANSACTION/AUDIT events within a few
+ * milliseconds, and every connected dashboard refetched once per event. Events of a coalesced
+ * type are now held for the window after the first one and sent as a single event carrying every
+ * entity ID that changed in it (plus the count and the last message), so clients refresh once
+ * and can refresh selectively. Other event types (e.g. MACHINE_ASSIGNED, whose payload matters)
+ * go straight through. A window of 0 turns coalescing off.
+ */
+@Service
+public class BroadcastCoalescer {
+
+    private static final Set<String> COALESCED = Set.of(
+            NotificationService.EVENT_LAUNDRY,
+            NotificationService.EVENT_TRANSACTION,
+            NotificationService.EVENT_AUDIT,
+            NotificationService.EVENT_STOCK);
+    // Beyond this a client is better off reloading the whole list anyway
+    private static final int MAX_ENTITY_IDS = 200;
+
+    private final SseHub sseHub;
+    private final long windowMs;
+
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "broadcast-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+
+    public BroadcastCoalescer(SseHub sseHub, @Value("${app.sse.coalesce-window-ms:250}") long windowMs) {
+        this.sseHub = sseHub;
+        this.windowMs = Math.max(0, windowMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        new ArrayList<>(pending.keySet()).forEach(this::flush);
+    }
+
+    /** Queues a broadcast; entityIds may be empty when the change isn't about particular records. */
+    public void publish(String eventName, Object data, Collection<String> entityIds) {
+        published.incrementAndGet();
+        if (windowMs == 0 || !COALESCED.contains(eventName)) {
+            sseHub.broadcast(eventName, data);
+            flushed.incrementAndGet();
+            return;
+        }
+        pending.compute(eventName, (name, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+                flusher.schedule(() -> flush(name), windowMs, TimeUnit.MILLISECONDS);
+            }
+            batch.add(data, entityIds);
+            return batch;
+        });
+    }
+
+    // The batch is removed atomically with respect to publish, so nothing is added after it is sent
+    private void flush(String eventName) {
+        Batch batch = pending.remove(eventName);
+        if (batch == null) {
+            return;
+        }
+        try {
+            sseHub.broadcast(eventName, batch.toPayload(eventName));
+            flushed.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("❌ Failed to flush " + eventName + " broadcast: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("windowMs", windowMs);
+        metrics.put("published", published.get());
+        metrics.put("sent", flushed.get());
+        metrics.put("pendingTypes", pending.size());
+        return metrics;
+    }
+
+    private static final class Batch {
+        final LocalDateTime since = ManilaTimeUtil.now();
+        final Set<String> entityIds = new LinkedHashSet<>();
+        boolean truncated;
+        int count;
+        Object lastData;
+
+        void add(Object data, Collection<String> ids) {
+            count++;
+            lastData = data;
+            for (String id : ids) {
+                if (id == null) {
+                    continue;
+                }
+                if (entityIds.size() < MAX_ENTITY_IDS) {
+                    entityIds.add(id);
+                } else if (!entityIds.contains(id)) {
+                    truncated = true;
+                }
+            }
+        }
+
+        Map<String, Object> toPayload(String eventName) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("type", eventName);
+            payload.put("count", count);
+            payload.put("entityIds", new ArrayList<>(entityIds));
+            payload.put("truncated", truncated);
+            payload.put("message", lastData);
+            payload.put("since", since.toString());
+            return payload;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.starwash.authservice.dto.ServiceClaimReceiptDto;
 import com.starwash.authservice.model.FormatSettings;
 import com.starwash.authservice.model.LaundryJob;
 import com.starwash.authservice.model.Transaction;
-import com.starwash.authservice.repository.FormatSettingsRepository;
 import com.starwash.authservice.repository.LaundryJobRepository;
 import com.starwash.authservice.repository.TransactionRepository;
 import org.springframework.stereotype.Service;
@@ -13,21 +12,26 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class ClaimingService {
 
     private final LaundryJobRepository laundryJobRepository;
-    private final FormatSettingsRepository formatSettingsRepository;
+    private final ReferenceDataCache referenceDataCache;
     private final TransactionRepository transactionRepository;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final JobExpiryScheduler jobExpiryScheduler;
 
     public ClaimingService(LaundryJobRepository laundryJobRepository,
-                          FormatSettingsRepository formatSettingsRepository,
-                          TransactionRepository transactionRepository) {
+                          ReferenceDataCache referenceDataCache,
+                          TransactionRepository transactionRepository,
+                          InvoiceNumberAllocator invoiceNumberAllocator,
+                          JobExpiryScheduler jobExpiryScheduler) {
         this.laundryJobRepository = laundryJobRepository;
-        this.formatSettingsRepository = formatSettingsRepository;
+        this.referenceDataCache = referenceDataCache;
         this.transactionRepository = transactionRepository;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.jobExpiryScheduler = jobExpiryScheduler;
     }
 
     private ZoneId getManilaTimeZone() {
@@ -59,7 +63,7 @@ public class ClaimingService {
             }
         }
 
-        String claimReceiptNumber = "CLM-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String claimReceiptNumber = invoiceNumberAllocator.nextClaimReceiptNumber();
 
         LocalDateTime claimDateManila = getCurrentManilaTime();
         
@@ -68,13 +72,14 @@ public class ClaimingService {
         job.setClaimReceiptNumber(claimReceiptNumber);
         job.setClaimedByStaffId(staffName);
         laundryJobRepository.save(job);
+        jobExpiryScheduler.disarm(job.getId());
 
         System.out.println("✅ Laundry claimed - Transaction: " + transactionId + 
                          " | Customer: " + job.getCustomerName() + 
                          " | Claim Date (Manila): " + claimDateManila +
                          " | Staff: " + staffName);
 
-        FormatSettings settings = formatSettingsRepository.findTopByOrderByIdDesc()
+        FormatSettings settings = referenceDataCache.getFormatSettings()
                 .orElseThrow(() -> new RuntimeException("Format settings not found"));
 
         LocalDateTime completionDate = job.getLoadAssignments().stream()
@@ -111,7 +116,7 @@ public class ClaimingService {
             throw new RuntimeException("Laundry job not claimed yet");
         }
 
-        FormatSettings settings = formatSettingsRepository.findTopByOrderByIdDesc()
+        FormatSettings settings = referenceDataCache.getFormatSettings()
                 .orElseThrow(() -> new RuntimeException("Format settings not found"));
 
         LocalDateTime completionDate = job.getLoadAssignments().stream()
@@ -0,0 +1,205 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.CompletedLoadCounter;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Completed-load counts kept as counter documents, so the dashboard reads one document instead
+ * of scanning every load of every job. Load transitions call {@link #loadCompleted} /
+ * {@link #loadReopened}, imports call {@link #loadsImported}; {@link #reconcile()} recomputes
+ * everything from the jobs themselves.
+ */
+@Service
+public class CompletedLoadCounterService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public CompletedLoadCounterService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** A load just reached COMPLETED at {@code completedAt} (Manila time). */
+    public void loadCompleted(LocalDateTime completedAt) {
+        adjust(completedAt, 1);
+    }
+
+    /** A load moved back out of COMPLETED; {@code completedAt} is when it had completed, if known. */
+    public void loadReopened(LocalDateTime completedAt) {
+        adjust(completedAt, -1);
+    }
+
+    /** Loads that arrive already COMPLETED (bulk import) and have no completion day. */
+    public void loadsImported(long count) {
+        if (count <= 0) {
+            return;
+        }
+        mongoTemplate.upsert(byId(CompletedLoadCounter.TOTAL_ID),
+                new Update().inc("count", count).set("lastUpdated", ManilaTimeUtil.now()), CompletedLoadCounter.class);
+    }
+
+    private void adjust(LocalDateTime completedAt, int delta) {
+        LocalDateTime now = ManilaTimeUtil.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CompletedLoadCounter.class);
+        bulk.upsert(byId(CompletedLoadCounter.TOTAL_ID), new Update().inc("count", delta).set("lastUpdated", now));
+        if (completedAt != null) {
+            bulk.upsert(byId(completedAt.toLocalDate().toString()),
+                    new Update().inc("count", delta).set("lastUpdated", now));
+        }
+        bulk.execute();
+    }
+
+    public long getTotal() {
+        return count(CompletedLoadCounter.TOTAL_ID);
+    }
+
+    public long getForDay(LocalDate day) {
+        return count(day.toString());
+    }
+
+    private long count(String id) {
+        CompletedLoadCounter counter = mongoTemplate.findById(id, CompletedLoadCounter.class);
+        return counter != null ? Math.max(counter.getCount(), 0) : 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileIfEmpty() {
+        try {
+            if (mongoTemplate.findById(CompletedLoadCounter.TOTAL_ID, CompletedLoadCounter.class) == null) {
+                System.out.println("📊 Completed-load counters empty - computing from laundry jobs...");
+                reconcile();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Completed-load counter backfill failed: " + e.getMessage());
+        }
+    }
+
+    // Nightly safety net for missed increments (crashes between the job update and the counter update)
+    @Scheduled(cron = "0 30 3 * * ?", zone = "Asia/Manila")
+    public void nightlyReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            System.err.println("❌ Completed-load counter reconcile failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recounts completed loads from the laundry jobs with one aggregation and corrects every
+     * counter to it. Loads completed before completedAt was recorded only count towards the total.
+     *
+     * Counters are snapshotted before the aggregation and each correction is fenced on the
+     * snapshot's lastUpdated, so a counter that loadCompleted/loadReopened touched meanwhile is
+     * left alone (and reported as skipped) rather than overwritten; the next run picks it up.
+     */
+    public Map<String, Object> reconcile() {
+        long startTime = System.currentTimeMillis();
+
+        Map<String, CompletedLoadCounter> before = new HashMap<>();
+        mongoTemplate.findAll(CompletedLoadCounter.class).forEach(c -> before.put(c.getId(), c));
+
+        // Days are bucketed in the zone LocalDateTimes are stored from, same as toLocalDate() on read
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("loadAssignments.status").is("COMPLETED")),
+                Aggregation.unwind("loadAssignments"),
+                Aggregation.match(Criteria.where("loadAssignments.status").is("COMPLETED")),
+                Aggregation.project().and(DateOperators.dateOf(
+                                ConditionalOperators.ifNull("loadAssignments.completedAt")
+                                        .thenValueOf("loadAssignments.endTime"))
+                        .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()))
+                        .toString("%Y-%m-%d")).as("day"),
+                Aggregation.group("day").count().as("count"));
+
+        Map<String, Long> byDay = new HashMap<>();
+        long total = 0;
+        for (Document row : mongoTemplate.aggregate(aggregation, LaundryJob.class, Document.class)) {
+            long count = ((Number) row.get("count")).longValue();
+            total += count;
+            String day = row.getString("_id");
+            if (day != null) {
+                byDay.put(day, count);
+            }
+        }
+        Map<String, Long> target = new HashMap<>(byDay);
+        target.put(CompletedLoadCounter.TOTAL_ID, total);
+
+        LocalDateTime now = ManilaTimeUtil.now();
+        int corrected = 0;
+        int skipped = 0;
+        for (Map.Entry<String, Long> e : target.entrySet()) {
+            CompletedLoadCounter current = before.get(e.getKey());
+            if (current == null) {
+                // New since the snapshot means someone else just created it; leave it to them
+                try {
+                    mongoTemplate.insert(new CompletedLoadCounter(e.getKey(), e.getValue(), now));
+                    corrected++;
+                } catch (DuplicateKeyException ex) {
+                    skipped++;
+                }
+            } else if (current.getCount() != e.getValue()) {
+                if (mongoTemplate.updateFirst(fenced(current),
+                        new Update().set("count", e.getValue()).set("lastUpdated", now),
+                        CompletedLoadCounter.class).getModifiedCount() > 0) {
+                    corrected++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        // Days that no longer have any completed load
+        for (CompletedLoadCounter stale : before.values()) {
+            if (!target.containsKey(stale.getId())) {
+                if (mongoTemplate.remove(fenced(stale), CompletedLoadCounter.class).getDeletedCount() > 0) {
+                    corrected++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println("📊 Reconciled completed-load counters: " + total + " loads over " + byDay.size()
+                + " days (" + corrected + " corrected, " + skipped + " changed meanwhile, " + duration + "ms)");
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", total);
+        summary.put("days", byDay.size());
+        summary.put("corrected", corrected);
+        summary.put("skipped", skipped);
+        summary.put("durationMs", duration);
+        return summary;
+    }
+
+    // Matches the counter only while it is exactly as it was read
+    private static Query fenced(CompletedLoadCounter counter) {
+        Criteria criteria = Criteria.where("_id").is(counter.getId()).and("count").is(counter.getCount());
+        criteria = counter.getLastUpdated() != null
+                ? criteria.and("lastUpdated").is(counter.getLastUpdated())
+                : criteria.and("lastUpdated").exists(false);
+        return new Query(criteria);
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+}
@@ -0,0 +1,83 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.Transaction;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * One-off backfill: tags consumable lines with their category and stores the per-category
+ * totals on transactions written before those fields existed. Safe to re-run - it only
+ * touches documents that still lack detergentQty.
+ */
+@Service
+public class ConsumableCategoryMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ConsumableCategoryMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        try {
+            migrate();
+        } catch (Exception e) {
+            System.err.println("❌ Consumable category migration failed: " + e.getMessage());
+        }
+    }
+
+    public long migrate() {
+        long startTime = System.currentTimeMillis();
+        Query pending = new Query(Criteria.where("detergentQty").exists(false));
+        pending.fields().include("consumables");
+
+        long migrated = 0;
+        int batched = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+
+        try (Stream<Transaction> stream = mongoTemplate.stream(pending, Transaction.class)) {
+            Iterator<Transaction> it = stream.iterator();
+            while (it.hasNext()) {
+                Transaction tx = it.next();
+                tx.tallyConsumables();
+
+                bulk.updateOne(new Query(Criteria.where("_id").is(tx.getId())), new Update()
+                        .set("consumables", tx.getConsumables())
+                        .set("detergentQty", tx.getDetergentQty())
+                        .set("fabricQty", tx.getFabricQty())
+                        .set("plasticQty", tx.getPlasticQty()));
+                batched++;
+                migrated++;
+
+                if (batched == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+                    batched = 0;
+                }
+            }
+        }
+        if (batched > 0) {
+            bulk.execute();
+        }
+
+        if (migrated > 0) {
+            System.out.println("🏷️ Tagged consumables on " + migrated + " transactions in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,89 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.CustomerNameKey;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.Transaction;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * One-off backfill: writes customerNameKey and searchTerms onto transactions and laundry jobs
+ * saved before those fields existed. Safe to re-run - it only touches documents that still
+ * lack customerNameKey.
+ */
+@Service
+public class CustomerNameKeyMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public CustomerNameKeyMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        try {
+            migrate(Transaction.class);
+            migrate(LaundryJob.class);
+        } catch (Exception e) {
+            System.err.println("❌ Customer name key migration failed: " + e.getMessage());
+        }
+    }
+
+    public long migrate(Class<?> entityClass) {
+        long startTime = System.currentTimeMillis();
+        Query pending = new Query(new Criteria().andOperator(
+                Criteria.where("customerNameKey").exists(false),
+                Criteria.where("customerName").exists(true)));
+        pending.fields().include("customerName");
+
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        long migrated = 0;
+        int batched = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+
+        // Raw documents: only _id and customerName are needed, no need to map the full entity
+        try (Stream<Document> stream = mongoTemplate.stream(pending, Document.class, collection)) {
+            Iterator<Document> it = stream.iterator();
+            while (it.hasNext()) {
+                Document doc = it.next();
+                String customerName = doc.getString("customerName");
+
+                bulk.updateOne(new Query(Criteria.where("_id").is(doc.get("_id"))), new Update()
+                        .set("customerNameKey", CustomerNameKey.normalize(customerName))
+                        .set("searchTerms", CustomerNameKey.searchTerms(customerName)));
+                batched++;
+                migrated++;
+
+                if (batched == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+                    batched = 0;
+                }
+            }
+        }
+        if (batched > 0) {
+            bulk.execute();
+        }
+
+        if (migrated > 0) {
+            System.out.println("🔤 Added search keys to " + migrated + " " + collection + " in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,233 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.LaundryJob.LoadAssignment;
+import com.starwash.authservice.repository.UserRepository;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ends wash and dry cycles on the server when their time is up.
+ *
+ * Every WASHING/DRYING load with a startTime and durationMinutes has one in-memory timer, set
+ * when the load starts or its duration changes and restored from Mongo on startup. When it fires
+ * the load goes WASHING -> WASHED or DRYING -> DRIED through LaundryJobService's advance path
+ * and its machine is freed; the staff member who ran the load gets a CYCLE_COMPLETE event on
+ * their stream. A timer whose load was advanced, restarted or re-timed meanwhile does nothing.
+ */
+@Service
+public class CycleTimerService {
+
+    private static final Set<String> RUNNING = Set.of("WASHING", "DRYING");
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    // LaundryJobService schedules timers here, so it is looked up when a timer fires
+    private final ObjectProvider<LaundryJobService> laundryJobService;
+
+    // "transactionId#loadNumber" -> live timer; rescheduling replaces and cancels the old one
+    private final Map<String, Cycle> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cycle-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong finishedCount = new AtomicLong();
+    private final AtomicLong staleTimers = new AtomicLong();
+
+    public CycleTimerService(MongoTemplate mongoTemplate, NotificationService notificationService,
+            UserRepository userRepository, ObjectProvider<LaundryJobService> laundryJobService) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.laundryJobService = laundryJobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        try {
+            Query query = new Query(Criteria.where("loadAssignments.status").in(RUNNING));
+            query.fields().include("transactionId", "loadAssignments");
+            int count = 0;
+            for (LaundryJob job : mongoTemplate.find(query, LaundryJob.class)) {
+                for (LoadAssignment load : job.getLoadAssignments()) {
+                    if (schedule(job.getTransactionId(), load)) {
+                        count++;
+                    }
+                }
+            }
+            System.out.println("⏱️ Restored " + count + " machine cycle timers");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to restore cycle timers: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Sets (or resets) the timer for a load as it is now stored. A load that isn't running or has
+     * no duration yet has its timer dropped; an overdue one finishes right away.
+     *
+     * @return true if a timer is set
+     */
+    public boolean schedule(String transactionId, LoadAssignment load) {
+        if (transactionId == null || load == null) {
+            return false;
+        }
+        String key = key(transactionId, load.getLoadNumber());
+        Double minutes = load.getDurationMinutes();
+        if (!RUNNING.contains(load.getStatus()) || load.getStartTime() == null
+                || minutes == null || minutes <= 0) {
+            cancel(key);
+            return false;
+        }
+
+        LocalDateTime endsAt = load.getStartTime().plusSeconds(Math.round(minutes * 60));
+        Cycle current = timers.get(key);
+        if (current != null && current.matches(load) && current.endsAt.equals(endsAt)) {
+            return true; // already timed
+        }
+        Cycle cycle = new Cycle(transactionId, load.getLoadNumber(), load.getStatus(), load.getStartTime(), endsAt);
+        long delayMs = Math.max(0, Duration.between(ManilaTimeUtil.now(), endsAt).toMillis());
+        Cycle previous = timers.put(key, cycle);
+        if (previous != null && previous.future != null) {
+            previous.future.cancel(false);
+        }
+        cycle.future = scheduler.schedule(() -> fire(cycle), delayMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    public void cancel(String transactionId, int loadNumber) {
+        cancel(key(transactionId, loadNumber));
+    }
+
+    private void cancel(String key) {
+        Cycle previous = timers.remove(key);
+        if (previous != null && previous.future != null) {
+            previous.future.cancel(false);
+        }
+    }
+
+    private void fire(Cycle cycle) {
+        if (!timers.remove(key(cycle.transactionId, cycle.loadNumber), cycle)) {
+            return; // replaced just as it fired
+        }
+        try {
+            // The timer only knows the load as it was when set; check it hasn't moved since
+            LoadAssignment load = currentLoad(cycle);
+            if (load == null || !cycle.matches(load)) {
+                staleTimers.incrementAndGet();
+                return;
+            }
+            LocalDateTime endsAt = load.getDurationMinutes() != null
+                    ? load.getStartTime().plusSeconds(Math.round(load.getDurationMinutes() * 60))
+                    : null;
+            if (endsAt != null && !endsAt.equals(cycle.endsAt)) {
+                schedule(cycle.transactionId, load); // re-timed without telling us
+                return;
+            }
+
+            LaundryJob job = laundryJobService.getObject()
+                    .finishCycle(cycle.transactionId, cycle.loadNumber, cycle.status);
+            finishedCount.incrementAndGet();
+            LoadAssignment finished = job.getLoadAssignments().stream()
+                    .filter(l -> l.getLoadNumber() == cycle.loadNumber)
+                    .findFirst()
+                    .orElse(load);
+            System.out.println("⏱️ Cycle finished: " + cycle.transactionId + " load " + cycle.loadNumber
+                    + " " + cycle.status + " -> " + finished.getStatus());
+            notifyStaff(job, cycle, finished);
+        } catch (OptimisticLockingFailureException e) {
+            staleTimers.incrementAndGet(); // someone advanced it by hand first
+        } catch (Exception e) {
+            System.err.println("❌ Failed to finish cycle for " + cycle.transactionId + " load "
+                    + cycle.loadNumber + ": " + e.getMessage());
+        }
+    }
+
+    private LoadAssignment currentLoad(Cycle cycle) {
+        Query query = new Query(Criteria.where("transactionId").is(cycle.transactionId));
+        query.fields().include("loadAssignments");
+        LaundryJob job = mongoTemplate.findOne(query, LaundryJob.class);
+        if (job == null || job.getLoadAssignments() == null) {
+            return null;
+        }
+        return job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == cycle.loadNumber)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Everyone already gets the LAUNDRY_UPDATE from the advance; this one is for whoever ran the load
+    private void notifyStaff(LaundryJob job, Cycle cycle, LoadAssignment load) {
+        String username = job.getLaundryProcessedBy();
+        if (username == null) {
+            return;
+        }
+        userRepository.findByUsername(username).ifPresent(user -> {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("transactionId", job.getTransactionId());
+            data.put("customerName", job.getCustomerName());
+            data.put("loadNumber", cycle.loadNumber);
+            data.put("previousStatus", cycle.status);
+            data.put("status", load.getStatus());
+            data.put("finishedAt", ManilaTimeUtil.now().toString());
+            notificationService.sendToUser(user.getId(), NotificationService.EVENT_CYCLE_COMPLETE, data);
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", timers.size());
+        metrics.put("finished", finishedCount.get());
+        metrics.put("staleTimers", staleTimers.get());
+        return metrics;
+    }
+
+    private static String key(String transactionId, int loadNumber) {
+        return transactionId + "#" + loadNumber;
+    }
+
+    private static final class Cycle {
+        final String transactionId;
+        final int loadNumber;
+        final String status;
+        final LocalDateTime startTime;
+        final LocalDateTime endsAt;
+        volatile ScheduledFuture<?> future;
+
+        Cycle(String transactionId, int loadNumber, String status, LocalDateTime startTime, LocalDateTime endsAt) {
+            this.transactionId = transactionId;
+            this.loadNumber = loadNumber;
+            this.status = status;
+            this.startTime = startTime;
+            this.endsAt = endsAt;
+        }
+
+        // Same run of the same step; Mongo keeps millisecond precision only
+        boolean matches(LoadAssignment load) {
+            return status.equals(load.getStatus()) && load.getStartTime() != null
+                    && startTime.truncatedTo(ChronoUnit.MILLIS).equals(load.getStartTime().truncatedTo(ChronoUnit.MILLIS));
+        }
+    }
+}
@@ -2,11 +2,11 @@ package com.starwash.authservice.service;
 
 import com.starwash.authservice.model.LaundryJob;
 import com.starwash.authservice.model.MachineItem;
+import com.starwash.authservice.model.SalesRollup;
 import com.starwash.authservice.model.Transaction;
 import com.starwash.authservice.repository.LaundryJobRepository;
 import com.starwash.authservice.repository.MachineRepository;
 import com.starwash.authservice.repository.TransactionRepository;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -20,13 +20,16 @@ public class DashboardService {
         private final TransactionRepository transactionRepository;
         private final LaundryJobRepository laundryJobRepository;
         private final MachineRepository machineRepository;
+        private final SalesRollupService salesRollupService;
 
         public DashboardService(TransactionRepository transactionRepository,
                         LaundryJobRepository laundryJobRepository,
-                        MachineRepository machineRepository) {
+                        MachineRepository machineRepository,
+                        SalesRollupService salesRollupService) {
                 this.transactionRepository = transactionRepository;
                 this.laundryJobRepository = laundryJobRepository;
                 this.machineRepository = machineRepository;
+                this.salesRollupService = salesRollupService;
         }
 
         // NEW: Get dashboard totals without pagination
@@ -37,13 +40,9 @@ public class DashboardService {
                 Double totalIncome = transactionRepository.sumTotalPrice();
                 Integer totalLoads = transactionRepository.sumServiceQuantity();
 
-                // Use targeted fetch instead of fetching all laundry jobs for unwashedCount
-                List<LaundryJob> incompleteJobs = laundryJobRepository.findIncompleteJobs();
-                int unwashedLoads = (int) incompleteJobs.stream()
-                                .filter(job -> job.getLoadAssignments() != null)
-                                .flatMap(job -> job.getLoadAssignments().stream())
-                                .filter(load -> !"COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
+                // Summed from each job's pendingLoads instead of walking every load
+                Integer pendingLoads = laundryJobRepository.sumPendingLoads();
+                int unwashedLoads = pendingLoads != null ? pendingLoads : 0;
 
                 long totalUnclaimed = laundryJobRepository
                                 .countByPickupStatusAndExpiredFalseAndDisposedFalse("UNCLAIMED");
@@ -61,11 +60,7 @@ public class DashboardService {
                                                         .findFirstByTransactionId(tx.getInvoiceNumber());
                                         if (jobOpt.isPresent()) {
                                                 LaundryJob job = jobOpt.get();
-                                                boolean isCompleted = job.getLoadAssignments() != null &&
-                                                                job.getLoadAssignments().stream()
-                                                                                .allMatch(load -> "COMPLETED"
-                                                                                                .equalsIgnoreCase(load
-                                                                                                                .getStatus()));
+                                                boolean isCompleted = job.isAllLoadsCompleted();
                                                 boolean isClaimed = "CLAIMED".equalsIgnoreCase(job.getPickupStatus());
                                                 return !isCompleted || !isClaimed;
                                         }
@@ -91,13 +86,8 @@ public class DashboardService {
                 Double todayIncome = transactionRepository.sumTotalPriceByCreatedAtAfter(startOfDay);
                 Integer todayLoads = transactionRepository.sumServiceQuantityByCreatedAtAfter(startOfDay);
 
-                // Optimize unwashedCount fetch
-                List<LaundryJob> incompleteJobs = laundryJobRepository.findIncompleteJobs();
-                int unwashedCount = (int) incompleteJobs.stream()
-                                .filter(job -> job.getLoadAssignments() != null)
-                                .flatMap(job -> job.getLoadAssignments().stream())
-                                .filter(load -> !"COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
+                Integer pendingLoads = laundryJobRepository.sumPendingLoads();
+                int unwashedCount = pendingLoads != null ? pendingLoads : 0;
 
                 // Optimized unclaimedCount
                 long unclaimedCount = laundryJobRepository
@@ -120,15 +110,7 @@ public class DashboardService {
                                 })
                                 .collect(Collectors.toList());
 
-                // Optimized fetch for completed unclaimed jobs
-                List<LaundryJob> completedUnclaimedJobs = laundryJobRepository
-                                .findByPickupStatusAndExpiredAndDisposed("UNCLAIMED", false, false, Pageable.unpaged())
-                                .getContent().stream()
-                                .filter(job -> job.getLoadAssignments() != null &&
-                                                job.getLoadAssignments().stream()
-                                                                .allMatch(load -> "COMPLETED"
-                                                                                .equalsIgnoreCase(load.getStatus())))
-                                .collect(Collectors.toList());
+                List<LaundryJob> completedUnclaimedJobs = laundryJobRepository.findCompletedUnclaimed();
 
                 data.put("todayIncome", todayIncome != null ? todayIncome : 0.0);
                 data.put("todayLoads", todayLoads != null ? todayLoads : 0);
@@ -147,12 +129,9 @@ public class DashboardService {
                 Map<String, Object> totals = getAdminDashboardTotals();
                 data.putAll(totals);
 
-                // Keep the existing chart data logic
+                // Chart data comes from the daily sales rollups for the current year
                 int currentYear = LocalDate.now().getYear();
-                LocalDate startOfYear = LocalDate.of(currentYear, 1, 1);
-                LocalDate endOfYear = LocalDate.of(currentYear, 12, 31);
-
-                List<Transaction> allTransactions = transactionRepository.findAll();
+                List<SalesRollup> yearRollups = salesRollupService.getRollupsForYear(currentYear);
 
                 Map<String, Double> monthlyIncome = new LinkedHashMap<>();
 
@@ -162,16 +141,11 @@ public class DashboardService {
                         monthlyIncome.put(month, 0.0);
                 }
 
-                allTransactions.stream()
-                                .filter(tx -> {
-                                        LocalDate txDate = tx.getCreatedAt().toLocalDate();
-                                        return !txDate.isBefore(startOfYear) && !txDate.isAfter(endOfYear);
-                                })
-                                .forEach(tx -> {
-                                        int month = tx.getCreatedAt().getMonthValue();
-                                        String monthName = monthNames[month - 1];
-                                        monthlyIncome.put(monthName, monthlyIncome.get(monthName) + tx.getTotalPrice());
-                                });
+                yearRollups.forEach(rollup -> {
+                        int month = Integer.parseInt(rollup.getMonth().substring(5, 7));
+                        String monthName = monthNames[month - 1];
+                        monthlyIncome.put(monthName, monthlyIncome.get(monthName) + rollup.getIncome());
+                });
 
                 List<Map<String, Object>> overviewData = monthlyIncome.entrySet().stream()
                                 .map(entry -> {
@@ -183,13 +157,7 @@ public class DashboardService {
                                 .collect(Collectors.toList());
 
                 // Get unclaimed list
-                List<LaundryJob> allUnclaimedJobs = laundryJobRepository.findAll().stream()
-                                .filter(job -> job.getLoadAssignments() != null &&
-                                                job.getLoadAssignments().stream()
-                                                                .allMatch(load -> "COMPLETED"
-                                                                                .equalsIgnoreCase(load.getStatus())))
-                                .filter(job -> "UNCLAIMED".equalsIgnoreCase(job.getPickupStatus()))
-                                .collect(Collectors.toList());
+                List<LaundryJob> allUnclaimedJobs = laundryJobRepository.findAllCompletedUnclaimed();
 
                 List<Map<String, Object>> unclaimedList = allUnclaimedJobs.stream()
                                 .map(job -> {
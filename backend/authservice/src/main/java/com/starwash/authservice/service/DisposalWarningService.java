@@ -0,0 +1,225 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.DisposalWarning;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Disposal-warning SMS for unclaimed jobs 3 days, 1 day and 0 days before their due date.
+ *
+ * Each run reads only jobs whose dueDate falls inside one of those windows (range queries on
+ * due_date_idx) and hands the sends to a small bounded worker pool, so one slow SMS gateway call
+ * no longer holds up every warning after it. Every sent warning is recorded per (job, window)
+ * before the SMS goes out; a re-run or manual trigger skips anything already recorded.
+ */
+@Service
+public class DisposalWarningService {
+
+    private static final int[] WINDOWS_DAYS = { 3, 1, 0 };
+    private static final int SMS_WORKERS = 4;
+    private static final int SMS_QUEUE_CAPACITY = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final SmsService smsService;
+
+    // Full queue -> the run thread sends itself, which slows the run down instead of dropping work
+    private final ThreadPoolExecutor smsPool = new ThreadPoolExecutor(SMS_WORKERS, SMS_WORKERS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(SMS_QUEUE_CAPACITY),
+            r -> {
+                Thread thread = new Thread(r, "disposal-sms");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private volatile RunStats currentRun;
+    private volatile RunStats lastRun;
+
+    public DisposalWarningService(MongoTemplate mongoTemplate, SmsService smsService) {
+        this.mongoTemplate = mongoTemplate;
+        this.smsService = smsService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        smsPool.shutdown();
+    }
+
+    @Scheduled(cron = "0 0 7 * * ?", zone = "Asia/Manila")
+    public void scheduledRun() {
+        try {
+            run("scheduled");
+        } catch (Exception e) {
+            System.err.println("❌ Disposal warning run failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends every warning that is due now and not sent yet, waiting for the pool to finish.
+     * Runs never overlap.
+     */
+    public synchronized Map<String, Object> run(String trigger) {
+        LocalDateTime now = ManilaTimeUtil.now();
+        List<LaundryJob> jobs = findJobsInWarningWindows(now);
+
+        RunStats stats = new RunStats(trigger, now, jobs.size());
+        currentRun = stats;
+        System.out.println("⏰ Disposal warnings (" + trigger + "): " + jobs.size()
+                + " jobs in the 3/1/0-day windows | Manila time: " + now);
+
+        List<Future<?>> sends = new ArrayList<>(jobs.size());
+        for (LaundryJob job : jobs) {
+            int daysLeft = daysLeft(now, job.getDueDate());
+            sends.add(smsPool.submit(() -> send(job, daysLeft, stats)));
+        }
+        for (Future<?> send : sends) {
+            try {
+                send.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                stats.failed.incrementAndGet();
+            }
+        }
+
+        stats.finishedAt = ManilaTimeUtil.now();
+        lastRun = stats;
+        currentRun = null;
+        System.out.println("📊 Disposal Warning Summary: " + stats.sent.get() + " sent, "
+                + stats.alreadySent.get() + " already sent, " + stats.failed.get() + " failed out of "
+                + jobs.size() + " jobs (" + Duration.between(stats.startedAt, stats.finishedAt).toMillis() + "ms)");
+        return stats.toMap();
+    }
+
+    /**
+     * Sends the warning for one job if it is inside a window today and hasn't had it yet.
+     *
+     * @return true if an SMS was sent
+     */
+    public boolean sendForJob(LaundryJob job) {
+        if (job.isDisposed() || job.isExpired() || job.getDueDate() == null
+                || !"UNCLAIMED".equals(job.getPickupStatus())) {
+            return false;
+        }
+        LocalDateTime now = ManilaTimeUtil.now();
+        if (job.getDueDate().isBefore(now)) {
+            return false;
+        }
+        int daysLeft = daysLeft(now, job.getDueDate());
+        if (Arrays.stream(WINDOWS_DAYS).noneMatch(d -> d == daysLeft)) {
+            return false;
+        }
+        RunStats stats = new RunStats("single", now, 1);
+        send(job, daysLeft, stats);
+        return stats.sent.get() > 0;
+    }
+
+    /** Unclaimed jobs due within the next 0-3 days (not yet expired or disposed). */
+    public List<LaundryJob> findJobsDueWithinDays(int days) {
+        LocalDateTime now = ManilaTimeUtil.now();
+        return mongoTemplate.find(pending(Criteria.where("dueDate").gte(now).lt(now.plusDays(days + 1)))
+                .with(Sort.by("dueDate")), LaundryJob.class);
+    }
+
+    // Days left truncates like Duration.toDays(), so window d is dueDate in [now + d, now + d + 1)
+    private List<LaundryJob> findJobsInWarningWindows(LocalDateTime now) {
+        Criteria[] windows = Arrays.stream(WINDOWS_DAYS)
+                .mapToObj(d -> Criteria.where("dueDate").gte(now.plusDays(d)).lt(now.plusDays(d + 1)))
+                .toArray(Criteria[]::new);
+        Query query = pending(new Criteria().orOperator(windows));
+        query.fields().include("_id", "transactionId", "customerName", "contact", "dueDate");
+        return mongoTemplate.find(query, LaundryJob.class);
+    }
+
+    private static Query pending(Criteria dueDateCriteria) {
+        return new Query(new Criteria().andOperator(dueDateCriteria,
+                Criteria.where("pickupStatus").is("UNCLAIMED")
+                        .and("expired").ne(true)
+                        .and("disposed").ne(true)));
+    }
+
+    private void send(LaundryJob job, int daysLeft, RunStats stats) {
+        DisposalWarning record = new DisposalWarning(job.getId(), job.getTransactionId(), daysLeft,
+                ManilaTimeUtil.now());
+        try {
+            mongoTemplate.insert(record);
+        } catch (DuplicateKeyException e) {
+            stats.alreadySent.incrementAndGet();
+            return;
+        }
+
+        boolean delivered = smsService.sendDisposalWarningNotification(
+                job.getContact(),
+                job.getCustomerName(),
+                job.getTransactionId(),
+                daysLeft);
+        if (!delivered) {
+            // SmsService already logged why; drop the record so the next run tries again
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(record.getId())), DisposalWarning.class);
+            stats.failed.incrementAndGet();
+            System.err.println("❌ Failed to send disposal warning for " + job.getTransactionId());
+            return;
+        }
+        stats.sent.incrementAndGet();
+        System.out.println("✅ Sent disposal warning for: " + job.getTransactionId() + " | Days left: " + daysLeft);
+    }
+
+    private static int daysLeft(LocalDateTime now, LocalDateTime dueDate) {
+        return (int) Duration.between(now, dueDate).toDays();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        RunStats running = currentRun;
+        RunStats last = lastRun;
+        metrics.put("running", running != null ? running.toMap() : null);
+        metrics.put("lastRun", last != null ? last.toMap() : null);
+        metrics.put("activeWorkers", smsPool.getActiveCount());
+        metrics.put("queued", smsPool.getQueue().size());
+        return metrics;
+    }
+
+    private static final class RunStats {
+        final String trigger;
+        final LocalDateTime startedAt;
+        final int candidates;
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger alreadySent = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile LocalDateTime finishedAt;
+
+        RunStats(String trigger, LocalDateTime startedAt, int candidates) {
+            this.trigger = trigger;
+            this.startedAt = startedAt;
+            this.candidates = candidates;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("trigger", trigger);
+            map.put("startedAt", startedAt.toString());
+            map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            map.put("totalJobsChecked", candidates);
+            map.put("processed", sent.get() + alreadySent.get() + failed.get());
+            map.put("warningsSent", sent.get());
+            map.put("alreadySent", alreadySent.get());
+            map.put("errors", failed.get());
+            return map;
+        }
+    }
+}
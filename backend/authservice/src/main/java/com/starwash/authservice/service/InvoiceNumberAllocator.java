@@ -0,0 +1,136 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.SequenceCounter;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out INV- / CLM- numbers that never collide: blocks of sequence numbers are reserved from a
+ * sequence_counters document with one findAndModify ($inc by blockSize), then served from an
+ * AtomicLong without touching the database. Numbers are monotonic per branch and Manila day; a
+ * restart wastes at most the unused part of one block.
+ *
+ * Format: PREFIX-[BRANCH-]yyMMdd-NNNN, e.g. INV-251016-0042.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+    public static final String INVOICE_PREFIX = "INV";
+    public static final String CLAIM_PREFIX = "CLM";
+
+    private static final DateTimeFormatter DAY_CODE = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final MongoTemplate mongoTemplate;
+    private final String branchCode;
+    private final int blockSize;
+
+    // Current block per counter id; replaced (never mutated back) when exhausted
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public InvoiceNumberAllocator(MongoTemplate mongoTemplate,
+            @Value("${app.branch.code:}") String branchCode,
+            @Value("${app.sequence.block-size:50}") int blockSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.branchCode = branchCode != null ? branchCode.trim().toUpperCase() : "";
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public String nextInvoiceNumber() {
+        return next(INVOICE_PREFIX);
+    }
+
+    public String nextClaimReceiptNumber() {
+        return next(CLAIM_PREFIX);
+    }
+
+    public String next(String prefix) {
+        LocalDate day = ManilaTimeUtil.now().toLocalDate();
+        String counterId = SequenceCounter.buildId(prefix, branchCode, day.toString());
+
+        long sequence = nextSequence(counterId, prefix, day);
+
+        StringBuilder number = new StringBuilder(prefix).append('-');
+        if (!branchCode.isEmpty()) {
+            number.append(branchCode).append('-');
+        }
+        return number.append(day.format(DAY_CODE)).append('-')
+                .append(String.format("%04d", sequence))
+                .toString();
+    }
+
+    private long nextSequence(String counterId, String prefix, LocalDate day) {
+        while (true) {
+            Block block = blocks.get(counterId);
+            if (block != null) {
+                long n = block.next.getAndIncrement();
+                if (n <= block.last) {
+                    return n; // fast path: no lock, no round-trip
+                }
+            }
+            synchronized (this) {
+                // Another thread may have refilled while we waited
+                Block current = blocks.get(counterId);
+                if (current == block || current == null) {
+                    blocks.put(counterId, reserveBlock(counterId, prefix, day));
+                    dropOtherDays(day);
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock(String counterId, String prefix, LocalDate day) {
+        Query query = new Query(Criteria.where("_id").is(counterId));
+        Update update = new Update()
+                .setOnInsert("prefix", prefix)
+                .setOnInsert("branch", branchCode)
+                .setOnInsert("day", day.toString())
+                .inc("value", blockSize)
+                .set("lastUpdated", ManilaTimeUtil.now());
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        SequenceCounter counter;
+        try {
+            counter = mongoTemplate.findAndModify(query, update, options, SequenceCounter.class);
+        } catch (DuplicateKeyException e) {
+            // Two instances opened the same day's counter at once; it exists now, so just increment it
+            counter = mongoTemplate.findAndModify(query, update, options, SequenceCounter.class);
+        }
+        if (counter == null) {
+            throw new RuntimeException("Could not reserve sequence block for " + counterId);
+        }
+
+        long last = counter.getValue();
+        System.out.println("🔢 Reserved " + prefix + " numbers " + (last - blockSize + 1) + "-" + last
+                + " for " + day + (branchCode.isEmpty() ? "" : " (branch " + branchCode + ")"));
+        return new Block(last - blockSize + 1, last);
+    }
+
+    // Blocks for past days can never be used again
+    private void dropOtherDays(LocalDate today) {
+        String suffix = "|" + today;
+        blocks.keySet().removeIf(id -> !id.endsWith(suffix));
+    }
+
+    private static class Block {
+        final AtomicLong next;
+        final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flips laundry jobs to expired at their due time instead of on an hourly full scan.
+ *
+ * Only unclaimed jobs due before the current horizon (now + {@link #WINDOW}) are loaded, with a
+ * dueDate range query on due_date_idx, and armed on a hashed timing wheel with one-second ticks.
+ * The window is refilled every half window, so every job is armed well before it is due. Expiry
+ * is a conditional update (still unclaimed, not expired, not disposed, due date passed), so a job
+ * claimed or re-dated in the meantime is never expired by a stale timer.
+ */
+@Service
+public class JobExpiryScheduler {
+
+    private static final Duration WINDOW = Duration.ofHours(1);
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 512; // power of two
+
+    private final MongoTemplate mongoTemplate;
+    private final SmsService smsService;
+    private final NotificationService notificationService;
+
+    private final List<Deque<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    // job id -> its live timeout; re-arming replaces it and cancels the old one
+    private final Map<String, Timeout> armed = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime horizon = LocalDateTime.MIN;
+    private volatile long startNanos;
+    private long tick;
+
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong staleTimers = new AtomicLong();
+
+    private final Thread worker;
+    private final ExecutorService expirer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "job-expirer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JobExpiryScheduler(MongoTemplate mongoTemplate, SmsService smsService,
+            NotificationService notificationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.smsService = smsService;
+        this.notificationService = notificationService;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+        this.worker = new Thread(this::run, "job-expiry-wheel");
+        this.worker.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        startNanos = System.nanoTime();
+        worker.start();
+        try {
+            refill();
+        } catch (Exception e) {
+            System.err.println("❌ Expiry scheduler initial load failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+        expirer.shutdownNow();
+    }
+
+    // Half the window, so the next window is always loaded before the current one runs out
+    @Scheduled(fixedDelay = 1800000, initialDelay = 1800000)
+    public void periodicRefill() {
+        try {
+            refill();
+        } catch (Exception e) {
+            System.err.println("❌ Expiry scheduler refill failed: " + e.getMessage());
+        }
+    }
+
+    /** Arms every unclaimed, unexpired job due before now + window (overdue ones fire at once). */
+    public synchronized void refill() {
+        LocalDateTime newHorizon = now().plus(WINDOW);
+        Query query = new Query(Criteria.where("dueDate").lt(newHorizon)
+                .and("pickupStatus").is("UNCLAIMED")
+                .and("expired").ne(true)
+                .and("disposed").ne(true));
+        query.fields().include("_id", "dueDate");
+
+        int count = 0;
+        for (LaundryJob job : mongoTemplate.find(query, LaundryJob.class)) {
+            schedule(job.getId(), job.getDueDate());
+            count++;
+        }
+        horizon = newHorizon;
+        System.out.println("⏰ Expiry scheduler armed " + count + " jobs due before " + newHorizon);
+    }
+
+    /**
+     * (Re-)arms a job after it is created or its due date changes. Jobs due past the horizon are
+     * left to the next refill; claimed, expired or disposed jobs are disarmed.
+     */
+    public void arm(LaundryJob job) {
+        if (job == null || job.getId() == null) {
+            return;
+        }
+        if (!"UNCLAIMED".equals(job.getPickupStatus()) || job.isExpired() || job.isDisposed()
+                || job.getDueDate() == null) {
+            disarm(job.getId());
+            return;
+        }
+        if (job.getDueDate().isBefore(horizon)) {
+            schedule(job.getId(), job.getDueDate());
+        } else {
+            disarm(job.getId()); // moved out of the window; the refill brings it back in time
+        }
+    }
+
+    /** Drops a job's timer, e.g. once it is claimed. */
+    public void disarm(String jobId) {
+        Timeout previous = armed.remove(jobId);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    private void schedule(String jobId, LocalDateTime dueDate) {
+        Timeout current = armed.get(jobId);
+        if (current != null && !current.cancelled && current.dueDate.equals(dueDate)) {
+            return; // already armed for this due date
+        }
+        long delayMs = Math.max(0, Duration.between(now(), dueDate).toMillis());
+        Timeout timeout = new Timeout(jobId, dueDate, elapsedMs() + delayMs);
+        Timeout previous = armed.put(jobId, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleepMs = (tick + 1) * TICK_MS - elapsedMs();
+            if (sleepMs > 0) {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            try {
+                transferPending();
+                expireBucket(wheel.get((int) (tick & (WHEEL_SIZE - 1))));
+            } catch (Exception e) {
+                System.err.println("❌ Expiry wheel tick failed: " + e.getMessage());
+            }
+            tick++;
+        }
+    }
+
+    // Only the wheel thread touches the buckets; other threads hand timeouts over via pending
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = Math.max(tick, timeout.deadlineMs / TICK_MS);
+            timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+            wheel.get((int) (ticks & (WHEEL_SIZE - 1))).add(timeout);
+        }
+    }
+
+    private void expireBucket(Deque<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.rounds <= 0) {
+                it.remove();
+                armed.remove(timeout.jobId, timeout);
+                expirer.execute(() -> expire(timeout));
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        try {
+            LocalDateTime now = now();
+            Query query = new Query(Criteria.where("_id").is(timeout.jobId)
+                    .and("pickupStatus").is("UNCLAIMED")
+                    .and("expired").ne(true)
+                    .and("disposed").ne(true)
+                    .and("dueDate").lte(now));
+            query.fields().include("transactionId", "customerName", "contact", "dueDate");
+            LaundryJob job = mongoTemplate.findAndModify(query,
+                    new Update().set("expired", true).inc("version", 1), LaundryJob.class);
+            if (job == null) {
+                staleTimers.incrementAndGet(); // claimed, re-dated or expired elsewhere
+                rearmIfStillPending(timeout.jobId);
+                return;
+            }
+            expiredCount.incrementAndGet();
+            System.out.println("⏰ Job expired: " + job.getTransactionId() + " - " + job.getCustomerName()
+                    + " (due " + job.getDueDate() + ")");
+            notificationService.broadcast(NotificationService.EVENT_LAUNDRY, job.getTransactionId(), "Job expired: " + job.getTransactionId());
+
+            boolean delivered = smsService.sendDisposalWarningNotification(
+                    job.getContact(),
+                    job.getCustomerName(),
+                    job.getTransactionId(),
+                    0);
+            if (delivered) {
+                System.out.println("✅ Sent final expiration notice for: " + job.getTransactionId());
+            } else {
+                System.err.println("❌ Failed to send final expiration notice for " + job.getTransactionId());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to expire job " + timeout.jobId + ": " + e.getMessage());
+        }
+    }
+
+    // A job pushed back to a later due date keeps waiting instead of dropping until the next refill
+    private void rearmIfStillPending(String jobId) {
+        Query query = new Query(Criteria.where("_id").is(jobId)
+                .and("pickupStatus").is("UNCLAIMED")
+                .and("expired").ne(true)
+                .and("disposed").ne(true));
+        query.fields().include("_id", "dueDate", "pickupStatus");
+        LaundryJob job = mongoTemplate.findOne(query, LaundryJob.class);
+        if (job != null) {
+            arm(job);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("armed", armed.size());
+        metrics.put("horizon", horizon.toString());
+        metrics.put("expired", expiredCount.get());
+        metrics.put("staleTimers", staleTimers.get());
+        return metrics;
+    }
+
+    private long elapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static LocalDateTime now() {
+        return ManilaTimeUtil.now();
+    }
+
+    private static final class Timeout {
+        final String jobId;
+        final LocalDateTime dueDate;
+        final long deadlineMs;
+        long rounds;
+        volatile boolean cancelled;
+
+        Timeout(String jobId, LocalDateTime dueDate, long deadlineMs) {
+            this.jobId = jobId;
+            this.dueDate = dueDate;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.Transaction;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * One-off backfill: copies paymentMethod and gcashVerified from each transaction onto laundry
+ * jobs saved before those fields were mirrored. Transactions are fetched with one $in query per
+ * batch of jobs. Safe to re-run - it only touches jobs that still lack paymentMethod.
+ */
+@Service
+public class JobPaymentMirrorMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public JobPaymentMirrorMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        try {
+            migrate();
+        } catch (Exception e) {
+            System.err.println("❌ Job payment mirror migration failed: " + e.getMessage());
+        }
+    }
+
+    public long migrate() {
+        long startTime = System.currentTimeMillis();
+        Query pending = new Query(Criteria.where("paymentMethod").exists(false));
+        pending.fields().include("transactionId");
+
+        String collection = mongoTemplate.getCollectionName(LaundryJob.class);
+        long migrated = 0;
+        Map<Object, String> batch = new LinkedHashMap<>();
+
+        try (Stream<Document> stream = mongoTemplate.stream(pending, Document.class, collection)) {
+            Iterator<Document> it = stream.iterator();
+            while (it.hasNext()) {
+                Document doc = it.next();
+                batch.put(doc.get("_id"), doc.getString("transactionId"));
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += flush(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += flush(batch);
+        }
+
+        if (migrated > 0) {
+            System.out.println("💳 Mirrored payment status onto " + migrated + " laundry jobs in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        return migrated;
+    }
+
+    // job _id -> transactionId (invoice number)
+    private int flush(Map<Object, String> jobs) {
+        Query txQuery = new Query(Criteria.where("invoiceNumber").in(new HashSet<>(jobs.values())));
+        txQuery.fields().include("invoiceNumber", "paymentMethod", "gcashVerified");
+        Map<String, Transaction> byInvoice = new HashMap<>();
+        mongoTemplate.find(txQuery, Transaction.class).forEach(tx -> byInvoice.putIfAbsent(tx.getInvoiceNumber(), tx));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LaundryJob.class);
+        jobs.forEach((id, transactionId) -> {
+            Transaction tx = byInvoice.get(transactionId);
+            // Jobs without a transaction get an explicit null so they aren't picked up again
+            bulk.updateOne(new Query(Criteria.where("_id").is(id)), new Update()
+                    .set("paymentMethod", tx != null ? tx.getPaymentMethod() : null)
+                    .set("gcashVerified", tx != null ? tx.getGcashVerified() : null));
+        });
+        bulk.execute();
+        return jobs.size();
+    }
+}
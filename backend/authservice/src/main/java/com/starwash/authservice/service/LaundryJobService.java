@@ -1,6 +1,9 @@
 package com.starwash.authservice.service;
 
 import com.starwash.authservice.dto.LaundryJobDto;
+import com.starwash.authservice.dto.LoadOperationDto;
+import com.starwash.authservice.dto.LoadOperationResultDto;
+import com.starwash.authservice.model.CustomerNameKey;
 import com.starwash.authservice.model.LaundryJob;
 import com.starwash.authservice.model.LaundryJob.LoadAssignment;
 import com.starwash.authservice.model.MachineItem;
@@ -8,14 +11,26 @@ import com.starwash.authservice.model.Transaction;
 import com.starwash.authservice.repository.LaundryJobRepository;
 import com.starwash.authservice.repository.MachineRepository;
 import com.starwash.authservice.repository.TransactionRepository;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -42,8 +57,26 @@ public class LaundryJobService {
     @Autowired
     private NotificationService notificationService;
 
-    private static final String STATUS_AVAILABLE = "Available";
-    private static final String STATUS_IN_USE = "In Use";
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CompletedLoadCounterService completedLoadCounterService;
+
+    @Autowired
+    private MachineAvailabilityRegistry machineAvailabilityRegistry;
+
+    @Autowired
+    private LoadDispatcher loadDispatcher;
+
+    @Autowired
+    private JobExpiryScheduler jobExpiryScheduler;
+
+    @Autowired
+    private DisposalWarningService disposalWarningService;
+
+    @Autowired
+    private CycleTimerService cycleTimerService;
 
     private static final String STATUS_NOT_STARTED = "NOT_STARTED";
     private static final String STATUS_WASHING = "WASHING";
@@ -67,7 +100,132 @@ public class LaundryJobService {
         return LocalDateTime.now(getManilaTimeZone());
     }
 
-    private List<String> getFlowByServiceType(String serviceType) {
+    // Jobs saved before @Version existed would otherwise look "new" and fail to save
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeVersions() {
+        try {
+            long updated = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L), LaundryJob.class).getModifiedCount();
+            if (updated > 0) {
+                System.out.println("🔢 Initialized version on " + updated + " laundry jobs");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Laundry job version backfill failed: " + e.getMessage());
+        }
+    }
+
+    // Loads written before the summary fields existed
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeLoadSummaries() {
+        try {
+            long updated = refreshLoadSummaries(Criteria.where("allLoadsCompleted").exists(false));
+            if (updated > 0) {
+                System.out.println("📋 Initialized load summary on " + updated + " laundry jobs");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Laundry job load summary backfill failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes allLoadsCompleted/completedLoads/pendingLoads/completedAt in the database from
+     * each matching job's current loads (same rules as LaundryJob.refreshLoadSummary). Run after
+     * positional load updates; being computed server-side, concurrent updates can't leave it stale.
+     */
+    private long refreshLoadSummaries(Criteria criteria) {
+        return mongoTemplate.updateMulti(new Query(criteria), LOAD_SUMMARY, LaundryJob.class).getModifiedCount();
+    }
+
+    private static final AggregationUpdate LOAD_SUMMARY = AggregationUpdate.from(List.of(
+            stage(new Document("completedLoads", countLoads("$eq"))
+                    .append("pendingLoads", countLoads("$ne"))),
+            stage(new Document("allLoadsCompleted", new Document("$and", List.of(
+                    new Document("$gt", List.of("$completedLoads", 0)),
+                    new Document("$eq", List.of("$pendingLoads", 0)))))),
+            stage(new Document("completedAt", new Document("$cond", Arrays.asList("$allLoadsCompleted",
+                    new Document("$ifNull", List.of(
+                            new Document("$max", "$loadAssignments.completedAt"),
+                            new Document("$max", "$loadAssignments.endTime"))),
+                    null))))));
+
+    private static AggregationOperation stage(Document set) {
+        return context -> new Document("$set", set);
+    }
+
+    private static Document countLoads(String comparison) {
+        return new Document("$size", new Document("$filter", new Document("input",
+                new Document("$ifNull", List.of("$loadAssignments", List.of())))
+                .append("as", "l")
+                .append("cond", new Document(comparison, List.of("$$l.status", STATUS_COMPLETED)))));
+    }
+
+    /**
+     * Applies {@code update} to one load in place via loadAssignments.$[l], only if that load is
+     * still in {@code expectedStatus} (null = any status). Other loads of the job are untouched,
+     * so staff working different loads of the same job no longer overwrite each other.
+     *
+     * @return the job after the update
+     * @throws OptimisticLockingFailureException if the load moved on since it was read
+     */
+    private LaundryJob updateLoad(String transactionId, int loadNumber, String expectedStatus, Update update) {
+        Criteria element = Criteria.where("loadNumber").is(loadNumber);
+        Criteria arrayFilter = Criteria.where("l.loadNumber").is(loadNumber);
+        if (expectedStatus != null) {
+            element = element.and("status").is(expectedStatus);
+            arrayFilter = arrayFilter.and("l.status").is(expectedStatus);
+        }
+
+        Query query = new Query(Criteria.where("transactionId").is(transactionId)
+                .and("loadAssignments").elemMatch(element));
+        update.filterArray(arrayFilter).inc("version", 1);
+
+        LaundryJob updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), LaundryJob.class);
+        if (updated == null) {
+            throw new OptimisticLockingFailureException("Load " + loadNumber + " of " + transactionId
+                    + " was changed by someone else" + (expectedStatus != null ? " (expected " + expectedStatus + ")" : ""));
+        }
+        refreshLoadSummaries(Criteria.where("_id").is(updated.getId()));
+        updated.refreshLoadSummary();
+        return updated;
+    }
+
+    private static String loadField(String field) {
+        return "loadAssignments.$[l]." + field;
+    }
+
+    // Stamps completedAt when a load enters COMPLETED (clears it when it leaves); returns the stamp
+    private LocalDateTime applyCompletion(Update update, LoadAssignment load, String newStatus) {
+        boolean wasCompleted = STATUS_COMPLETED.equalsIgnoreCase(load.getStatus());
+        boolean isCompleted = STATUS_COMPLETED.equalsIgnoreCase(newStatus);
+        if (isCompleted && !wasCompleted) {
+            LocalDateTime now = getCurrentManilaTime();
+            update.set(loadField("completedAt"), now);
+            return now;
+        }
+        if (wasCompleted && !isCompleted) {
+            update.set(loadField("completedAt"), null);
+        }
+        return null;
+    }
+
+    // Called after the load update succeeded; the nightly reconcile repairs any missed count
+    private void countCompletion(LoadAssignment load, String newStatus, LocalDateTime completedAt) {
+        try {
+            if (completedAt != null) {
+                completedLoadCounterService.loadCompleted(completedAt);
+            } else if (STATUS_COMPLETED.equalsIgnoreCase(load.getStatus())
+                    && !STATUS_COMPLETED.equalsIgnoreCase(newStatus)) {
+                completedLoadCounterService.loadReopened(load.getCompletedAt());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to update completed-load counter: " + e.getMessage());
+        }
+    }
+
+    public List<String> getFlowByServiceType(String serviceType) {
         if (serviceType == null) {
             return List.of(STATUS_NOT_STARTED, "IN_PROGRESS", STATUS_COMPLETED);
         }
@@ -99,6 +257,8 @@ public class LaundryJobService {
         job.setStatusFlow(getFlowByServiceType(txn.getServiceName()));
         job.setCurrentStep(0);
         job.setPickupStatus("UNCLAIMED");
+        job.setPaymentMethod(txn.getPaymentMethod());
+        job.setGcashVerified(txn.getGcashVerified());
 
         if (txn.getDueDate() != null) {
             job.setDueDate(txn.getDueDate());
@@ -111,7 +271,9 @@ public class LaundryJobService {
                 " for transaction: " + dto.getTransactionId());
 
         LaundryJob savedJob = laundryJobRepository.save(job);
-        notificationService.broadcast(NotificationService.EVENT_LAUNDRY, "New job created: " + dto.getTransactionId());
+        loadDispatcher.enqueueJob(savedJob);
+        jobExpiryScheduler.arm(savedJob);
+        notificationService.broadcast(NotificationService.EVENT_LAUNDRY, dto.getTransactionId(), "New job created: " + dto.getTransactionId());
         return savedJob;
     }
 
@@ -125,23 +287,37 @@ public class LaundryJobService {
         MachineItem machine = machineRepository.findById(machineId)
                 .orElseThrow(() -> new RuntimeException("Machine not found"));
 
-        if (!STATUS_AVAILABLE.equalsIgnoreCase(machine.getStatus())) {
-            throw new RuntimeException("Machine is not available");
-        }
-
         // Validate machine type for current load status
         if (!isCorrectMachineTypeForLoad(job, loadNumber, machine)) {
             throw new RuntimeException("Invalid machine type for current load status");
         }
 
-        job.getLoadAssignments().stream()
-                .filter(load -> load.getLoadNumber() == loadNumber)
+        LoadAssignment load = job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == loadNumber)
                 .findFirst()
-                .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber))
-                .setMachineId(machineId);
+                .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber));
 
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        if (machineId.equals(load.getMachineId())) {
+            return job; // already booked for this load
+        }
+
+        // Book the machine first (guarded on Available), so two staff can't both get it
+        machineAvailabilityRegistry.claim(machineId);
+
+        LaundryJob updated;
+        try {
+            // The machine type was checked against this status, so only assign if it still holds
+            updated = updateLoad(transactionId, loadNumber, load.getStatus(), new Update()
+                    .set(loadField("machineId"), machineId)
+                    .set("laundryProcessedBy", processedBy));
+        } catch (RuntimeException e) {
+            machineAvailabilityRegistry.release(machineId);
+            throw e;
+        }
+
+        // e.g. the washer a WASHED load kept, now that it moves to a dryer
+        releaseMachineById(load.getMachineId());
+        return updated;
     }
 
     private boolean isCorrectMachineTypeForLoad(LaundryJob job, int loadNumber, MachineItem machine) {
@@ -157,7 +333,18 @@ public class LaundryJobService {
         return requiredType == null || requiredType.equalsIgnoreCase(machine.getType());
     }
 
-    private String getRequiredMachineType(String status, String serviceType) {
+    /**
+     * Machine type ("WASHER"/"DRYER") the load's next step runs on, or null if that step needs
+     * no machine. Shared with LoadDispatcher so manual and automatic assignment follow one rule.
+     */
+    public static String requiredMachineTypeForNextStep(String serviceType, LoadAssignment load) {
+        if (serviceType == null) {
+            return null;
+        }
+        return getRequiredMachineType(determineNextStatus(serviceType, load), serviceType);
+    }
+
+    private static String getRequiredMachineType(String status, String serviceType) {
         if (status == null)
             return null;
 
@@ -216,15 +403,15 @@ public class LaundryJobService {
                     requiredMachineType + " but got " + machine.getType());
         }
 
-        load.setStatus(nextStatus);
-        load.setStartTime(getCurrentManilaTime());
+        LaundryJob updated = updateLoad(transactionId, loadNumber, load.getStatus(), new Update()
+                .set(loadField("status"), nextStatus)
+                .set(loadField("startTime"), getCurrentManilaTime())
+                .set("laundryProcessedBy", processedBy));
 
-        machine.setStatus(STATUS_IN_USE);
-        machine.setTotalLoadsProcessed(machine.getTotalLoadsProcessed() + 1);
-        machineRepository.save(machine);
+        machineAvailabilityRegistry.markStarted(mid);
+        syncCycleTimer(updated, loadNumber);
 
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        return updated;
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -243,65 +430,64 @@ public class LaundryJobService {
             throw new RuntimeException("Can only dry again from DRIED status");
         }
 
-        load.setStatus(STATUS_DRYING);
-        load.setStartTime(getCurrentManilaTime());
-
-        if (load.getMachineId() == null) {
-            Optional<MachineItem> availableDryer = machineRepository.findAll().stream()
-                    .filter(m -> "DRYER".equalsIgnoreCase(m.getType()))
-                    .filter(m -> STATUS_AVAILABLE.equalsIgnoreCase(m.getStatus()))
-                    .findFirst();
-
-            if (availableDryer.isPresent()) {
-                MachineItem dryer = availableDryer.get();
-                load.setMachineId(dryer.getId());
-                dryer.setStatus(STATUS_IN_USE);
-                dryer.setTotalLoadsProcessed(dryer.getTotalLoadsProcessed() + 1);
-                machineRepository.save(dryer);
-            } else {
-                throw new RuntimeException("No available dryers found");
-            }
+        MachineItem dryer;
+        boolean claimedHere = load.getMachineId() == null;
+        if (claimedHere) {
+            dryer = machineAvailabilityRegistry.claimAny("DRYER")
+                    .orElseThrow(() -> new RuntimeException("No available dryers found"));
         } else {
-            String mid = load.getMachineId();
-            if (mid == null) {
-                throw new RuntimeException("No machine assigned");
-            }
-            MachineItem machine = machineRepository.findById(mid)
+            dryer = machineRepository.findById(load.getMachineId())
                     .orElseThrow(() -> new RuntimeException("Machine not found"));
 
-            if (!"DRYER".equalsIgnoreCase(machine.getType())) {
+            if (!"DRYER".equalsIgnoreCase(dryer.getType())) {
                 throw new RuntimeException("Assigned machine is not a dryer");
             }
+        }
 
-            machine.setStatus(STATUS_IN_USE);
-            machine.setTotalLoadsProcessed(machine.getTotalLoadsProcessed() + 1);
-            machineRepository.save(machine);
+        LaundryJob updated;
+        try {
+            updated = updateLoad(transactionId, loadNumber, load.getStatus(), new Update()
+                    .set(loadField("status"), STATUS_DRYING)
+                    .set(loadField("startTime"), getCurrentManilaTime())
+                    .set(loadField("machineId"), dryer.getId())
+                    .set("laundryProcessedBy", processedBy));
+        } catch (RuntimeException e) {
+            if (claimedHere) {
+                machineAvailabilityRegistry.release(dryer.getId());
+            }
+            throw e;
         }
 
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        machineAvailabilityRegistry.markStarted(dryer.getId());
+        syncCycleTimer(updated, loadNumber);
+
+        return updated;
+    }
+
+    private static String determineNextStatus(String serviceType, LoadAssignment load) {
+        return determineNextStatus(serviceType, load.getStatus());
     }
 
-    private String determineNextStatus(String serviceType, LoadAssignment load) {
+    private static String determineNextStatus(String serviceType, String status) {
         serviceType = serviceType.toLowerCase();
 
         switch (serviceType) {
             case "wash":
-                if (STATUS_NOT_STARTED.equals(load.getStatus()))
+                if (STATUS_NOT_STARTED.equals(status))
                     return STATUS_WASHING;
                 break;
             case "dry":
-                if (STATUS_NOT_STARTED.equals(load.getStatus()))
+                if (STATUS_NOT_STARTED.equals(status))
                     return STATUS_DRYING;
                 break;
             case "wash & dry":
-                if (STATUS_NOT_STARTED.equals(load.getStatus()))
+                if (STATUS_NOT_STARTED.equals(status))
                     return STATUS_WASHING;
-                if (STATUS_WASHED.equals(load.getStatus()))
+                if (STATUS_WASHED.equals(status))
                     return STATUS_DRYING;
                 break;
         }
-        return load.getStatus();
+        return status;
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -317,23 +503,70 @@ public class LaundryJobService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber));
 
+        return advanceLoad(transactionId, load, newStatus, processedBy, false);
+    }
+
+    /**
+     * Ends a running cycle when its timer is up: WASHING -> WASHED or DRYING -> DRIED through the
+     * usual advance path, freeing the machine in the same write. laundryProcessedBy is left as is.
+     *
+     * @throws OptimisticLockingFailureException if the load is no longer in {@code runningStatus}
+     */
+    @CacheEvict(value = "laundryJobs", allEntries = true)
+    public LaundryJob finishCycle(String transactionId, int loadNumber, String runningStatus) {
+        String newStatus;
+        if (STATUS_WASHING.equals(runningStatus)) {
+            newStatus = STATUS_WASHED;
+        } else if (STATUS_DRYING.equals(runningStatus)) {
+            newStatus = STATUS_DRIED;
+        } else {
+            throw new IllegalArgumentException("Not a running status: " + runningStatus);
+        }
+
+        LaundryJob job = findSingleJobByTransaction(transactionId);
+        LoadAssignment load = job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == loadNumber)
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber));
+        if (!runningStatus.equals(load.getStatus())) {
+            throw new OptimisticLockingFailureException("Load " + loadNumber + " of " + transactionId
+                    + " is no longer " + runningStatus);
+        }
+        return advanceLoad(transactionId, load, newStatus, null, true);
+    }
+
+    private LaundryJob advanceLoad(String transactionId, LoadAssignment load, String newStatus, String processedBy,
+            boolean freeMachine) {
+        int loadNumber = load.getLoadNumber();
         String previousStatus = load.getStatus();
-        load.setStatus(newStatus);
+        Update update = new Update().set(loadField("status"), newStatus);
 
         // FIXED: Only release machine when moving to FOLDING or COMPLETED
         // We keep the machine for WASHED and DRIED statuses so the staff can see 
         // which machine was used or restart the process if needed.
-        if (STATUS_FOLDING.equals(newStatus) || STATUS_COMPLETED.equals(newStatus)) {
-            releaseMachine(load);
+        // A finished timed cycle frees it too, since nobody is standing at the machine.
+        boolean release = freeMachine || STATUS_FOLDING.equals(newStatus) || STATUS_COMPLETED.equals(newStatus);
+        if (release && load.getMachineId() != null) {
+            update.set(loadField("machineId"), null);
+        }
+        if (processedBy != null) {
+            update.set("laundryProcessedBy", processedBy);
         }
+        LocalDateTime completedAt = applyCompletion(update, load, newStatus);
+        LaundryJob savedJob = updateLoad(transactionId, loadNumber, previousStatus, update);
+        countCompletion(load, newStatus, completedAt);
 
-        sendStatusChangeNotifications(job, load, previousStatus, newStatus);
+        syncCycleTimer(savedJob, loadNumber);
 
-        if (processedBy != null) {
-            job.setLaundryProcessedBy(processedBy);
+        if (release) {
+            releaseMachineById(load.getMachineId());
+        }
+        if (STATUS_WASHED.equals(newStatus)) {
+            loadDispatcher.enqueueLoad(savedJob, loadNumber); // waits for a dryer now
         }
-        LaundryJob savedJob = laundryJobRepository.save(job);
-        notificationService.broadcast(NotificationService.EVENT_LAUNDRY, "Load advanced: " + transactionId);
+
+        sendStatusChangeNotifications(savedJob, load, previousStatus, newStatus);
+        notificationService.broadcast(NotificationService.EVENT_LAUNDRY, transactionId, "Load advanced: " + transactionId);
 
         // ✅ ADDED: Check if all loads are completed and send SMS
         if (STATUS_COMPLETED.equals(newStatus)) {
@@ -429,6 +662,362 @@ public class LaundryJobService {
         return job;
     }
 
+    private static final int MAX_BATCH_OPERATIONS = 200;
+
+    /**
+     * Applies a batch of load operations (ASSIGN, START, ADVANCE, COMPLETE, RELEASE) across jobs.
+     * Operations are validated in order against each load's state as left by the earlier ones,
+     * then written as one unordered bulk update on laundry_jobs (one guarded update per load) and
+     * one on machines. Bookings still go through the registry one at a time since each must be
+     * atomic, so a machine freed by this batch can't be booked by the same batch. A load changed
+     * by someone else meanwhile fails all of its operations; the rest of the batch still applies.
+     */
+    @CacheEvict(value = "laundryJobs", allEntries = true)
+    public List<LoadOperationResultDto> applyLoadOperations(List<LoadOperationDto> operations, String processedBy) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No load operations given");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " load operations per batch");
+        }
+
+        Set<String> transactionIds = operations.stream()
+                .map(LoadOperationDto::getTransactionId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, LaundryJob> jobs = findJobsByTransactionIds(transactionIds);
+
+        Set<String> machineIds = new HashSet<>();
+        operations.stream().map(LoadOperationDto::getMachineId).filter(Objects::nonNull).forEach(machineIds::add);
+        jobs.values().forEach(job -> job.getLoadAssignments().stream()
+                .map(LoadAssignment::getMachineId)
+                .filter(Objects::nonNull)
+                .forEach(machineIds::add));
+        Map<String, MachineItem> machines = machineRepository.findAllById(machineIds).stream()
+                .collect(Collectors.toMap(MachineItem::getId, Function.identity()));
+
+        // Validate in request order against the state earlier operations left behind
+        Map<String, LoadChange> changes = new LinkedHashMap<>();
+        List<LoadOperationResultDto> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            LoadOperationDto op = operations.get(i);
+            LoadOperationResultDto result = new LoadOperationResultDto(i, op);
+            results.add(result);
+            try {
+                LaundryJob job = jobs.get(op.getTransactionId());
+                if (job == null) {
+                    throw new RuntimeException("Laundry job not found for transaction: " + op.getTransactionId());
+                }
+                LoadAssignment load = job.getLoadAssignments().stream()
+                        .filter(l -> l.getLoadNumber() == op.getLoadNumber())
+                        .findFirst()
+                        .orElseThrow(() -> new RuntimeException("Load number not found: " + op.getLoadNumber()));
+                LoadChange change = changes.computeIfAbsent(op.getTransactionId() + "#" + op.getLoadNumber(),
+                        k -> new LoadChange(job, load));
+                applyOperation(op, change, machines);
+                change.results.add(result);
+                result.setSuccess(true);
+            } catch (RuntimeException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        List<LoadChange> dirty = changes.values().stream()
+                .filter(c -> c.dirty)
+                .collect(Collectors.toList());
+        if (!dirty.isEmpty()) {
+            BulkOperations jobBulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LaundryJob.class);
+            for (LoadChange change : dirty) {
+                change.update.set("laundryProcessedBy", processedBy).inc("version", 1).filterArray(change.arrayFilter());
+                jobBulk.updateOne(change.guard(), change.update);
+            }
+            jobBulk.execute();
+            refreshLoadSummaries(Criteria.where("transactionId")
+                    .in(dirty.stream().map(c -> c.job.getTransactionId()).collect(Collectors.toSet())));
+        }
+
+        // Re-read what was written: a load whose guard missed shows its old state
+        Map<String, LaundryJob> written = dirty.isEmpty() ? jobs
+                : findJobsByTransactionIds(dirty.stream().map(c -> c.job.getTransactionId()).collect(Collectors.toSet()));
+        for (LoadChange change : dirty) {
+            LaundryJob job = written.get(change.job.getTransactionId());
+            LoadAssignment load = job == null ? null : job.getLoadAssignments().stream()
+                    .filter(l -> l.getLoadNumber() == change.loadNumber)
+                    .findFirst()
+                    .orElse(null);
+            change.failed = load == null || !Objects.equals(load.getStatus(), change.status)
+                    || !Objects.equals(load.getMachineId(), change.machineId);
+        }
+
+        applyMachineChanges(dirty);
+
+        Set<String> completedJobs = new LinkedHashSet<>();
+        for (LoadChange change : changes.values()) {
+            if (change.failed) {
+                change.results.forEach(r -> {
+                    r.setSuccess(false);
+                    r.setError("Load " + change.loadNumber + " of " + change.job.getTransactionId()
+                            + " was changed by someone else");
+                });
+                continue;
+            }
+            change.results.forEach(r -> {
+                r.setStatus(change.status);
+                r.setMachineId(change.machineId);
+            });
+            if (!change.dirty) {
+                continue;
+            }
+            LaundryJob job = written.get(change.job.getTransactionId());
+            syncCycleTimer(job, change.loadNumber);
+            if (change.completedAt != null) {
+                countCompletion(change.original, STATUS_COMPLETED, change.completedAt);
+                completedJobs.add(job.getTransactionId());
+            }
+            if (STATUS_WASHED.equals(change.status) && change.transitions.stream().anyMatch(t -> STATUS_WASHED.equals(t[1]))) {
+                loadDispatcher.enqueueLoad(job, change.loadNumber);
+            }
+            change.transitions.forEach(t -> sendStatusChangeNotifications(job, change.original, t[0], t[1]));
+            if (change.completeNotice) {
+                try {
+                    notificationService.notifyAllUsers(
+                            "load_completed",
+                            "Load Completed",
+                            String.format("Load %d for %s has been completed. Transaction: %s",
+                                    change.loadNumber, job.getCustomerName(), job.getTransactionId()),
+                            job.getTransactionId());
+                } catch (Exception e) {
+                    System.err.println("❌ Failed to send completion notification: " + e.getMessage());
+                }
+            }
+        }
+
+        // One customer SMS per job that this batch finished
+        for (String transactionId : completedJobs) {
+            LaundryJob job = written.get(transactionId);
+            boolean allLoadsCompleted = job.getLoadAssignments().stream()
+                    .allMatch(l -> STATUS_COMPLETED.equalsIgnoreCase(l.getStatus()));
+            if (allLoadsCompleted) {
+                sendCompletionSmsNotification(job, job.getLoadAssignments().size());
+            }
+        }
+
+        long applied = results.stream().filter(LoadOperationResultDto::isSuccess).count();
+        System.out.println("📦 Batch load operations by " + processedBy + ": " + applied + "/" + results.size()
+                + " applied across " + transactionIds.size() + " jobs");
+        if (applied > 0) {
+            notificationService.broadcast(NotificationService.EVENT_LAUNDRY, transactionIds,
+                    "Batch load update: " + applied + " operations across " + transactionIds.size() + " jobs");
+        }
+        return results;
+    }
+
+    private Map<String, LaundryJob> findJobsByTransactionIds(Collection<String> transactionIds) {
+        Map<String, LaundryJob> jobs = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("transactionId").in(transactionIds)), LaundryJob.class)
+                .forEach(job -> jobs.putIfAbsent(job.getTransactionId(), job));
+        return jobs;
+    }
+
+    // Validates one operation against the load's pending state and records its effect
+    private void applyOperation(LoadOperationDto op, LoadChange change, Map<String, MachineItem> machines) {
+        String type = op.getType() != null ? op.getType().trim().toUpperCase() : "";
+        String serviceType = change.job.getServiceType();
+
+        switch (type) {
+            case "ASSIGN": {
+                String machineId = op.getMachineId();
+                if (machineId == null) {
+                    throw new IllegalArgumentException("machineId is required for ASSIGN");
+                }
+                MachineItem machine = machines.get(machineId);
+                if (machine == null) {
+                    throw new RuntimeException("Machine not found");
+                }
+                String requiredType = getRequiredMachineType(change.status, serviceType);
+                if (requiredType != null && !requiredType.equalsIgnoreCase(machine.getType())) {
+                    throw new RuntimeException("Invalid machine type for current load status");
+                }
+                if (machineId.equals(change.machineId)) {
+                    return; // already booked for this load
+                }
+                machineAvailabilityRegistry.claim(machineId);
+                change.claimed.add(machineId);
+                change.setMachine(machineId);
+                return;
+            }
+            case "START": {
+                if (change.machineId == null) {
+                    throw new RuntimeException("No machine assigned");
+                }
+                MachineItem machine = machines.get(change.machineId);
+                if (machine == null) {
+                    throw new RuntimeException("Machine not found");
+                }
+                if (serviceType == null) {
+                    throw new RuntimeException("Unknown service type");
+                }
+                String nextStatus = determineNextStatus(serviceType, change.status);
+                if (nextStatus.equals(change.status)) {
+                    throw new RuntimeException("Cannot start load from status: " + change.status);
+                }
+                String requiredType = getRequiredMachineType(nextStatus, serviceType);
+                if (requiredType != null && !requiredType.equalsIgnoreCase(machine.getType())) {
+                    throw new RuntimeException("Invalid machine type for this step. Expected " +
+                            requiredType + " but got " + machine.getType());
+                }
+                change.setStatus(nextStatus);
+                change.set("startTime", getCurrentManilaTime());
+                change.started.add(change.machineId);
+                return;
+            }
+            case "COMPLETE":
+                advance(change, STATUS_COMPLETED);
+                change.completeNotice = true;
+                return;
+            case "ADVANCE": {
+                if (op.getStatus() == null) {
+                    throw new IllegalArgumentException("status is required for ADVANCE");
+                }
+                String newStatus = op.getStatus().trim().toUpperCase();
+                advance(change, "COMPLETE".equals(newStatus) ? STATUS_COMPLETED : newStatus);
+                return;
+            }
+            case "RELEASE":
+                change.setMachine(null);
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown load operation: " + op.getType());
+        }
+    }
+
+    // Forward moves along the job's flow only; frees the machine on FOLDING/COMPLETED like advanceLoad
+    private void advance(LoadChange change, String newStatus) {
+        List<String> flow = getFlowByServiceType(change.job.getServiceType());
+        int from = flow.indexOf(change.status);
+        int to = flow.indexOf(newStatus);
+        if (to < 0 || to <= from) {
+            throw new RuntimeException("Cannot move load from " + change.status + " to " + newStatus);
+        }
+        change.setStatus(newStatus);
+        if (STATUS_FOLDING.equals(newStatus) || STATUS_COMPLETED.equals(newStatus)) {
+            change.setMachine(null);
+        }
+        if (STATUS_COMPLETED.equals(newStatus)) {
+            change.completedAt = getCurrentManilaTime();
+            change.set("completedAt", change.completedAt);
+        }
+    }
+
+    // Frees/starts machines for the loads that were written and hands back bookings of those that weren't
+    private void applyMachineChanges(List<LoadChange> changes) {
+        Set<String> freed = new LinkedHashSet<>();
+        Set<String> started = new LinkedHashSet<>();
+        for (LoadChange change : changes) {
+            if (change.failed) {
+                freed.addAll(change.claimed);
+            } else {
+                freed.addAll(change.released);
+                started.addAll(change.started);
+            }
+        }
+        if (freed.isEmpty() && started.isEmpty()) {
+            return;
+        }
+
+        BulkOperations machineBulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MachineItem.class);
+        for (String id : started) {
+            Update update = new Update().inc("totalLoadsProcessed", 1);
+            if (!freed.contains(id)) {
+                update.set("status", MachineAvailabilityRegistry.STATUS_IN_USE);
+            }
+            machineBulk.updateOne(notUnderMaintenance(id), update);
+        }
+        for (String id : freed) {
+            machineBulk.updateOne(notUnderMaintenance(id),
+                    new Update().set("status", MachineAvailabilityRegistry.STATUS_AVAILABLE));
+        }
+        machineBulk.execute();
+
+        Set<String> touched = new HashSet<>(freed);
+        touched.addAll(started);
+        machineRepository.findAllById(touched).forEach(machineAvailabilityRegistry::onMachineChanged);
+        freed.stream()
+                .filter(machineAvailabilityRegistry::isFree)
+                .forEach(loadDispatcher::onMachineFreed);
+    }
+
+    private static Query notUnderMaintenance(String machineId) {
+        return new Query(Criteria.where("_id").is(machineId)
+                .and("status").ne(MachineAvailabilityRegistry.STATUS_MAINTENANCE));
+    }
+
+    // Pending state of one load within a batch, plus the guarded update that gets it there
+    private static final class LoadChange {
+        final LaundryJob job;
+        final LoadAssignment original;
+        final int loadNumber;
+        final Update update = new Update();
+        final Set<String> claimed = new LinkedHashSet<>();
+        final Set<String> released = new LinkedHashSet<>();
+        final Set<String> started = new LinkedHashSet<>();
+        final List<String[]> transitions = new ArrayList<>();
+        final List<LoadOperationResultDto> results = new ArrayList<>();
+        String status;
+        String machineId;
+        LocalDateTime completedAt;
+        boolean completeNotice;
+        boolean dirty;
+        boolean failed;
+
+        LoadChange(LaundryJob job, LoadAssignment load) {
+            this.job = job;
+            this.original = load;
+            this.loadNumber = load.getLoadNumber();
+            this.status = load.getStatus();
+            this.machineId = load.getMachineId();
+        }
+
+        void set(String field, Object value) {
+            update.set(loadField(field), value);
+            dirty = true;
+        }
+
+        void setStatus(String newStatus) {
+            transitions.add(new String[] { status, newStatus });
+            status = newStatus;
+            set("status", newStatus);
+        }
+
+        void setMachine(String newMachineId) {
+            if (Objects.equals(machineId, newMachineId)) {
+                return;
+            }
+            if (machineId != null) {
+                released.add(machineId);
+            }
+            if (newMachineId != null) {
+                released.remove(newMachineId);
+            }
+            machineId = newMachineId;
+            set("machineId", newMachineId);
+        }
+
+        // Only writes if the load is still as it was read
+        Query guard() {
+            return new Query(Criteria.where("transactionId").is(job.getTransactionId())
+                    .and("loadAssignments").elemMatch(Criteria.where("loadNumber").is(loadNumber)
+                            .and("status").is(original.getStatus())
+                            .and("machineId").is(original.getMachineId())));
+        }
+
+        Criteria arrayFilter() {
+            return Criteria.where("l.loadNumber").is(loadNumber)
+                    .and("l.status").is(original.getStatus())
+                    .and("l.machineId").is(original.getMachineId());
+        }
+    }
+
     private void sendCompletionSmsNotification(LaundryJob job, int loadNumber) {
         System.out.println("🎯 sendCompletionSmsNotification called!");
         System.out.println("🎯 Job: " + job.getTransactionId());
@@ -493,14 +1082,25 @@ public class LaundryJobService {
             String processedBy) {
         LaundryJob job = findSingleJobByTransaction(transactionId);
 
-        LoadAssignment load = job.getLoadAssignments().stream()
+        job.getLoadAssignments().stream()
                 .filter(l -> l.getLoadNumber() == loadNumber)
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber));
 
-        load.setDurationMinutes(durationMinutes);
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        // Duration doesn't depend on where the load is in its flow, so any status is fine
+        LaundryJob updated = updateLoad(transactionId, loadNumber, null, new Update()
+                .set(loadField("durationMinutes"), durationMinutes)
+                .set("laundryProcessedBy", processedBy));
+        syncCycleTimer(updated, loadNumber);
+        return updated;
+    }
+
+    // Times the load's cycle if it is running with a duration, otherwise drops its timer
+    private void syncCycleTimer(LaundryJob job, int loadNumber) {
+        job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == loadNumber)
+                .findFirst()
+                .ifPresent(load -> cycleTimerService.schedule(job.getTransactionId(), load));
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -519,7 +1119,10 @@ public class LaundryJobService {
         if (processedBy != null) {
             job.setLaundryProcessedBy(processedBy);
         }
-        return laundryJobRepository.save(job);
+        job.refreshLoadSummary(); // loads may have been edited in place
+        LaundryJob saved = laundryJobRepository.save(job);
+        jobExpiryScheduler.arm(saved); // due date or pickup status may have changed
+        return saved;
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -598,58 +1201,13 @@ public class LaundryJobService {
         return processJobsToDtos(nonCompletedJobs);
     }
 
-    @Cacheable(value = "completedCount", key = "'allCompleted'")
+    // O(1): read from the completed-load counters instead of scanning every job
     public int getAllCompletedCount() {
-        List<LaundryJob> allJobs = laundryJobRepository.findAll();
-
-        int count = 0;
-
-        for (LaundryJob job : allJobs) {
-            if (job.getLoadAssignments() != null) {
-                for (LoadAssignment load : job.getLoadAssignments()) {
-                    if (STATUS_COMPLETED.equalsIgnoreCase(load.getStatus())) {
-                        count++;
-                    }
-                }
-            }
-        }
-
-        System.out.println("📊 ALL Completed loads count: " + count + " (scanned " + allJobs.size() + " total jobs)");
-        return count;
+        return (int) completedLoadCounterService.getTotal();
     }
 
-    @Cacheable(value = "completedCount", key = "'today'")
     public int getCompletedTodayCount() {
-        List<LaundryJob> allJobs = laundryJobRepository.findAll();
-        LocalDateTime todayStart = getCurrentManilaTime().toLocalDate().atStartOfDay();
-        LocalDateTime tomorrowStart = todayStart.plusDays(1);
-
-        int count = 0;
-
-        for (LaundryJob job : allJobs) {
-            if (job.getLoadAssignments() != null) {
-                for (LoadAssignment load : job.getLoadAssignments()) {
-                    if (STATUS_COMPLETED.equalsIgnoreCase(load.getStatus())) {
-                        // Check if completed today
-                        if (load.getEndTime() != null) {
-                            if (!load.getEndTime().isBefore(todayStart) &&
-                                    load.getEndTime().isBefore(tomorrowStart)) {
-                                count++;
-                                System.out.println("✅ Counted today: " + job.getTransactionId() + " load "
-                                        + load.getLoadNumber() + " completed at " + load.getEndTime());
-                            }
-                        } else {
-                            count++;
-                            System.out.println("✅ Counted today (no endTime): " + job.getTransactionId() + " load "
-                                    + load.getLoadNumber());
-                        }
-                    }
-                }
-            }
-        }
-
-        System.out.println("📊 Completed today count: " + count + " (as of " + getCurrentManilaTime() + ")");
-        return count;
+        return (int) completedLoadCounterService.getForDay(getCurrentManilaTime().toLocalDate());
     }
 
     private List<LaundryJobDto> processJobsToDtos(List<LaundryJob> jobs) {
@@ -680,17 +1238,8 @@ public class LaundryJobService {
                 issueDate = tx.getIssueDate();
                 serviceType = tx.getServiceName();
 
-                if (tx.getConsumables() != null) {
-                    detergentQty = tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                            .mapToInt(c -> c.getQuantity())
-                            .sum();
-
-                    fabricQty = tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                            .mapToInt(c -> c.getQuantity())
-                            .sum();
-                }
+                detergentQty = tx.getDetergentQty();
+                fabricQty = tx.getFabricQty();
             }
 
             LaundryJobDto dto = new LaundryJobDto();
@@ -719,46 +1268,19 @@ public class LaundryJobService {
                 .orElseThrow(() -> new RuntimeException("Laundry job not found for transaction: " + transactionId));
     }
 
-    private void releaseMachine(LoadAssignment load) {
-        String mid = load.getMachineId();
-        if (mid != null) {
-            machineRepository.findById(mid).ifPresent(machine -> {
-                machine.setStatus(STATUS_AVAILABLE);
-                machineRepository.save(machine);
-                System.out.println("🔄 Released machine: " + load.getMachineId());
-                load.setMachineId(null); // Clear machine reference
-            });
+    private boolean releaseMachineById(String mid) {
+        if (!machineAvailabilityRegistry.release(mid)) {
+            return false;
         }
+        System.out.println("🔄 Released machine: " + mid);
+        loadDispatcher.onMachineFreed(mid);
+        return true;
     }
 
     // In LaundryJobService.java - Update getCompletedUnclaimedJobs method
     public List<LaundryJob> getCompletedUnclaimedJobs() {
-        List<LaundryJob> allJobs = laundryJobRepository.findAll();
-
-        List<LaundryJob> completedUnclaimed = allJobs.stream()
-                .filter(job -> job.getLoadAssignments() != null)
-                .filter(job -> job.getLoadAssignments().stream()
-                        .allMatch(load -> "COMPLETED".equalsIgnoreCase(load.getStatus())))
-                .filter(job -> "UNCLAIMED".equalsIgnoreCase(job.getPickupStatus()))
-                .filter(job -> !job.isExpired())
-                .filter(job -> !job.isDisposed())
-                // Add GCash verification filter
-                .filter(job -> {
-                    try {
-                        Transaction transaction = transactionRepository.findByInvoiceNumber(job.getTransactionId())
-                                .orElse(null);
-
-                        if (transaction != null && "GCash".equals(transaction.getPaymentMethod())) {
-                            return Boolean.TRUE.equals(transaction.getGcashVerified());
-                        }
-                        return true; // Keep non-GCash transactions
-                    } catch (Exception e) {
-                        System.err.println(
-                                "Error checking transaction for job " + job.getTransactionId() + ": " + e.getMessage());
-                        return true;
-                    }
-                })
-                .collect(Collectors.toList());
+        // Unverified GCash jobs are excluded in the query via the mirrored gcashVerified flag
+        List<LaundryJob> completedUnclaimed = laundryJobRepository.findClaimableCompletedUnclaimed();
 
         System.out.println(
                 "✅ Found " + completedUnclaimed.size() + " completed unclaimed jobs (excluding unverified GCash)");
@@ -770,170 +1292,22 @@ public class LaundryJobService {
         return laundryJobRepository.findByExpiredTrueAndDisposedFalse();
     }
 
-    @Scheduled(cron = "0 0 7 * * ?", zone = "Asia/Manila")
-    public void checkAndSendDisposalWarnings() {
-        LocalDateTime now = getCurrentManilaTime();
-        List<LaundryJob> unclaimedJobs = laundryJobRepository.findByPickupStatus("UNCLAIMED");
-
-        System.out.println("⏰ [7:00 AM] Checking disposal warnings for " + unclaimedJobs.size() + " unclaimed jobs");
-        System.out.println("📍 Current Manila Time: " + now);
-
-        int warningsSent = 0;
-
-        for (LaundryJob job : unclaimedJobs) {
-            if (job.isDisposed() || job.isExpired()) {
-                continue;
-            }
-
-            if (job.getDueDate() != null) {
-                long daysUntilDue = java.time.Duration.between(now, job.getDueDate()).toDays();
-
-                long hoursUntilDue = java.time.Duration.between(now, job.getDueDate()).toHours();
-
-                System.out.println("📅 Job: " + job.getTransactionId() +
-                        " | Customer: " + job.getCustomerName() +
-                        " | Due: " + job.getDueDate() +
-                        " | Days until due: " + daysUntilDue +
-                        " | Hours until due: " + hoursUntilDue);
-
-                if (daysUntilDue == 3 || daysUntilDue == 1 || daysUntilDue == 0) {
-                    try {
-                        smsService.sendDisposalWarningNotification(
-                                job.getContact(),
-                                job.getCustomerName(),
-                                job.getTransactionId(),
-                                (int) daysUntilDue);
-                        warningsSent++;
-                        System.out.println("✅ Sent disposal warning for: " + job.getTransactionId() +
-                                " | Days left: " + daysUntilDue);
-                    } catch (Exception e) {
-                        System.err.println("❌ Failed to send disposal warning for " + job.getTransactionId() +
-                                ": " + e.getMessage());
-                    }
-                }
-            }
-        }
-
-        System.out.println("📊 Disposal Warning Summary: " + warningsSent + " warnings sent out of "
-                + unclaimedJobs.size() + " unclaimed jobs");
-    }
-
-    @Scheduled(fixedRate = 3600000)
-    public void checkForExpiredJobs() {
-        LocalDateTime now = getCurrentManilaTime();
-        List<LaundryJob> unclaimedJobs = laundryJobRepository.findByPickupStatus("UNCLAIMED");
-
-        System.out.println("⏰ Hourly expiration check running at: " + now);
-        int expiredCount = 0;
-
-        for (LaundryJob job : unclaimedJobs) {
-            if (job.isDisposed()) {
-                continue;
-            }
-
-            if (job.getDueDate() != null && now.isAfter(job.getDueDate()) && !job.isExpired()) {
-                job.setExpired(true);
-                laundryJobRepository.save(job);
-                expiredCount++;
-                System.out.println("⏰ Job expired: " + job.getTransactionId() + " - " + job.getCustomerName());
-
-                try {
-                    smsService.sendDisposalWarningNotification(
-                            job.getContact(),
-                            job.getCustomerName(),
-                            job.getTransactionId(),
-                            0);
-                    System.out.println("✅ Sent final expiration notice for: " + job.getTransactionId());
-                } catch (Exception e) {
-                    System.err.println("❌ Failed to send final expiration notice for " + job.getTransactionId() +
-                            ": " + e.getMessage());
-                }
-            }
-        }
-
-        if (expiredCount > 0) {
-            System.out.println("📊 Expiration Check Summary: " + expiredCount + " jobs marked as expired");
-        }
-    }
-
     public List<LaundryJob> getJobsNeedingDisposalWarnings() {
-        LocalDateTime now = getCurrentManilaTime();
-        List<LaundryJob> unclaimedJobs = laundryJobRepository.findByPickupStatus("UNCLAIMED");
-
-        return unclaimedJobs.stream()
-                .filter(job -> !job.isDisposed() && !job.isExpired())
-                .filter(job -> job.getDueDate() != null)
-                .filter(job -> {
-                    long daysUntilDue = java.time.Duration.between(now, job.getDueDate()).toDays();
-                    return daysUntilDue <= 3 && daysUntilDue >= 0;
-                })
-                .collect(Collectors.toList());
+        return disposalWarningService.findJobsDueWithinDays(3);
     }
 
-    // Helper method for manual triggering
+    // Helper method for manual triggering; skips windows that were already warned
     public void checkAndSendDisposalWarningsForJob(LaundryJob job) {
-        LocalDateTime now = getCurrentManilaTime();
-
-        if (job.isDisposed() || job.isExpired() || job.getDueDate() == null) {
-            return;
-        }
-
-        long daysUntilDue = java.time.Duration.between(now, job.getDueDate()).toDays();
-
-        System.out.println("📅 Manual Check - Job: " + job.getTransactionId() +
-                " | Due: " + job.getDueDate() +
-                " | Days until due: " + daysUntilDue);
-
-        // Send warnings at 3 days, 1 day, and on due date
-        if (daysUntilDue == 3 || daysUntilDue == 1 || daysUntilDue == 0) {
-            try {
-                smsService.sendDisposalWarningNotification(
-                        job.getContact(),
-                        job.getCustomerName(),
-                        job.getTransactionId(),
-                        (int) daysUntilDue);
-                System.out.println("✅ Sent disposal warning for: " + job.getTransactionId() +
-                        " | Days left: " + daysUntilDue);
-            } catch (Exception e) {
-                System.err.println("❌ Failed to send disposal warning for " + job.getTransactionId() +
-                        ": " + e.getMessage());
-            }
-        }
+        disposalWarningService.sendForJob(job);
     }
 
     public Map<String, Object> manuallyTriggerDisposalWarnings() {
-        LocalDateTime now = getCurrentManilaTime();
-        List<LaundryJob> jobsNeedingWarnings = getJobsNeedingDisposalWarnings();
-        int warningsSent = 0;
-        int errors = 0;
-
-        System.out.println("🔔 MANUAL TRIGGER: Checking " + jobsNeedingWarnings.size() + " jobs for disposal warnings");
-        System.out.println("📍 Current Manila Time: " + now);
-
-        for (LaundryJob job : jobsNeedingWarnings) {
-            try {
-                checkAndSendDisposalWarningsForJob(job);
-                warningsSent++;
-            } catch (Exception e) {
-                errors++;
-                System.err
-                        .println("❌ Failed to send warning for job " + job.getTransactionId() + ": " + e.getMessage());
-            }
-        }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalJobsChecked", jobsNeedingWarnings.size());
-        result.put("warningsSent", warningsSent);
-        result.put("errors", errors);
-        result.put("timestamp", now.toString());
-
-        System.out.println("📊 Manual Trigger Summary: " + warningsSent + " warnings sent, " + errors + " errors");
-
-        return result;
+        return disposalWarningService.run("manual");
     }
 
+    // Indexed searchTerms prefix match, same as the transaction search ("dela cr" finds "Juan Dela Cruz")
     public List<LaundryJob> searchLaundryJobsByCustomerName(String customerName) {
-        return laundryJobRepository.findByCustomerName(customerName);
+        return mongoTemplate.find(new Query(CustomerNameKey.searchCriteria(customerName)), LaundryJob.class);
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -968,36 +1342,34 @@ public class LaundryJobService {
                 throw new RuntimeException("Cannot force advance from status: " + currentStatus);
         }
 
-        load.setStatus(newStatus);
-        load.setStartTime(null);
-        load.setEndTime(null);
-
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        Update update = new Update()
+                .set(loadField("status"), newStatus)
+                .set(loadField("startTime"), null)
+                .set(loadField("endTime"), null)
+                .set("laundryProcessedBy", processedBy);
+        LocalDateTime completedAt = applyCompletion(update, load, newStatus);
+        LaundryJob updated = updateLoad(transactionId, loadNumber, currentStatus, update);
+        countCompletion(load, newStatus, completedAt);
+        syncCycleTimer(updated, loadNumber);
+        if (STATUS_WASHED.equals(newStatus)) {
+            loadDispatcher.enqueueLoad(updated, loadNumber);
+        }
+        return updated;
     }
 
     // In LaundryJobService.java
     public List<LaundryJob> getCompletedUnclaimedJobsWithVerifiedPayments() {
-        List<LaundryJob> completedJobs = getCompletedUnclaimedJobs();
-
-        // Filter out unverified GCash transactions
-        return completedJobs.stream()
-                .filter(job -> {
-                    try {
-                        Transaction transaction = transactionRepository.findByInvoiceNumber(job.getTransactionId())
-                                .orElse(null);
-
-                        if (transaction != null && "GCash".equals(transaction.getPaymentMethod())) {
-                            return Boolean.TRUE.equals(transaction.getGcashVerified());
-                        }
-                        return true; // Keep non-GCash transactions
-                    } catch (Exception e) {
-                        System.err.println(
-                                "Error checking transaction for job " + job.getTransactionId() + ": " + e.getMessage());
-                        return true; // In case of error, keep the job
-                    }
-                })
-                .collect(Collectors.toList());
+        return getCompletedUnclaimedJobs(); // already excludes unverified GCash payments
+    }
+
+    /** Copies the transaction's payment method and GCash verification onto its laundry job. */
+    @CacheEvict(value = "laundryJobs", allEntries = true)
+    public void syncPaymentStatus(Transaction transaction) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("transactionId").is(transaction.getInvoiceNumber())),
+                new Update()
+                        .set("paymentMethod", transaction.getPaymentMethod())
+                        .set("gcashVerified", transaction.getGcashVerified()),
+                LaundryJob.class);
     }
 
     @CacheEvict(value = "laundryJobs", allEntries = true)
@@ -1009,9 +1381,15 @@ public class LaundryJobService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Load number not found: " + loadNumber));
 
-        releaseMachine(load);
-
-        job.setLaundryProcessedBy(processedBy);
-        return laundryJobRepository.save(job);
+        String mid = load.getMachineId();
+        if (mid == null) {
+            return job;
+        }
+        LaundryJob updated = updateLoad(transactionId, loadNumber, load.getStatus(), new Update()
+                .set(loadField("machineId"), null)
+                .set("laundryProcessedBy", processedBy));
+        releaseMachineById(mid);
+        loadDispatcher.enqueueLoad(updated, loadNumber); // back in line if it still needs a machine
+        return updated;
     }
 }
\ No newline at end of file
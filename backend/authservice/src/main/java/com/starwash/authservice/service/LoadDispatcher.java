@@ -0,0 +1,342 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.LaundryJob.LoadAssignment;
+import com.starwash.authservice.model.MachineItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waiting-load queue per machine type. Loads that are NOT_STARTED (need a washer or dryer) or
+ * WASHED (need a dryer) wait here ordered by due date, then arrival. When a machine is freed the
+ * next waiting load of that type gets it automatically and staff are told over SSE.
+ *
+ * Dispatching runs on one background thread, so releases never wait on it and two dispatches
+ * never race for the same queue head. The machine claim and the load update are both guarded,
+ * so a load a staff member assigned by hand in the meantime is simply skipped.
+ */
+@Service
+public class LoadDispatcher {
+
+    private static final String STATUS_NOT_STARTED = "NOT_STARTED";
+    private static final String STATUS_WASHED = "WASHED";
+
+    private final MongoTemplate mongoTemplate;
+    private final MachineAvailabilityRegistry machineAvailabilityRegistry;
+    private final NotificationService notificationService;
+    private final boolean enabled;
+
+    // "WASHER"/"DRYER" -> waiting loads, earliest due first
+    private final Map<String, PriorityBlockingQueue<WaitingLoad>> queues = new ConcurrentHashMap<>();
+    // transactionId#loadNumber -> entry, so a load is queued at most once
+    private final Map<String, WaitingLoad> queued = new ConcurrentHashMap<>();
+
+    private final AtomicLong arrivals = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "load-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LoadDispatcher(MongoTemplate mongoTemplate,
+            MachineAvailabilityRegistry machineAvailabilityRegistry,
+            NotificationService notificationService,
+            @Value("${app.dispatcher.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.machineAvailabilityRegistry = machineAvailabilityRegistry;
+        this.notificationService = notificationService;
+        this.enabled = enabled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("❌ Load dispatcher rebuild failed: " + e.getMessage());
+        }
+    }
+
+    // Safety net for loads created or changed outside this instance
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void periodicRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            System.err.println("❌ Load dispatcher rebuild failed: " + e.getMessage());
+        }
+    }
+
+    /** Re-reads every waiting load from the database. Existing entries keep their place. */
+    public synchronized void rebuild() {
+        Query query = new Query(Criteria.where("loadAssignments.status").in(STATUS_NOT_STARTED, STATUS_WASHED)
+                .and("pickupStatus").is("UNCLAIMED")
+                .and("disposed").is(false));
+        query.fields().include("transactionId", "serviceType", "dueDate", "createdAt", "loadAssignments");
+
+        Set<String> stillWaiting = new HashSet<>();
+        for (LaundryJob job : mongoTemplate.find(query, LaundryJob.class)) {
+            for (LoadAssignment load : job.getLoadAssignments()) {
+                if (enqueue(job, load)) {
+                    stillWaiting.add(key(job.getTransactionId(), load.getLoadNumber()));
+                }
+            }
+        }
+        queued.keySet().removeIf(k -> !stillWaiting.contains(k));
+        queues.values().forEach(q -> q.removeIf(w -> !stillWaiting.contains(w.key())));
+
+        System.out.println("🚦 Load dispatcher queues: " + queueSizes());
+        // Machines may have been free all along, e.g. right after startup
+        queues.keySet().forEach(this::dispatchIfFree);
+    }
+
+    /** Queues every load of a new job that needs a machine. */
+    public void enqueueJob(LaundryJob job) {
+        if (!enabled || job == null || job.getLoadAssignments() == null) {
+            return;
+        }
+        job.getLoadAssignments().forEach(load -> enqueue(job, load));
+        job.getLoadAssignments().stream()
+                .map(load -> waitingFor(job.getServiceType(), load))
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(this::dispatchIfFree);
+    }
+
+    /** Queues one load (e.g. just WASHED and now waiting for a dryer). */
+    public void enqueueLoad(LaundryJob job, int loadNumber) {
+        if (!enabled || job == null || job.getLoadAssignments() == null) {
+            return;
+        }
+        job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == loadNumber)
+                .findFirst()
+                .ifPresent(load -> {
+                    if (enqueue(job, load)) {
+                        dispatchIfFree(waitingFor(job.getServiceType(), load));
+                    }
+                });
+    }
+
+    // A load queued while a matching machine is already free shouldn't wait for the next release
+    private void dispatchIfFree(String type) {
+        if (machineAvailabilityRegistry.hasFree(type)) {
+            worker.execute(() -> dispatch(type));
+        }
+    }
+
+    // Returns true if the load is waiting for a machine (whether newly queued or already queued)
+    private boolean enqueue(LaundryJob job, LoadAssignment load) {
+        String type = waitingFor(job.getServiceType(), load);
+        if (type == null) {
+            return false;
+        }
+        String key = key(job.getTransactionId(), load.getLoadNumber());
+        WaitingLoad existing = queued.get(key);
+        if (existing != null && existing.type.equals(type)) {
+            return true;
+        }
+
+        LocalDateTime due = job.getDueDate() != null ? job.getDueDate() : LocalDateTime.MAX;
+        WaitingLoad waiting = new WaitingLoad(job.getTransactionId(), load.getLoadNumber(), type, due,
+                arrivals.incrementAndGet());
+        queued.put(key, waiting);
+        queues.computeIfAbsent(type, t -> new PriorityBlockingQueue<>()).add(waiting);
+        return true;
+    }
+
+    /**
+     * Called whenever a machine is freed. Hands it (or any other free machine of that type) to
+     * the next waiting load, off the caller's thread.
+     */
+    public void onMachineFreed(String machineId) {
+        if (!enabled) {
+            return;
+        }
+        machineAvailabilityRegistry.find(machineId)
+                .map(MachineItem::getType)
+                .map(type -> type.trim().toUpperCase())
+                .ifPresent(type -> worker.execute(() -> dispatch(type)));
+    }
+
+    private void dispatch(String type) {
+        PriorityBlockingQueue<WaitingLoad> queue = queues.get(type);
+        if (queue == null) {
+            return;
+        }
+        try {
+            WaitingLoad next;
+            while ((next = queue.peek()) != null && machineAvailabilityRegistry.hasFree(type)) {
+                queue.remove(next);
+                queued.remove(next.key(), next);
+                if (!tryAssign(next)) {
+                    skipped.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Load dispatch failed for " + type + ": " + e.getMessage());
+        }
+    }
+
+    // Re-checks the load against the database, books a machine and assigns it in one guarded update
+    private boolean tryAssign(WaitingLoad waiting) {
+        Query jobQuery = new Query(Criteria.where("transactionId").is(waiting.transactionId)
+                .and("pickupStatus").is("UNCLAIMED")
+                .and("disposed").is(false));
+        jobQuery.fields().include("transactionId", "customerName", "serviceType", "loadAssignments");
+        LaundryJob job = mongoTemplate.findOne(jobQuery, LaundryJob.class);
+        if (job == null) {
+            return false;
+        }
+        LoadAssignment load = job.getLoadAssignments().stream()
+                .filter(l -> l.getLoadNumber() == waiting.loadNumber)
+                .findFirst()
+                .orElse(null);
+        if (load == null || !waiting.type.equals(waitingFor(job.getServiceType(), load))) {
+            return false; // started, assigned by hand, or otherwise moved on
+        }
+
+        Optional<MachineItem> claimed = machineAvailabilityRegistry.claimAny(waiting.type);
+        if (claimed.isEmpty()) {
+            // Nothing free after all; put the load back where it was
+            queued.put(waiting.key(), waiting);
+            queues.get(waiting.type).add(waiting);
+            return true;
+        }
+        MachineItem machine = claimed.get();
+
+        Criteria element = Criteria.where("loadNumber").is(load.getLoadNumber()).and("status").is(load.getStatus());
+        Criteria arrayFilter = Criteria.where("l.loadNumber").is(load.getLoadNumber()).and("l.status").is(load.getStatus());
+        if (load.getMachineId() != null) {
+            element = element.and("machineId").is(load.getMachineId());
+            arrayFilter = arrayFilter.and("l.machineId").is(load.getMachineId());
+        } else {
+            element = element.and("machineId").is(null);
+            arrayFilter = arrayFilter.and("l.machineId").is(null);
+        }
+        Update update = new Update()
+                .set("loadAssignments.$[l].machineId", machine.getId())
+                .set("laundryProcessedBy", "dispatcher")
+                .inc("version", 1)
+                .filterArray(arrayFilter);
+        boolean assigned = mongoTemplate.updateFirst(
+                new Query(Criteria.where("transactionId").is(waiting.transactionId)
+                        .and("loadAssignments").elemMatch(element)),
+                update, LaundryJob.class).getModifiedCount() > 0;
+
+        if (!assigned) {
+            machineAvailabilityRegistry.release(machine.getId());
+            return false;
+        }
+        dispatched.incrementAndGet();
+
+        // A WASHED load hands its washer back now that it has a dryer
+        if (load.getMachineId() != null && machineAvailabilityRegistry.release(load.getMachineId())) {
+            onMachineFreed(load.getMachineId());
+        }
+
+        System.out.println("🚦 Auto-assigned " + machine.getName() + " to load " + waiting.loadNumber
+                + " of " + waiting.transactionId);
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("transactionId", waiting.transactionId);
+        event.put("loadNumber", waiting.loadNumber);
+        event.put("customerName", job.getCustomerName());
+        event.put("machineId", machine.getId());
+        event.put("machineName", machine.getName());
+        event.put("machineType", waiting.type);
+        notificationService.broadcast(NotificationService.EVENT_MACHINE_ASSIGNED, event);
+        notificationService.broadcast(NotificationService.EVENT_LAUNDRY, waiting.transactionId, "Machine auto-assigned: " + waiting.transactionId);
+        return true;
+    }
+
+    /**
+     * Machine type a load is waiting for, or null if it isn't waiting: NOT_STARTED loads without a
+     * machine, and WASHED loads still holding their washer (they need a dryer next).
+     */
+    private static String waitingFor(String serviceType, LoadAssignment load) {
+        String status = load.getStatus();
+        if (STATUS_NOT_STARTED.equals(status) && load.getMachineId() == null) {
+            return LaundryJobService.requiredMachineTypeForNextStep(serviceType, load);
+        }
+        if (STATUS_WASHED.equals(status)) {
+            String type = LaundryJobService.requiredMachineTypeForNextStep(serviceType, load);
+            return "DRYER".equals(type) ? type : null;
+        }
+        return null;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("waiting", queueSizes());
+        metrics.put("dispatched", dispatched.get());
+        metrics.put("skipped", skipped.get());
+        return metrics;
+    }
+
+    private Map<String, Integer> queueSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        queues.forEach((type, queue) -> sizes.put(type, queue.size()));
+        return sizes;
+    }
+
+    private static String key(String transactionId, int loadNumber) {
+        return transactionId + "#" + loadNumber;
+    }
+
+    private static final class WaitingLoad implements Comparable<WaitingLoad> {
+        final String transactionId;
+        final int loadNumber;
+        final String type;
+        final LocalDateTime dueDate;
+        final long arrival;
+
+        WaitingLoad(String transactionId, int loadNumber, String type, LocalDateTime dueDate, long arrival) {
+            this.transactionId = transactionId;
+            this.loadNumber = loadNumber;
+            this.type = type;
+            this.dueDate = dueDate;
+            this.arrival = arrival;
+        }
+
+        String key() {
+            return LoadDispatcher.key(transactionId, loadNumber);
+        }
+
+        @Override
+        public int compareTo(WaitingLoad other) {
+            int byDue = dueDate.compareTo(other.dueDate);
+            return byDue != 0 ? byDue : Long.compare(arrival, other.arrival);
+        }
+    }
+}
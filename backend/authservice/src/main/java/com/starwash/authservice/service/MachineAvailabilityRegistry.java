@@ -0,0 +1,289 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.MachineItem;
+import com.starwash.authservice.repository.MachineRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Live view of which machines are free, grouped by type and capacity, so picking one doesn't
+ * scan the machines collection. The registry is only a hint: every claim is a findAndModify
+ * guarded on status "Available", so two staff can never book the same machine even if the
+ * registry is momentarily stale.
+ */
+@Service
+public class MachineAvailabilityRegistry {
+
+    public static final String STATUS_AVAILABLE = "Available";
+    public static final String STATUS_IN_USE = "In Use";
+    public static final String STATUS_MAINTENANCE = "Maintenance";
+
+    private static final double DEFAULT_CAPACITY_KG = 8.0;
+
+    private final MongoTemplate mongoTemplate;
+    private final MachineRepository machineRepository;
+
+    // TYPE -> capacity -> free machine ids
+    private final Map<String, ConcurrentSkipListMap<Double, Set<String>>> free = new ConcurrentHashMap<>();
+    // machine id -> (type, capacity) it is filed under
+    private final Map<String, MachineItem> known = new ConcurrentHashMap<>();
+
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong claimConflicts = new AtomicLong();
+
+    public MachineAvailabilityRegistry(MongoTemplate mongoTemplate, MachineRepository machineRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.machineRepository = machineRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("❌ Machine availability load failed: " + e.getMessage());
+        }
+    }
+
+    // Picks up status changes made by other instances or directly in the database
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void periodicReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("❌ Machine availability reload failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        List<MachineItem> machines = machineRepository.findAll();
+        Set<String> seen = new HashSet<>();
+        for (MachineItem machine : machines) {
+            onMachineChanged(machine);
+            seen.add(machine.getId());
+        }
+        new ArrayList<>(known.keySet()).stream()
+                .filter(id -> !seen.contains(id))
+                .forEach(this::onMachineDeleted);
+        System.out.println("🧺 Machine availability loaded: " + countFree() + "/" + machines.size() + " free");
+    }
+
+    /**
+     * Atomically books a specific machine. Fails if the machine is not Available in the database,
+     * whatever the registry thinks.
+     */
+    public MachineItem claim(String machineId) {
+        MachineItem claimed = claimWhere(Criteria.where("_id").is(machineId));
+        if (claimed == null) {
+            claimConflicts.incrementAndGet();
+            markBusy(machineId);
+            throw new RuntimeException("Machine is not available");
+        }
+        return claimed;
+    }
+
+    /** Books any free machine of the given type (e.g. "DRYER"), smallest capacity first. */
+    public Optional<MachineItem> claimAny(String type) {
+        return claimAny(type, 0.0);
+    }
+
+    /** Books any free machine of the given type with at least {@code minCapacityKg}, smallest first. */
+    public Optional<MachineItem> claimAny(String type, double minCapacityKg) {
+        ConcurrentSkipListMap<Double, Set<String>> byCapacity = free.get(typeKey(type));
+        if (byCapacity != null) {
+            for (Set<String> ids : byCapacity.tailMap(minCapacityKg, true).values()) {
+                for (String id : ids) {
+                    MachineItem claimed = claimWhere(Criteria.where("_id").is(id));
+                    if (claimed != null) {
+                        return Optional.of(claimed);
+                    }
+                    // Someone else got it first, or it changed behind our back
+                    claimConflicts.incrementAndGet();
+                    markBusy(id);
+                }
+            }
+        }
+
+        // Registry had nothing usable; ask the database directly before giving up
+        Criteria byType = Criteria.where("type").regex("^" + Pattern.quote(type) + "$", "i");
+        if (minCapacityKg > 0) {
+            byType = byType.and("capacityKg").gte(minCapacityKg);
+        }
+        return Optional.ofNullable(claimWhere(byType));
+    }
+
+    private MachineItem claimWhere(Criteria criteria) {
+        Query query = new Query(new Criteria().andOperator(criteria, availableGuard()));
+        MachineItem claimed = mongoTemplate.findAndModify(query,
+                new Update().set("status", STATUS_IN_USE),
+                FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+        if (claimed != null) {
+            claims.incrementAndGet();
+            onMachineChanged(claimed);
+        }
+        return claimed;
+    }
+
+    /**
+     * Marks a machine as running a load: In Use plus one more processed load. Used when a load
+     * starts on a machine that was already booked for it.
+     */
+    public MachineItem markStarted(String machineId) {
+        MachineItem started = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(machineId).and("status").ne(STATUS_MAINTENANCE)),
+                new Update().set("status", STATUS_IN_USE).inc("totalLoadsProcessed", 1),
+                FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+        if (started == null) {
+            throw new RuntimeException("Machine not found or under maintenance");
+        }
+        onMachineChanged(started);
+        return started;
+    }
+
+    /** Frees a machine. Machines under maintenance are left alone. */
+    public boolean release(String machineId) {
+        if (machineId == null) {
+            return false;
+        }
+        MachineItem released = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(machineId).and("status").ne(STATUS_MAINTENANCE)),
+                new Update().set("status", STATUS_AVAILABLE),
+                FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+        if (released == null) {
+            return false;
+        }
+        onMachineChanged(released);
+        return true;
+    }
+
+    /**
+     * Takes a machine out of service: Maintenance, with the maintenance date and a fresh load
+     * count. Returns null if it already was under maintenance (or is gone).
+     */
+    public MachineItem startMaintenance(String machineId, String maintenanceDate) {
+        MachineItem machine = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(machineId).and("status").ne(STATUS_MAINTENANCE)),
+                new Update().set("status", STATUS_MAINTENANCE)
+                        .set("lastMaintenance", maintenanceDate)
+                        .set("totalLoadsProcessed", 0L),
+                FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+        if (machine != null) {
+            onMachineChanged(machine);
+        }
+        return machine;
+    }
+
+    /** Puts a machine under maintenance back in service. Returns null if it wasn't under maintenance. */
+    public MachineItem endMaintenance(String machineId) {
+        MachineItem machine = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(machineId).and("status").is(STATUS_MAINTENANCE)),
+                new Update().set("status", STATUS_AVAILABLE),
+                FindAndModifyOptions.options().returnNew(true), MachineItem.class);
+        if (machine != null) {
+            onMachineChanged(machine);
+        }
+        return machine;
+    }
+
+    /** Keep the registry in step after any machine save (create, edit, status change). */
+    public void onMachineChanged(MachineItem machine) {
+        if (machine == null || machine.getId() == null) {
+            return;
+        }
+        MachineItem previous = known.put(machine.getId(), machine);
+        if (previous != null) {
+            poolFor(previous).remove(machine.getId());
+        }
+        if (isAvailable(machine.getStatus())) {
+            poolFor(machine).add(machine.getId());
+        }
+    }
+
+    public void onMachineDeleted(String machineId) {
+        MachineItem previous = known.remove(machineId);
+        if (previous != null) {
+            poolFor(previous).remove(machineId);
+        }
+    }
+
+    /** Last known state of a machine (type, capacity, name); status may lag the database. */
+    public Optional<MachineItem> find(String machineId) {
+        return machineId != null ? Optional.ofNullable(known.get(machineId)) : Optional.empty();
+    }
+
+    public boolean hasFree(String type) {
+        ConcurrentSkipListMap<Double, Set<String>> byCapacity = free.get(typeKey(type));
+        return byCapacity != null && byCapacity.values().stream().anyMatch(ids -> !ids.isEmpty());
+    }
+
+    public boolean isFree(String machineId) {
+        MachineItem machine = known.get(machineId);
+        return machine != null && poolFor(machine).contains(machineId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> freeByType = new TreeMap<>();
+        free.forEach((type, byCapacity) -> {
+            Map<String, Integer> capacities = new TreeMap<>();
+            byCapacity.forEach((capacity, ids) -> {
+                if (!ids.isEmpty()) {
+                    capacities.put(capacity + "kg", ids.size());
+                }
+            });
+            freeByType.put(type, capacities);
+        });
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("machines", known.size());
+        metrics.put("free", countFree());
+        metrics.put("freeByType", freeByType);
+        metrics.put("claims", claims.get());
+        metrics.put("claimConflicts", claimConflicts.get());
+        return metrics;
+    }
+
+    private void markBusy(String machineId) {
+        MachineItem machine = known.get(machineId);
+        if (machine != null) {
+            poolFor(machine).remove(machineId);
+        }
+    }
+
+    private Set<String> poolFor(MachineItem machine) {
+        double capacity = machine.getCapacityKg() != null ? machine.getCapacityKg() : DEFAULT_CAPACITY_KG;
+        return free.computeIfAbsent(typeKey(machine.getType()), t -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(capacity, c -> ConcurrentHashMap.newKeySet());
+    }
+
+    private int countFree() {
+        return free.values().stream()
+                .flatMap(byCapacity -> byCapacity.values().stream())
+                .mapToInt(Set::size)
+                .sum();
+    }
+
+    private static Criteria availableGuard() {
+        return Criteria.where("status").regex("^" + STATUS_AVAILABLE + "$", "i");
+    }
+
+    private static boolean isAvailable(String status) {
+        return STATUS_AVAILABLE.equalsIgnoreCase(status);
+    }
+
+    private static String typeKey(String type) {
+        return type != null ? type.trim().toUpperCase() : "";
+    }
+}
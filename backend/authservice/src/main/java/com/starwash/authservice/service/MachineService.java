@@ -1,7 +1,6 @@
 package com.starwash.authservice.service;
 
 import com.starwash.authservice.model.MachineItem;
-import com.starwash.authservice.repository.MachineRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
@@ -12,22 +11,22 @@ import java.util.stream.Collectors;
 @Service
 public class MachineService {
     
-    private final MachineRepository machineRepository;
+    private final ReferenceDataCache referenceDataCache;
     
-    public MachineService(MachineRepository machineRepository) {
-        this.machineRepository = machineRepository;
+    public MachineService(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
     }
     
     /**
      * Calculate number of loads needed based on total weight and machine type
      */
     public LoadCalculationResult calculateLoads(double totalWeightKg, String machineType) {
-        // Get all machines of the specified type
-        List<MachineItem> machines = machineRepository.findByType(machineType);
+        // Get all machines of the specified type (capacities come from the reference data snapshot)
+        List<MachineItem> machines = referenceDataCache.getMachinesByType(machineType);
         
         if (machines.isEmpty()) {
             // Fallback: try to find any machine if specified type not found
-            machines = machineRepository.findAll();
+            machines = referenceDataCache.getMachines();
             if (machines.isEmpty()) {
                 throw new RuntimeException("No machines found");
             }
@@ -0,0 +1,190 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.NotificationOutboxEntry;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Durable hand-off between code that raises notifications and their delivery.
+ *
+ * {@link #enqueue} is a single insert into notification_outbox, so a sale or load transition
+ * returns without waiting on recipient lookup, per-user notification writes or SSE fan-out. One
+ * background thread takes the oldest entries in batches, has NotificationService save all their
+ * notifications in one bulk write and push them to the SSE hub, then deletes the batch. Delivery
+ * is idempotent (notification IDs derive from the entry), so a batch cut short by a crash is
+ * simply delivered again on the next start.
+ *
+ * Entries fail one at a time: the rest of their batch is delivered and deleted, while the failed
+ * entry stays queued with its attempt count and is skipped until its retry delay has passed.
+ * After MAX_ATTEMPTS it is moved to notification_outbox_dead instead of blocking the queue.
+ */
+@Service
+public class NotificationOutbox {
+
+    private static final int BATCH_SIZE = 200;
+    private static final long IDLE_POLL_MS = 5000;
+    private static final long RETRY_DELAY_MS = 5000;
+    public static final int MAX_ATTEMPTS = 5;
+    public static final String DEAD_LETTER_COLLECTION = "notification_outbox_dead";
+
+    private final MongoTemplate mongoTemplate;
+    // NotificationService enqueues here, so it is looked up when a batch is delivered
+    private final ObjectProvider<NotificationService> notificationService;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong entryFailures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public NotificationOutbox(MongoTemplate mongoTemplate, ObjectProvider<NotificationService> notificationService) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationService = notificationService;
+        this.dispatcher = new Thread(this::run, "notification-outbox");
+        this.dispatcher.setDaemon(true);
+    }
+
+    // Starts after startup so entries left over from the last run go out right away
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    /** Stores the entry for delivery and wakes the dispatcher. */
+    public void enqueue(NotificationOutboxEntry entry) {
+        mongoTemplate.insert(entry);
+        enqueued.incrementAndGet();
+        wakeups.release();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                int count = dispatchBatch();
+                if (count < BATCH_SIZE) {
+                    // Caught up: sleep until the next enqueue (or poll now and then for other writers)
+                    wakeups.tryAcquire(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("❌ Notification outbox delivery failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = ManilaTimeUtil.now();
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("nextAttemptAt").exists(false),
+                Criteria.where("nextAttemptAt").lte(now)))
+                .with(Sort.by("createdAt", "_id"))
+                .limit(BATCH_SIZE);
+        List<NotificationOutboxEntry> batch = mongoTemplate.find(query, NotificationOutboxEntry.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, String> failed = notificationService.getObject().deliverOutbox(batch);
+
+        List<String> ids = batch.stream()
+                .map(NotificationOutboxEntry::getId)
+                .filter(id -> !failed.containsKey(id))
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), NotificationOutboxEntry.class);
+        }
+        for (NotificationOutboxEntry entry : batch) {
+            String error = failed.get(entry.getId());
+            if (error != null) {
+                retryLater(entry, error, now);
+            }
+        }
+
+        batches.incrementAndGet();
+        delivered.addAndGet(ids.size());
+        if (batch.size() > 1) {
+            System.out.println("📬 Delivered " + ids.size() + "/" + batch.size() + " outbox entries");
+        }
+        return batch.size();
+    }
+
+    // Backs the entry off (longer after each attempt), or dead-letters it once it has used them all
+    private void retryLater(NotificationOutboxEntry entry, String error, LocalDateTime now) {
+        entryFailures.incrementAndGet();
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(error);
+        try {
+            if (attempts >= MAX_ATTEMPTS) {
+                entry.setNextAttemptAt(null);
+                // Saved by id first, so a crash in between leaves a duplicate rather than a lost entry
+                mongoTemplate.save(entry, DEAD_LETTER_COLLECTION);
+                mongoTemplate.remove(new Query(Criteria.where("_id").is(entry.getId())), NotificationOutboxEntry.class);
+                deadLettered.incrementAndGet();
+                System.err.println("☠️ Outbox entry " + entry.getId() + " (" + entry.getType() + ") dead-lettered after "
+                        + attempts + " attempts: " + error);
+                return;
+            }
+            LocalDateTime next = now.plus(RETRY_DELAY_MS << (attempts - 1), ChronoUnit.MILLIS);
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(entry.getId())), new Update()
+                    .set("attempts", attempts)
+                    .set("lastError", error)
+                    .set("nextAttemptAt", next), NotificationOutboxEntry.class);
+            System.err.println("⚠️ Outbox entry " + entry.getId() + " failed (attempt " + attempts + "/"
+                    + MAX_ATTEMPTS + "), retrying at " + next + ": " + error);
+        } catch (Exception e) {
+            // Still queued as it was; it comes back with the next batch
+            System.err.println("❌ Failed to record outbox failure for " + entry.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("delivered", delivered.get());
+        metrics.put("batches", batches.get());
+        metrics.put("failures", failures.get());
+        metrics.put("entryFailures", entryFailures.get());
+        metrics.put("deadLettered", deadLettered.get());
+        metrics.put("pending", mongoTemplate.count(new Query(), NotificationOutboxEntry.class));
+        metrics.put("dead", mongoTemplate.count(new Query(), DEAD_LETTER_COLLECTION));
+        return metrics;
+    }
+}
@@ -1,17 +1,29 @@
 package com.starwash.authservice.service;
 
 import com.starwash.authservice.model.Notification;
+import com.starwash.authservice.model.NotificationOutboxEntry;
 import com.starwash.authservice.model.StockItem;
 import com.starwash.authservice.model.User;
 import com.starwash.authservice.repository.NotificationRepository;
 import com.starwash.authservice.repository.StockRepository;
 import com.starwash.authservice.repository.UserRepository;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.Fields;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
@@ -21,7 +33,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class NotificationService {
@@ -31,9 +43,10 @@ public class NotificationService {
     private final MongoTemplate mongoTemplate;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
 
-    // Real-time SSE emitters
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
-    private final List<SseEmitter> anonymousEmitters = new CopyOnWriteArrayList<>();
+    // Real-time SSE connections
+    private final SseHub sseHub;
+    private final BroadcastCoalescer broadcastCoalescer;
+    private final NotificationOutbox notificationOutbox;
 
     // Event Types
     public static final String EVENT_TRANSACTION = "TRANSACTION_UPDATE";
@@ -41,99 +54,48 @@ public class NotificationService {
     public static final String EVENT_NOTIFICATION = "NOTIFICATION_UPDATE";
     public static final String EVENT_STOCK = "STOCK_UPDATE";
     public static final String EVENT_LAUNDRY = "LAUNDRY_UPDATE";
+    public static final String EVENT_MACHINE_ASSIGNED = "MACHINE_ASSIGNED";
+    public static final String EVENT_CYCLE_COMPLETE = "CYCLE_COMPLETE";
 
-    public SseEmitter subscribe(String userId) {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        
-        if (userId != null && !userId.isEmpty()) {
-            // Remove any existing emitter for this user to avoid duplicates
-            SseEmitter oldEmitter = emitters.remove(userId);
-            if (oldEmitter != null) {
-                try { oldEmitter.complete(); } catch (Exception e) {}
-            }
-            
-            emitters.put(userId, emitter);
-            emitter.onCompletion(() -> emitters.remove(userId));
-            emitter.onTimeout(() -> emitters.remove(userId));
-            emitter.onError((e) -> emitters.remove(userId));
-            System.out.println("🔌 User " + userId + " subscribed to SSE");
-        } else {
-            anonymousEmitters.add(emitter);
-            emitter.onCompletion(() -> anonymousEmitters.remove(emitter));
-            emitter.onTimeout(() -> anonymousEmitters.remove(emitter));
-            emitter.onError((e) -> anonymousEmitters.remove(emitter));
-            System.out.println("🔌 Anonymous user subscribed to SSE");
-        }
+    // lastEventId: where a reconnecting client left off (Last-Event-ID), null for a fresh connection
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        return sseHub.connect(userId, lastEventId);
+    }
 
-        try {
-            emitter.send(SseEmitter.event().name("INIT").data("Connected"));
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send INIT event: " + e.getMessage());
-        }
+    // Merged with same-type broadcasts for a short window (BroadcastCoalescer), then queued per connection (SseHub)
+    public void broadcast(String eventName, Object data) {
+        broadcastCoalescer.publish(eventName, data, List.of());
+    }
 
-        return emitter;
+    // Same, naming the record that changed so clients can refresh just that
+    public void broadcast(String eventName, String entityId, Object data) {
+        broadcastCoalescer.publish(eventName, data, entityId != null ? List.of(entityId) : List.of());
     }
 
-    // Keep connections alive
-    @Scheduled(fixedRate = 20000)
-    public void sendHeartbeat() {
-        SseEmitter.SseEventBuilder heartbeat = SseEmitter.event().name("heartbeat").data("ping");
-        
-        emitters.forEach((userId, emitter) -> {
-            try {
-                emitter.send(heartbeat);
-            } catch (Exception e) {
-                emitter.complete();
-                emitters.remove(userId);
-            }
-        });
-        
-        anonymousEmitters.removeIf(emitter -> {
-            try {
-                emitter.send(heartbeat);
-                return false;
-            } catch (Exception e) {
-                emitter.complete();
-                return true;
-            }
-        });
+    public void broadcast(String eventName, Collection<String> entityIds, Object data) {
+        broadcastCoalescer.publish(eventName, data, entityIds);
     }
 
-    public void broadcast(String eventName, Object data) {
-        List<SseEmitter> deadEmitters = new ArrayList<>();
-        int count = 0;
-        
-        // Broadcast to named users
-        for (Map.Entry<String, SseEmitter> entry : emitters.entrySet()) {
-            try {
-                entry.getValue().send(SseEmitter.event().name(eventName).data(data));
-                count++;
-            } catch (Exception e) {
-                deadEmitters.add(entry.getValue());
-                emitters.remove(entry.getKey());
-            }
-        }
+    // Sends to one user's open streams only; returns false if they have none
+    public boolean sendToUser(String userId, String eventName, Object data) {
+        return sseHub.sendToUser(userId, eventName, data) > 0;
+    }
 
-        // Broadcast to anonymous users
-        for (SseEmitter emitter : anonymousEmitters) {
-            try {
-                emitter.send(SseEmitter.event().name(eventName).data(data));
-                count++;
-            } catch (Exception e) {
-                deadEmitters.add(emitter);
-                anonymousEmitters.remove(emitter);
-            }
-        }
-        
-        if (count > 0) {
-            System.out.println("📡 Broadcast [" + eventName + "] sent to " + count + " emitters");
-        }
+    public Map<String, Object> getStreamMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(sseHub.getMetrics());
+        metrics.put("coalescing", broadcastCoalescer.getMetrics());
+        metrics.put("outbox", notificationOutbox.getMetrics());
+        return metrics;
     }
 
     private static final ZoneId MANILA_ZONE = ZoneId.of("Asia/Manila");
 
     private final ConcurrentHashMap<String, String> lastStockStatus = new ConcurrentHashMap<>();
 
+    // userId -> unread count; counted once on first ask, then kept current as notifications are
+    // created and read. Dropped every 10 minutes so any drift is recounted.
+    private final Map<String, AtomicLong> unreadCounts = new ConcurrentHashMap<>();
+
     // Notification types
     public static final String TYPE_LOAD_WASHED = "load_washed";
     public static final String TYPE_LOAD_DRIED = "load_dried";
@@ -151,191 +113,209 @@ public class NotificationService {
             UserRepository userRepository,
             StockRepository stockRepository,
             MongoTemplate mongoTemplate,
-            com.fasterxml.jackson.databind.ObjectMapper objectMapper) {
+            com.fasterxml.jackson.databind.ObjectMapper objectMapper,
+            SseHub sseHub,
+            BroadcastCoalescer broadcastCoalescer,
+            NotificationOutbox notificationOutbox) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.stockRepository = stockRepository;
         this.mongoTemplate = mongoTemplate;
         this.objectMapper = objectMapper;
+        this.sseHub = sseHub;
+        this.broadcastCoalescer = broadcastCoalescer;
+        this.notificationOutbox = notificationOutbox;
     }
 
     private LocalDateTime getCurrentManilaTime() {
         return LocalDateTime.now(MANILA_ZONE);
     }
 
-    public Notification createNotification(String userId, String type, String title, String message,
+    // Queued like the broadcast notifications; delivered (and pushed to the user) by deliverOutbox
+    public void createNotification(String userId, String type, String title, String message,
             String relatedEntityId) {
-        Notification notification = new Notification(userId, type, title, message, relatedEntityId);
-        notification.setCreatedAt(getCurrentManilaTime());
-        Notification saved = notificationRepository.save(notification);
-        
-        // Broadcast to specific user if they are connected
-        SseEmitter emitter = emitters.get(userId);
-        if (emitter != null) {
-            try {
-                // Use a simplified map for transmission to avoid serialization issues
-                Map<String, Object> data = new HashMap<>();
-                data.put("id", saved.getId());
-                data.put("userId", saved.getUserId());
-                data.put("type", saved.getType());
-                data.put("title", saved.getTitle());
-                data.put("message", saved.getMessage());
-                data.put("read", saved.isRead());
-                data.put("createdAt", saved.getCreatedAt().toString());
-                data.put("relatedEntityId", saved.getRelatedEntityId());
-                
-                        emitter.send(SseEmitter.event().name(EVENT_NOTIFICATION).data(objectMapper.writeValueAsString(data)));
-                
-                // If it's a laundry update, also broadcast to sync dashboard
-                if (type.startsWith("load_") || type.equals(NEW_LAUNDRY_SERVICE)) {
-                    broadcast(EVENT_LAUNDRY, "updated");
-                    broadcast(EVENT_TRANSACTION, "updated");
-                }
-            } catch (Exception e) {
-                System.err.println("❌ Error sending SSE to user " + userId + ": " + e.getMessage());
-                emitters.remove(userId);
-            }
-        }
-        
-        return saved;
+        notificationOutbox.enqueue(new NotificationOutboxEntry(NotificationOutboxEntry.AUDIENCE_USER, userId, type,
+                title, message, relatedEntityId, getCurrentManilaTime()));
     }
 
     // Updated to filter notifications based on user role to use bulk saving
+    // Fan-out happens off the request path, see NotificationOutbox / deliverOutbox
     public void notifyAllUsers(String type, String title, String message, String relatedEntityId) {
-        List<Notification> bulkNotifications = new ArrayList<>();
-        LocalDateTime now = getCurrentManilaTime();
-
-        userRepository.findAll().forEach(user -> {
-            if (shouldReceiveNotification(user, type)) {
-                Notification notification = new Notification(user.getId(), type, title, message, relatedEntityId);
-                notification.setCreatedAt(now);
-                bulkNotifications.add(notification);
-            }
-        });
+        enqueue(NotificationOutboxEntry.AUDIENCE_ALL, type, title, message, relatedEntityId);
+    }
+
+    public void notifyAllStaff(String type, String title, String message, String relatedEntityId) {
+        enqueue(NotificationOutboxEntry.AUDIENCE_STAFF, type, title, message, relatedEntityId);
+    }
 
-        if (!bulkNotifications.isEmpty()) {
-            List<Notification> saved = notificationRepository.saveAll(bulkNotifications);
-            
-            // Broadcast to connected users
-            saved.forEach(notif -> {
-                SseEmitter emitter = emitters.get(notif.getUserId());
-                if (emitter != null) {
-                    try {
-                        // Use a simplified map for transmission to avoid serialization issues
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("id", notif.getId());
-                        data.put("userId", notif.getUserId());
-                        data.put("type", notif.getType());
-                        data.put("title", notif.getTitle());
-                        data.put("message", notif.getMessage());
-                        data.put("read", notif.isRead());
-                        data.put("createdAt", notif.getCreatedAt().toString());
-                        data.put("relatedEntityId", notif.getRelatedEntityId());
-                        
-                                emitter.send(SseEmitter.event().name(EVENT_NOTIFICATION).data(objectMapper.writeValueAsString(data)));
-                    } catch (Exception e) {
-                        System.err.println("❌ Error sending SSE to user " + notif.getUserId() + ": " + e.getMessage());
-                        emitters.remove(notif.getUserId());
+    public void notifyAllAdmins(String type, String title, String message, String relatedEntityId) {
+        enqueue(NotificationOutboxEntry.AUDIENCE_ADMIN, type, title, message, relatedEntityId);
+    }
+
+    private void enqueue(String audience, String type, String title, String message, String relatedEntityId) {
+        notificationOutbox.enqueue(new NotificationOutboxEntry(audience, null, type, title, message,
+                relatedEntityId, getCurrentManilaTime()));
+    }
+
+    /**
+     * Turns a batch of outbox entries into notifications for their recipients: users are looked
+     * up once per audience, all notifications go out in one unordered bulk write (insert-if-absent),
+     * then each is pushed to its user's streams and the dashboards get their usual refresh
+     * broadcasts. Notification IDs are "entryId:userId", so delivering an entry twice changes nothing.
+     *
+     * Entries fail on their own: one that can't be resolved or whose notifications aren't all
+     * written is reported back and doesn't hold up the rest of the batch. Only an error that
+     * isn't about any one entry (e.g. the database being unreachable) is thrown.
+     *
+     * @return entry ID -> reason, for the entries that must be delivered again
+     */
+    public Map<String, String> deliverOutbox(List<NotificationOutboxEntry> entries) {
+        Map<String, List<User>> audiences = new HashMap<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<Notification> notifications = new ArrayList<>();
+        // owners.get(i) is the entry notifications.get(i) came from
+        List<NotificationOutboxEntry> owners = new ArrayList<>();
+
+        for (NotificationOutboxEntry entry : entries) {
+            try {
+                List<Notification> forEntry = new ArrayList<>();
+                if (NotificationOutboxEntry.AUDIENCE_USER.equals(entry.getAudience())) {
+                    if (entry.getUserId() != null) {
+                        forEntry.add(toNotification(entry, entry.getUserId()));
+                    }
+                } else {
+                    List<User> users = audiences.computeIfAbsent(entry.getAudience(), this::findAudience);
+                    for (User user : users) {
+                        if (shouldReceiveNotification(user, entry.getType())) {
+                            forEntry.add(toNotification(entry, user.getId()));
+                        }
                     }
                 }
-            });
-
-            // Also broadcast a general STOCK_UPDATE if it's stock related
-            if (isStockRelatedNotification(type)) {
-                broadcast(EVENT_STOCK, "updated");
+                notifications.addAll(forEntry);
+                forEntry.forEach(n -> owners.add(entry));
+            } catch (Exception e) {
+                failed.put(entry.getId(), describe(e));
             }
         }
-    }
 
-    public void notifyAllStaff(String type, String title, String message, String relatedEntityId) {
-        List<Notification> bulkNotifications = new ArrayList<>();
-        LocalDateTime now = getCurrentManilaTime();
-
-        userRepository.findByRole("STAFF").forEach(staff -> {
-            if (shouldReceiveNotification(staff, type)) {
-                Notification notification = new Notification(staff.getId(), type, title, message, relatedEntityId);
-                notification.setCreatedAt(now);
-                bulkNotifications.add(notification);
+        if (!notifications.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+            for (Notification n : notifications) {
+                // Insert-only, so a redelivered entry can't undo a user having read it already
+                bulk.upsert(new Query(Criteria.where("_id").is(n.getId())), new Update()
+                        .setOnInsert("userId", n.getUserId())
+                        .setOnInsert("type", n.getType())
+                        .setOnInsert("title", n.getTitle())
+                        .setOnInsert("message", n.getMessage())
+                        .setOnInsert("relatedEntityId", n.getRelatedEntityId())
+                        .setOnInsert("read", false)
+                        .setOnInsert("createdAt", n.getCreatedAt()));
             }
-        });
+            BulkWriteResult result;
+            try {
+                result = bulk.execute();
+            } catch (BulkOperationException e) {
+                // The rest of the batch is written; only the entries with a rejected write go again
+                for (BulkWriteError error : e.getErrors()) {
+                    failed.putIfAbsent(owners.get(error.getIndex()).getId(), error.getMessage());
+                }
+                result = e.getResult();
+            }
+            // Only notifications this write actually created count as new unread ones
+            for (BulkWriteUpsert upsert : result.getUpserts()) {
+                adjustUnreadCount(notifications.get(upsert.getIndex()).getUserId(), 1);
+            }
+        }
 
-        if (!bulkNotifications.isEmpty()) {
-            List<Notification> saved = notificationRepository.saveAll(bulkNotifications);
-            // Broadcast to connected staff
-            saved.forEach(notif -> {
-                SseEmitter emitter = emitters.get(notif.getUserId());
-                if (emitter != null) {
-                    try {
-                        // Use a simplified map for transmission to avoid serialization issues
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("id", notif.getId());
-                        data.put("userId", notif.getUserId());
-                        data.put("type", notif.getType());
-                        data.put("title", notif.getTitle());
-                        data.put("message", notif.getMessage());
-                        data.put("read", notif.isRead());
-                        data.put("createdAt", notif.getCreatedAt().toString());
-                        data.put("relatedEntityId", notif.getRelatedEntityId());
-                        
-                                emitter.send(SseEmitter.event().name(EVENT_NOTIFICATION).data(objectMapper.writeValueAsString(data)));
-                    } catch (Exception e) {
-                        System.err.println("❌ Error sending SSE to staff " + notif.getUserId() + ": " + e.getMessage());
-                        emitters.remove(notif.getUserId());
-                    }
+        // Broadcast to connected users
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notif = notifications.get(i);
+            if (failed.containsKey(owners.get(i).getId())) {
+                continue; // pushed when the entry is delivered again
+            }
+            if (sseHub.isConnected(notif.getUserId())) {
+                try {
+                    sseHub.sendToUser(notif.getUserId(), EVENT_NOTIFICATION, objectMapper.writeValueAsString(toSsePayload(notif)));
+                } catch (Exception e) {
+                    System.err.println("❌ Error sending SSE to user " + notif.getUserId() + ": " + e.getMessage());
                 }
-            });
+            }
+        }
 
-            // Laundry updates should trigger sync for staff dashboard
-            broadcast(EVENT_LAUNDRY, "updated");
-            broadcast(EVENT_TRANSACTION, "updated");
+        Set<String> reached = new HashSet<>();
+        owners.forEach(entry -> reached.add(entry.getId()));
+        for (NotificationOutboxEntry entry : entries) {
+            if (!reached.contains(entry.getId()) || failed.containsKey(entry.getId())) {
+                continue;
+            }
+            try {
+                broadcastFollowUps(entry);
+            } catch (Exception e) {
+                // The notifications are saved; a missed dashboard refresh isn't worth redelivering for
+                System.err.println("❌ Error broadcasting for outbox entry " + entry.getId() + ": " + e.getMessage());
+            }
         }
+        return failed;
     }
 
-    public void notifyAllAdmins(String type, String title, String message, String relatedEntityId) {
-        List<Notification> bulkNotifications = new ArrayList<>();
-        LocalDateTime now = getCurrentManilaTime();
-
-        userRepository.findByRole("ADMIN").forEach(admin -> {
-            if (shouldReceiveNotification(admin, type)) {
-                Notification notification = new Notification(admin.getId(), type, title, message, relatedEntityId);
-                notification.setCreatedAt(now);
-                bulkNotifications.add(notification);
+    private void broadcastFollowUps(NotificationOutboxEntry entry) {
+        String type = entry.getType();
+        String relatedEntityId = entry.getRelatedEntityId();
+        if (NotificationOutboxEntry.AUDIENCE_STAFF.equals(entry.getAudience())) {
+            // Laundry updates should trigger sync for staff dashboard
+            broadcast(EVENT_LAUNDRY, relatedEntityId, "updated");
+            broadcast(EVENT_TRANSACTION, relatedEntityId, "updated");
+        } else if (type == null) {
+            return;
+        } else if (NotificationOutboxEntry.AUDIENCE_USER.equals(entry.getAudience())) {
+            // If it's a laundry update, also broadcast to sync dashboard
+            if (type.startsWith("load_") || type.equals(NEW_LAUNDRY_SERVICE)) {
+                broadcast(EVENT_LAUNDRY, relatedEntityId, "updated");
+                broadcast(EVENT_TRANSACTION, relatedEntityId, "updated");
             }
-        });
+        } else if (isStockRelatedNotification(type)) {
+            // Also broadcast a general STOCK_UPDATE if it's stock related
+            broadcast(EVENT_STOCK, relatedEntityId, "updated");
+        }
+    }
 
-        if (!bulkNotifications.isEmpty()) {
-            List<Notification> saved = notificationRepository.saveAll(bulkNotifications);
-            // Broadcast to connected admins
-            saved.forEach(notif -> {
-                SseEmitter emitter = emitters.get(notif.getUserId());
-                if (emitter != null) {
-                    try {
-                        // Use a simplified map for transmission to avoid serialization issues
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("id", notif.getId());
-                        data.put("userId", notif.getUserId());
-                        data.put("type", notif.getType());
-                        data.put("title", notif.getTitle());
-                        data.put("message", notif.getMessage());
-                        data.put("read", notif.isRead());
-                        data.put("createdAt", notif.getCreatedAt().toString());
-                        data.put("relatedEntityId", notif.getRelatedEntityId());
-                        
-                                emitter.send(SseEmitter.event().name(EVENT_NOTIFICATION).data(objectMapper.writeValueAsString(data)));
-                    } catch (Exception e) {
-                        System.err.println("❌ Error sending SSE to admin " + notif.getUserId() + ": " + e.getMessage());
-                        emitters.remove(notif.getUserId());
-                    }
-                }
-            });
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
 
-            // Admin updates are usually stock related
-            if (isStockRelatedNotification(type)) {
-                broadcast(EVENT_STOCK, "updated");
-            }
+    private List<User> findAudience(String audience) {
+        switch (audience) {
+            case NotificationOutboxEntry.AUDIENCE_STAFF:
+                return userRepository.findByRole("STAFF");
+            case NotificationOutboxEntry.AUDIENCE_ADMIN:
+                return userRepository.findByRole("ADMIN");
+            default:
+                return userRepository.findAll();
         }
     }
 
+    private static Notification toNotification(NotificationOutboxEntry entry, String userId) {
+        Notification notification = new Notification(userId, entry.getType(), entry.getTitle(), entry.getMessage(),
+                entry.getRelatedEntityId());
+        notification.setId(entry.getId() + ":" + userId);
+        notification.setCreatedAt(entry.getCreatedAt());
+        return notification;
+    }
+
+    // Use a simplified map for transmission to avoid serialization issues
+    private static Map<String, Object> toSsePayload(Notification notification) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", notification.getId());
+        data.put("userId", notification.getUserId());
+        data.put("type", notification.getType());
+        data.put("title", notification.getTitle());
+        data.put("message", notification.getMessage());
+        data.put("read", notification.isRead());
+        data.put("createdAt", notification.getCreatedAt().toString());
+        data.put("relatedEntityId", notification.getRelatedEntityId());
+        return data;
+    }
+
     // Determine if user should receive this notification type
     private boolean shouldReceiveNotification(User user, String notificationType) {
         String userRole = user.getRole();
@@ -700,20 +680,64 @@ public class NotificationService {
     }
 
     public Notification markAsRead(String id) {
-        return notificationRepository.findById(id).map(notification -> {
-            notification.setRead(true);
-            return notificationRepository.save(notification);
-        }).orElse(null);
+        // Only the call that flips it counts it as read
+        Notification updated = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(id).and("read").is(false)),
+                new Update().set("read", true).set("readAt", getCurrentManilaTime()),
+                FindAndModifyOptions.options().returnNew(true),
+                Notification.class);
+        if (updated != null) {
+            adjustUnreadCount(updated.getUserId(), -1);
+            return updated;
+        }
+        return notificationRepository.findById(id).orElse(null);
     }
 
     public void markAllAsRead(String userId) {
         Query query = new Query(Criteria.where("userId").is(userId).and("read").is(false));
-        Update update = new Update().set("read", true);
+        Update update = new Update().set("read", true).set("readAt", getCurrentManilaTime());
         mongoTemplate.updateMulti(query, update, Notification.class);
+        // Recount on next ask rather than zero it: a delivery may have landed since the update
+        unreadCounts.remove(userId);
     }
 
     public long getUnreadCount(String userId) {
-        return notificationRepository.countByUserIdAndRead(userId, false);
+        AtomicLong count = unreadCounts.get(userId);
+        if (count == null) {
+            count = unreadCounts.computeIfAbsent(userId,
+                    id -> new AtomicLong(notificationRepository.countByUserIdAndRead(id, false)));
+        }
+        return Math.max(0, count.get());
+    }
+
+    // Users nobody has asked about yet are counted from Mongo when they are
+    private void adjustUnreadCount(String userId, long delta) {
+        AtomicLong count = userId != null ? unreadCounts.get(userId) : null;
+        if (count != null) {
+            count.addAndGet(delta);
+        }
+    }
+
+    @Scheduled(fixedRate = 600000) // 10 minutes
+    public void resetUnreadCounts() {
+        unreadCounts.clear();
+    }
+
+    // Notifications read before readAt was stamped would never expire; date them by createdAt
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeReadAt() {
+        try {
+            long updated = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("read").is(true).and("readAt").exists(false)),
+                    AggregationUpdate.update().set("readAt").toValueOf(Fields.field("createdAt")),
+                    Notification.class).getModifiedCount();
+            if (updated > 0) {
+                System.out.println("🔔 Stamped readAt on " + updated + " read notifications");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to stamp readAt on read notifications: " + e.getMessage());
+        }
     }
 
     public void printStockStatusTracking() {
@@ -9,16 +9,20 @@ import java.util.Optional;
 @Service
 public class PaymentSettingsService {
     private final PaymentSettingsRepository paymentSettingsRepository;
+    private final ReferenceDataCache referenceDataCache;
 
-    public PaymentSettingsService(PaymentSettingsRepository paymentSettingsRepository) {
+    public PaymentSettingsService(PaymentSettingsRepository paymentSettingsRepository,
+                                  ReferenceDataCache referenceDataCache) {
         this.paymentSettingsRepository = paymentSettingsRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     public PaymentSettings getPaymentSettings() {
-        Optional<PaymentSettings> settings = paymentSettingsRepository.findById("default");
+        Optional<PaymentSettings> settings = referenceDataCache.getPaymentSettings();
         return settings.orElseGet(() -> {
-            PaymentSettings defaultSettings = new PaymentSettings("default", true);
-            return paymentSettingsRepository.save(defaultSettings);
+            PaymentSettings defaultSettings = paymentSettingsRepository.save(new PaymentSettings("default", true));
+            referenceDataCache.refresh();
+            return defaultSettings;
         });
     }
 
@@ -0,0 +1,83 @@
+package com.starwash.authservice.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for newest-first listings: (sort date, _id) of the last row a client saw.
+ * The next page is "everything strictly after that row" in (date desc, _id desc) order, so page N
+ * is one index range scan - same cost as page 1, no skip and no count.
+ */
+public class RecordCursor {
+
+    private final String field;
+    private final LocalDateTime value; // null for documents missing the date (they sort last)
+    private final ObjectId id;
+
+    public RecordCursor(String field, LocalDateTime value, String id) {
+        if (id == null || !ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Invalid cursor id: " + id);
+        }
+        this.field = field;
+        this.value = value;
+        this.id = new ObjectId(id);
+    }
+
+    public String encode() {
+        String raw = field + "|" + (value != null ? value.toString() : "") + "|" + id.toHexString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a cursor and checks it was issued for the same sort field. Returns null for a blank cursor. */
+    public static RecordCursor decode(String token, String expectedField) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(expectedField)) {
+                throw new IllegalArgumentException("Cursor does not match this listing");
+            }
+            LocalDateTime value = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new RecordCursor(parts[0], value, parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Rows strictly after this cursor in (field desc, _id desc) order; null dates come last. */
+    public Criteria afterCriteria() {
+        if (value == null) {
+            return new Criteria().andOperator(
+                    Criteria.where(field).is(null),
+                    Criteria.where("_id").lt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).lt(value),
+                new Criteria().andOperator(Criteria.where(field).is(value), Criteria.where("_id").lt(id)),
+                Criteria.where(field).is(null));
+    }
+
+    /**
+     * Newest-first keyset query: filter + (optional) cursor, sorted on (field, _id) and limited
+     * to size + 1 so the caller can tell whether another page exists without counting.
+     */
+    public static Query pageQuery(Criteria filter, RecordCursor after, String field, int size) {
+        Criteria criteria = filter != null ? filter : new Criteria();
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, after.afterCriteria());
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Order.desc(field), Sort.Order.desc("_id")))
+                .limit(size + 1);
+    }
+}
@@ -0,0 +1,155 @@
+package com.starwash.authservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starwash.authservice.dto.RecordResponseDto;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.Transaction;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Streams transaction records straight to an OutputStream as NDJSON or CSV.
+ * Transactions come off a Mongo cursor and laundry-job state is joined one fixed-size batch
+ * at a time, so memory stays at one batch regardless of how much history is exported.
+ */
+@Service
+public class RecordExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String[] CSV_COLUMNS = {
+            "invoiceNumber", "customerName", "contact", "serviceName", "loads", "detergent", "fabric",
+            "totalPrice", "paymentMethod", "pickupStatus", "expired", "disposed", "issueDate", "createdAt"
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+
+    public RecordExportService(MongoTemplate mongoTemplate, TransactionService transactionService,
+            ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every transaction created in [from, to) (either bound optional) in createdAt order.
+     *
+     * @return number of records written
+     */
+    public long export(OutputStream out, String format, LocalDateTime from, LocalDateTime to) throws IOException {
+        long startTime = System.currentTimeMillis();
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+
+        Criteria criteria = new Criteria();
+        if (from != null && to != null) {
+            criteria = Criteria.where("createdAt").gte(from).lt(to);
+        } else if (from != null) {
+            criteria = Criteria.where("createdAt").gte(from);
+        } else if (to != null) {
+            criteria = Criteria.where("createdAt").lt(to);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")));
+        query.cursorBatchSize(BATCH_SIZE);
+
+        if (csv) {
+            out.write((String.join(",", CSV_COLUMNS) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        LocalDateTime now = ManilaTimeUtil.now();
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        long written = 0;
+
+        try (Stream<Transaction> stream = mongoTemplate.stream(query, Transaction.class)) {
+            Iterator<Transaction> it = stream.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == BATCH_SIZE) {
+                    written += writeBatch(out, batch, csv, now);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                written += writeBatch(out, batch, csv, now);
+            }
+        }
+        out.flush();
+
+        System.out.println("📤 Exported " + written + " records as " + (csv ? FORMAT_CSV : FORMAT_NDJSON)
+                + " in " + (System.currentTimeMillis() - startTime) + "ms");
+        return written;
+    }
+
+    private int writeBatch(OutputStream out, List<Transaction> batch, boolean csv, LocalDateTime now)
+            throws IOException {
+        Map<String, LaundryJob> jobs = findJobStates(batch);
+
+        for (Transaction tx : batch) {
+            RecordResponseDto dto = transactionService.buildRecordDto(tx, jobs.get(tx.getInvoiceNumber()), now);
+            if (csv) {
+                out.write(toCsvRow(dto).getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            }
+        }
+        out.flush(); // push each batch to the client instead of buffering the whole export
+        return batch.size();
+    }
+
+    // Only the job fields the export shows, for just this batch of invoices
+    private Map<String, LaundryJob> findJobStates(List<Transaction> batch) {
+        List<String> invoiceNumbers = new ArrayList<>(batch.size());
+        batch.forEach(tx -> invoiceNumbers.add(tx.getInvoiceNumber()));
+
+        Query query = new Query(Criteria.where("transactionId").in(invoiceNumbers));
+        query.fields().include("transactionId", "pickupStatus", "expired", "disposed");
+
+        Map<String, LaundryJob> byInvoice = new HashMap<>();
+        mongoTemplate.find(query, LaundryJob.class)
+                .forEach(job -> byInvoice.putIfAbsent(job.getTransactionId(), job));
+        return byInvoice;
+    }
+
+    private String toCsvRow(RecordResponseDto dto) {
+        Object[] values = {
+                dto.getInvoiceNumber(), dto.getCustomerName(), dto.getContact(), dto.getServiceName(),
+                dto.getLoads(), dto.getDetergent(), dto.getFabric(), dto.getTotalPrice(), dto.getPaymentMethod(),
+                dto.getPickupStatus(), dto.isExpired(), dto.isDisposed(), dto.getIssueDate(), dto.getCreatedAt()
+        };
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append(csvEscape(values[i]));
+        }
+        return row.append('\n').toString();
+    }
+
+    private String csvEscape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
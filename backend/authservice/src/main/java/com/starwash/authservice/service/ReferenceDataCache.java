@@ -0,0 +1,191 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.*;
+import com.starwash.authservice.repository.*;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * In-process snapshot of rarely-changing reference data: receipt format settings, services,
+ * the stock catalog, payment settings and machine definitions. Readers grab the current
+ * snapshot with one volatile read; writers rebuild a new snapshot and swap it in atomically.
+ *
+ * Objects handed out are shared - treat them as read-only. Stock quantities and machine
+ * statuses in the snapshot are NOT live; only names, prices, types and capacities are.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final FormatSettingsRepository formatSettingsRepository;
+    private final ServiceRepository serviceRepository;
+    private final StockRepository stockRepository;
+    private final PaymentSettingsRepository paymentSettingsRepository;
+    private final MachineRepository machineRepository;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile long lastRefreshMs;
+
+    public ReferenceDataCache(FormatSettingsRepository formatSettingsRepository,
+            ServiceRepository serviceRepository,
+            StockRepository stockRepository,
+            PaymentSettingsRepository paymentSettingsRepository,
+            MachineRepository machineRepository) {
+        this.formatSettingsRepository = formatSettingsRepository;
+        this.serviceRepository = serviceRepository;
+        this.stockRepository = stockRepository;
+        this.paymentSettingsRepository = paymentSettingsRepository;
+        this.machineRepository = machineRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("❌ Reference data warm-up failed: " + e.getMessage());
+        }
+    }
+
+    // Safety net for writes made by another instance or directly in the database
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public void periodicRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("❌ Reference data refresh failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads everything and swaps the snapshot in one step. Call after any reference-data write.
+     * Serialized so a slow reload that read before a write can't swap in after a newer one.
+     */
+    public synchronized void refresh() {
+        long startTime = System.currentTimeMillis();
+
+        Snapshot snapshot = new Snapshot(
+                formatSettingsRepository.findTopByOrderByIdDesc().orElse(null),
+                serviceRepository.findAll(),
+                stockRepository.findAll(),
+                paymentSettingsRepository.findById("default").orElse(null),
+                machineRepository.findAll());
+        current.set(snapshot);
+
+        refreshes.incrementAndGet();
+        lastRefreshMs = System.currentTimeMillis() - startTime;
+        System.out.println("🗂️ Reference data refreshed in " + lastRefreshMs + "ms ("
+                + snapshot.servicesById.size() + " services, " + snapshot.stockCatalog.size() + " stock items, "
+                + snapshot.machines.size() + " machines)");
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            synchronized (this) {
+                if (current.get() == null) {
+                    refresh();
+                }
+            }
+            snapshot = current.get();
+        } else {
+            hits.incrementAndGet();
+        }
+        return snapshot;
+    }
+
+    public Optional<FormatSettings> getFormatSettings() {
+        return Optional.ofNullable(snapshot().formatSettings);
+    }
+
+    public Optional<ServiceItem> getService(String id) {
+        return Optional.ofNullable(snapshot().servicesById.get(id));
+    }
+
+    public Optional<ServiceItem> findServiceByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot().servicesByName.get(name.trim().toLowerCase()));
+    }
+
+    public List<StockItem> getStockCatalog() {
+        return snapshot().stockCatalog;
+    }
+
+    // First stock item of a category (e.g. the plastic bag item used for auto-plastic)
+    public Optional<StockItem> findStockItem(ConsumableCategory category) {
+        return Optional.ofNullable(snapshot().firstStockByCategory.get(category));
+    }
+
+    public Optional<PaymentSettings> getPaymentSettings() {
+        return Optional.ofNullable(snapshot().paymentSettings);
+    }
+
+    public List<MachineItem> getMachines() {
+        return snapshot().machines;
+    }
+
+    public List<MachineItem> getMachinesByType(String type) {
+        return snapshot().machines.stream()
+                .filter(m -> Objects.equals(type, m.getType()))
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getMetrics() {
+        Snapshot snapshot = current.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.get());
+        metrics.put("refreshes", refreshes.get());
+        metrics.put("lastRefreshMs", lastRefreshMs);
+        metrics.put("loadedAt", snapshot != null ? snapshot.loadedAt : null);
+        metrics.put("services", snapshot != null ? snapshot.servicesById.size() : 0);
+        metrics.put("stockItems", snapshot != null ? snapshot.stockCatalog.size() : 0);
+        metrics.put("machines", snapshot != null ? snapshot.machines.size() : 0);
+        return metrics;
+    }
+
+    private static final class Snapshot {
+        final FormatSettings formatSettings;
+        final Map<String, ServiceItem> servicesById;
+        final Map<String, ServiceItem> servicesByName;
+        final List<StockItem> stockCatalog;
+        final Map<ConsumableCategory, StockItem> firstStockByCategory;
+        final PaymentSettings paymentSettings;
+        final List<MachineItem> machines;
+        final LocalDateTime loadedAt;
+
+        Snapshot(FormatSettings formatSettings, List<ServiceItem> services, List<StockItem> stock,
+                PaymentSettings paymentSettings, List<MachineItem> machines) {
+            this.formatSettings = formatSettings;
+
+            Map<String, ServiceItem> byId = new HashMap<>();
+            services.forEach(s -> byId.put(s.getId(), s));
+            this.servicesById = Collections.unmodifiableMap(byId);
+            Map<String, ServiceItem> byName = new HashMap<>();
+            services.stream().filter(s -> s.getName() != null)
+                    .forEach(s -> byName.putIfAbsent(s.getName().trim().toLowerCase(), s));
+            this.servicesByName = Collections.unmodifiableMap(byName);
+
+            this.stockCatalog = Collections.unmodifiableList(new ArrayList<>(stock));
+            Map<ConsumableCategory, StockItem> byCategory = new EnumMap<>(ConsumableCategory.class);
+            stock.forEach(item -> byCategory.putIfAbsent(ConsumableCategory.fromName(item.getName()), item));
+            this.firstStockByCategory = Collections.unmodifiableMap(byCategory);
+
+            this.paymentSettings = paymentSettings;
+            this.machines = Collections.unmodifiableList(new ArrayList<>(machines));
+            this.loadedAt = ManilaTimeUtil.now();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.starwash.authservice.service;
 
+import com.starwash.authservice.model.SalesRollup;
 import com.starwash.authservice.model.Transaction;
 import com.starwash.authservice.repository.TransactionRepository;
 import com.starwash.authservice.security.ManilaTimeUtil;
@@ -9,16 +10,17 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ReportService {
 
     private final TransactionRepository transactionRepository;
+    private final SalesRollupService salesRollupService;
 
-    public ReportService(TransactionRepository transactionRepository) {
+    public ReportService(TransactionRepository transactionRepository, SalesRollupService salesRollupService) {
         this.transactionRepository = transactionRepository;
+        this.salesRollupService = salesRollupService;
     }
 
     public Map<String, Object> generateSalesReport(String dateRange, LocalDate startDate, LocalDate endDate,
@@ -30,22 +32,24 @@ public class ReportService {
         LocalDate reportStartDate = dates[0];
         LocalDate reportEndDate = dates[1];
 
+        // Totals come from the pre-aggregated sales_rollups (one row per day and service)
+        List<SalesRollup> rollups = salesRollupService.getRollups(reportStartDate, reportEndDate, serviceType);
+
         // Convert to Manila time for database queries
         LocalDateTime manilaStart = reportStartDate.atStartOfDay();
         LocalDateTime manilaEnd = reportEndDate.plusDays(1).atStartOfDay();
 
-        List<Transaction> transactions = transactionRepository.findByCreatedAtBetween(manilaStart, manilaEnd);
-
-        if (serviceType != null && !"all".equals(serviceType)) {
-            transactions = transactions.stream()
-                    .filter(t -> serviceType.equals(t.getServiceName()))
-                    .collect(Collectors.toList());
-        }
+        // Only the latest transaction per customer is read from the transactions collection
+        List<Transaction> latestPerCustomer = (serviceType != null && !"all".equals(serviceType))
+                ? transactionRepository.findLatestPerCustomerByCreatedAtBetweenAndServiceName(manilaStart, manilaEnd,
+                        serviceType)
+                : transactionRepository.findLatestPerCustomerByCreatedAtBetween(manilaStart, manilaEnd);
 
-        List<Map<String, Object>> salesTrend = generateSalesTrend(transactions, reportStartDate, reportEndDate, dateRange);
-        List<Map<String, Object>> serviceDistribution = generateServiceDistribution(transactions);
-        Map<String, Object> summary = generateSummary(transactions, reportStartDate, reportEndDate);
-        List<Map<String, Object>> uniqueCustomerTransactions = getUniqueCustomerTransactions(transactions);
+        List<Map<String, Object>> salesTrend = generateSalesTrend(rollups, reportStartDate, reportEndDate, dateRange);
+        List<Map<String, Object>> serviceDistribution = generateServiceDistribution(rollups);
+        Map<String, Object> summary = generateSummary(rollups, latestPerCustomer.size(), reportStartDate,
+                reportEndDate, serviceType);
+        List<Map<String, Object>> uniqueCustomerTransactions = getUniqueCustomerTransactions(latestPerCustomer);
 
         reportData.put("salesTrend", salesTrend);
         reportData.put("serviceDistribution", serviceDistribution);
@@ -55,6 +59,10 @@ public class ReportService {
         return reportData;
     }
 
+    public Map<String, Object> rebuildSalesRollups() {
+        return salesRollupService.rebuildAll();
+    }
+
     private LocalDate[] calculateDateRange(String dateRange, LocalDate startDate, LocalDate endDate) {
         // Use Manila time for "today" - THIS IS THE KEY FIX
         LocalDate today = ManilaTimeUtil.now().toLocalDate();
@@ -93,61 +101,42 @@ public class ReportService {
         }
     }
 
-    private List<Map<String, Object>> generateSalesTrend(List<Transaction> transactions, LocalDate startDate,
+    private List<Map<String, Object>> generateSalesTrend(List<SalesRollup> rollups, LocalDate startDate,
             LocalDate endDate, String dateRange) {
-        
+
         if ("year".equals(dateRange)) {
             Map<String, Double> monthlySales = new LinkedHashMap<>();
-            
-            String[] monthAbbreviations = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", 
+
+            String[] monthAbbreviations = {"Jan", "Feb", "Mar", "Apr", "May", "Jun",
                                          "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
             for (String month : monthAbbreviations) {
                 monthlySales.put(month, 0.0);
             }
-            
-            transactions.forEach(transaction -> {
-                LocalDate transactionDate = transaction.getCreatedAt().toLocalDate();
-                String monthKey = transactionDate.format(DateTimeFormatter.ofPattern("MMM"));
-                double currentTotal = monthlySales.getOrDefault(monthKey, 0.0);
-                monthlySales.put(monthKey, currentTotal + transaction.getTotalPrice());
+
+            rollups.forEach(rollup -> {
+                String monthKey = LocalDate.parse(rollup.getDay()).format(DateTimeFormatter.ofPattern("MMM"));
+                monthlySales.merge(monthKey, rollup.getIncome(), Double::sum);
             });
-            
-            return monthlySales.entrySet().stream()
-                    .map(entry -> {
-                        Map<String, Object> dataPoint = new HashMap<>();
-                        dataPoint.put("period", entry.getKey());
-                        dataPoint.put("sales", entry.getValue());
-                        return dataPoint;
-                    })
-                    .collect(Collectors.toList());
+
+            return toTrendPoints(monthlySales);
         }
         else if ("all".equals(dateRange)) {
             Map<String, Double> yearlySales = new LinkedHashMap<>();
-            
-            int currentYear = LocalDate.now().getYear();
-            int minYear = transactions.stream()
-                .mapToInt(t -> t.getCreatedAt().getYear())
+
+            int currentYear = ManilaTimeUtil.now().getYear();
+            int minYear = rollups.stream()
+                .mapToInt(SalesRollup::getYear)
                 .min()
                 .orElse(currentYear);
-                
+
             for (int y = minYear; y <= currentYear; y++) {
                 yearlySales.put(String.valueOf(y), 0.0);
             }
-            
-            transactions.forEach(transaction -> {
-                String yearKey = String.valueOf(transaction.getCreatedAt().getYear());
-                double currentTotal = yearlySales.getOrDefault(yearKey, 0.0);
-                yearlySales.put(yearKey, currentTotal + transaction.getTotalPrice());
-            });
-            
-            return yearlySales.entrySet().stream()
-                    .map(entry -> {
-                        Map<String, Object> dataPoint = new HashMap<>();
-                        dataPoint.put("period", entry.getKey());
-                        dataPoint.put("sales", entry.getValue());
-                        return dataPoint;
-                    })
-                    .collect(Collectors.toList());
+
+            rollups.forEach(rollup -> yearlySales.merge(String.valueOf(rollup.getYear()), rollup.getIncome(),
+                    Double::sum));
+
+            return toTrendPoints(yearlySales);
         }
         else {
             Map<String, Double> dailySales = new LinkedHashMap<>();
@@ -158,28 +147,31 @@ public class ReportService {
                 currentDate = currentDate.plusDays(1);
             }
 
-            transactions.forEach(transaction -> {
-                String dateKey = transaction.getCreatedAt().toLocalDate().format(DateTimeFormatter.ofPattern("MMM dd"));
-                double currentTotal = dailySales.getOrDefault(dateKey, 0.0);
-                dailySales.put(dateKey, currentTotal + transaction.getTotalPrice());
+            rollups.forEach(rollup -> {
+                String dateKey = LocalDate.parse(rollup.getDay()).format(DateTimeFormatter.ofPattern("MMM dd"));
+                dailySales.merge(dateKey, rollup.getIncome(), Double::sum);
             });
 
-            return dailySales.entrySet().stream()
-                    .map(entry -> {
-                        Map<String, Object> dataPoint = new HashMap<>();
-                        dataPoint.put("period", entry.getKey());
-                        dataPoint.put("sales", entry.getValue());
-                        return dataPoint;
-                    })
-                    .collect(Collectors.toList());
+            return toTrendPoints(dailySales);
         }
     }
 
-    private List<Map<String, Object>> generateServiceDistribution(List<Transaction> transactions) {
-        Map<String, Long> serviceCounts = transactions.stream()
+    private List<Map<String, Object>> toTrendPoints(Map<String, Double> sales) {
+        return sales.entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> dataPoint = new HashMap<>();
+                    dataPoint.put("period", entry.getKey());
+                    dataPoint.put("sales", entry.getValue());
+                    return dataPoint;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<Map<String, Object>> generateServiceDistribution(List<SalesRollup> rollups) {
+        Map<String, Long> serviceCounts = rollups.stream()
                 .collect(Collectors.groupingBy(
-                        Transaction::getServiceName,
-                        Collectors.counting()));
+                        SalesRollup::getServiceName,
+                        Collectors.summingLong(SalesRollup::getTransactionCount)));
 
         return serviceCounts.entrySet().stream()
                 .map(entry -> {
@@ -191,23 +183,20 @@ public class ReportService {
                 .collect(Collectors.toList());
     }
 
-    private Map<String, Object> generateSummary(List<Transaction> transactions, LocalDate startDate,
-            LocalDate endDate) {
+    private Map<String, Object> generateSummary(List<SalesRollup> rollups, long totalCustomers, LocalDate startDate,
+            LocalDate endDate, String serviceType) {
         Map<String, Object> summary = new HashMap<>();
-        double totalSales = transactions.stream()
-                .mapToDouble(Transaction::getTotalPrice)
+        double totalSales = rollups.stream()
+                .mapToDouble(SalesRollup::getIncome)
                 .sum();
 
-        long totalTransactions = transactions.size();
-
-        long totalLoads = transactions.stream()
-                .mapToLong(Transaction::getServiceQuantity)
+        long totalTransactions = rollups.stream()
+                .mapToLong(SalesRollup::getTransactionCount)
                 .sum();
 
-        long totalCustomers = transactions.stream()
-                .map(Transaction::getCustomerName)
-                .distinct()
-                .count();
+        long totalLoads = rollups.stream()
+                .mapToLong(SalesRollup::getLoads)
+                .sum();
 
         double averageOrderValue = totalTransactions > 0 ? totalSales / totalTransactions : 0;
 
@@ -215,12 +204,8 @@ public class ReportService {
         LocalDate previousStartDate = startDate.minusDays(daysBetween);
         LocalDate previousEndDate = endDate.minusDays(daysBetween);
 
-        List<Transaction> previousTransactions = transactionRepository.findByCreatedAtBetween(
-                previousStartDate.atStartOfDay(),
-                previousEndDate.plusDays(1).atStartOfDay());
-
-        double previousSales = previousTransactions.stream()
-                .mapToDouble(Transaction::getTotalPrice)
+        double previousSales = salesRollupService.getRollups(previousStartDate, previousEndDate, serviceType).stream()
+                .mapToDouble(SalesRollup::getIncome)
                 .sum();
 
         double growthPercentage = previousSales > 0 ? ((totalSales - previousSales) / previousSales) * 100 : 0;
@@ -237,17 +222,9 @@ public class ReportService {
         return summary;
     }
 
-    private List<Map<String, Object>> getUniqueCustomerTransactions(List<Transaction> transactions) {
-        Map<String, Transaction> latestTransactionsByCustomer = transactions.stream()
-                .collect(Collectors.toMap(
-                        Transaction::getCustomerName,
-                        Function.identity(),
-                        (existing, replacement) -> replacement.getCreatedAt().isAfter(existing.getCreatedAt())
-                                ? replacement
-                                : existing));
-
-        return latestTransactionsByCustomer.values().stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
+    // Input is already one (latest) transaction per customer, newest first
+    private List<Map<String, Object>> getUniqueCustomerTransactions(List<Transaction> latestPerCustomer) {
+        return latestPerCustomer.stream()
                 .map(transaction -> {
                     Map<String, Object> transactionData = new HashMap<>();
                     transactionData.put("id", transaction.getId());
@@ -259,4 +236,4 @@ public class ReportService {
                 })
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
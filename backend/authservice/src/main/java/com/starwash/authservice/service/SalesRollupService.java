@@ -0,0 +1,230 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.SalesRollup;
+import com.starwash.authservice.model.Transaction;
+import com.starwash.authservice.repository.SalesRollupRepository;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class SalesRollupService {
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository, MongoTemplate mongoTemplate) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Day a transaction is reported under - same createdAt-based bucketing the reports always used
+    public static LocalDate rollupDay(Transaction tx) {
+        LocalDateTime when = tx.getCreatedAt() != null ? tx.getCreatedAt() : tx.getIssueDate();
+        return when != null ? when.toLocalDate() : ManilaTimeUtil.now().toLocalDate();
+    }
+
+    /**
+     * Adds one transaction to its day/service rollup row with a single upsert + $inc,
+     * so concurrent invoices never lose an update.
+     */
+    public void recordTransaction(Transaction tx) {
+        String day = rollupDay(tx).toString();
+        String serviceName = tx.getServiceName() != null ? tx.getServiceName() : "Unknown";
+        SalesRollup seed = new SalesRollup(day, serviceName);
+
+        Query query = new Query(Criteria.where("_id").is(seed.getId()));
+        Update update = new Update()
+                .setOnInsert("day", seed.getDay())
+                .setOnInsert("month", seed.getMonth())
+                .setOnInsert("year", seed.getYear())
+                .setOnInsert("serviceName", serviceName)
+                .inc("income", tx.getTotalPrice() != null ? tx.getTotalPrice() : 0.0)
+                .inc("loads", tx.getServiceQuantity() != null ? tx.getServiceQuantity() : 0)
+                .inc("transactionCount", 1)
+                .inc("detergentCount", tx.getDetergentQty())
+                .inc("fabricCount", tx.getFabricQty())
+                .inc("plasticCount", tx.getPlasticQty())
+                .set("lastUpdated", ManilaTimeUtil.now());
+
+        try {
+            mongoTemplate.upsert(query, update, SalesRollup.class);
+        } catch (DuplicateKeyException e) {
+            // Two first-of-the-day upserts raced on the same _id; the row exists now, so retry as an update
+            mongoTemplate.upsert(query, update, SalesRollup.class);
+        }
+    }
+
+    public List<SalesRollup> getRollups(LocalDate from, LocalDate to, String serviceName) {
+        if (serviceName != null && !"all".equals(serviceName)) {
+            return salesRollupRepository.findByDayRangeAndServiceName(from.toString(), to.toString(), serviceName);
+        }
+        return salesRollupRepository.findByDayRange(from.toString(), to.toString());
+    }
+
+    public List<SalesRollup> getRollupsForYear(int year) {
+        return salesRollupRepository.findByYear(year);
+    }
+
+    /**
+     * Recomputes every rollup row from the transactions collection.
+     * Transactions are streamed with a cursor; only the (day, service) totals are held in memory.
+     *
+     * Rows are corrected in place, never dropped and reloaded, so reports keep working throughout.
+     * Existing rows are snapshotted first and each write is fenced on the snapshot's lastUpdated:
+     * a row that recordTransaction touched while the rebuild ran keeps its live totals (reported as
+     * skipped) instead of being overwritten. Rows whose day/service has no transactions left are removed.
+     */
+    public Map<String, Object> rebuildAll() {
+        long startTime = System.currentTimeMillis();
+
+        Query snapshotQuery = new Query();
+        snapshotQuery.fields().include("_id", "lastUpdated");
+        Map<String, LocalDateTime> before = new HashMap<>();
+        mongoTemplate.find(snapshotQuery, SalesRollup.class).forEach(r -> before.put(r.getId(), r.getLastUpdated()));
+
+        Map<String, SalesRollup> rollups = new HashMap<>();
+        long scanned = 0;
+        try (Stream<Transaction> stream = mongoTemplate.stream(new Query(), Transaction.class)) {
+            Iterator<Transaction> it = stream.iterator();
+            while (it.hasNext()) {
+                Transaction tx = it.next();
+                tx.tallyConsumables(); // rows not yet migrated have no stored category totals
+                accumulate(rollups, tx);
+                scanned++;
+            }
+        }
+
+        LocalDateTime now = ManilaTimeUtil.now();
+        List<SalesRollup> created = new ArrayList<>();
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+        int updateCount = 0;
+        for (SalesRollup rollup : rollups.values()) {
+            rollup.setLastUpdated(now);
+            if (!before.containsKey(rollup.getId())) {
+                created.add(rollup);
+                continue;
+            }
+            updates.updateOne(unchangedSince(rollup.getId(), before.get(rollup.getId())), new Update()
+                    .set("income", rollup.getIncome())
+                    .set("loads", rollup.getLoads())
+                    .set("transactionCount", rollup.getTransactionCount())
+                    .set("detergentCount", rollup.getDetergentCount())
+                    .set("fabricCount", rollup.getFabricCount())
+                    .set("plasticCount", rollup.getPlasticCount())
+                    .set("lastUpdated", now));
+            updateCount++;
+        }
+        long skipped = 0;
+        if (updateCount > 0) {
+            skipped += updateCount - updates.execute().getMatchedCount();
+        }
+        if (!created.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class).insert(created).execute();
+            } catch (BulkOperationException e) {
+                // Created by recordTransaction since the snapshot; theirs is the live row
+                skipped += e.getErrors().size();
+            }
+        }
+
+        long removed = 0;
+        for (Map.Entry<String, LocalDateTime> row : before.entrySet()) {
+            if (!rollups.containsKey(row.getKey())) {
+                removed += mongoTemplate.remove(unchangedSince(row.getKey(), row.getValue()), SalesRollup.class)
+                        .getDeletedCount();
+            }
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        System.out.println("📊 Sales rollups rebuilt: " + rollups.size() + " rows from " + scanned
+                + " transactions in " + duration + "ms (" + skipped + " changed meanwhile, " + removed + " removed)");
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("transactionsScanned", scanned);
+        result.put("rollupRows", rollups.size());
+        result.put("skippedRows", skipped);
+        result.put("removedRows", removed);
+        result.put("durationMs", duration);
+        return result;
+    }
+
+    // Matches the row only while its lastUpdated is still the one in the snapshot
+    private static Query unchangedSince(String id, LocalDateTime lastUpdated) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        return new Query(lastUpdated != null
+                ? criteria.and("lastUpdated").is(lastUpdated)
+                : criteria.and("lastUpdated").exists(false));
+    }
+
+    /**
+     * Adds a batch of transactions (e.g. a bulk import) with one upsert per (day, service) row
+     * instead of one per transaction.
+     */
+    public int recordTransactions(Collection<Transaction> transactions) {
+        Map<String, SalesRollup> deltas = new HashMap<>();
+        transactions.forEach(tx -> accumulate(deltas, tx));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = ManilaTimeUtil.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+        for (SalesRollup delta : deltas.values()) {
+            bulk.upsert(new Query(Criteria.where("_id").is(delta.getId())), new Update()
+                    .setOnInsert("day", delta.getDay())
+                    .setOnInsert("month", delta.getMonth())
+                    .setOnInsert("year", delta.getYear())
+                    .setOnInsert("serviceName", delta.getServiceName())
+                    .inc("income", delta.getIncome())
+                    .inc("loads", delta.getLoads())
+                    .inc("transactionCount", delta.getTransactionCount())
+                    .inc("detergentCount", delta.getDetergentCount())
+                    .inc("fabricCount", delta.getFabricCount())
+                    .inc("plasticCount", delta.getPlasticCount())
+                    .set("lastUpdated", now));
+        }
+        bulk.execute();
+        return deltas.size();
+    }
+
+    private void accumulate(Map<String, SalesRollup> rollups, Transaction tx) {
+        String day = rollupDay(tx).toString();
+        String serviceName = tx.getServiceName() != null ? tx.getServiceName() : "Unknown";
+
+        SalesRollup rollup = rollups.computeIfAbsent(SalesRollup.buildId(day, serviceName),
+                id -> new SalesRollup(day, serviceName));
+        rollup.setIncome(rollup.getIncome() + (tx.getTotalPrice() != null ? tx.getTotalPrice() : 0.0));
+        rollup.setLoads(rollup.getLoads() + (tx.getServiceQuantity() != null ? tx.getServiceQuantity() : 0));
+        rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+        rollup.setDetergentCount(rollup.getDetergentCount() + tx.getDetergentQty());
+        rollup.setFabricCount(rollup.getFabricCount() + tx.getFabricQty());
+        rollup.setPlasticCount(rollup.getPlasticCount() + tx.getPlasticQty());
+    }
+
+    // Backfill once on a fresh database so reports work without a manual rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (salesRollupRepository.count() == 0 && mongoTemplate.count(new Query(), Transaction.class) > 0) {
+                System.out.println("📊 sales_rollups is empty - backfilling from transactions...");
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Sales rollup backfill failed: " + e.getMessage());
+        }
+    }
+}
@@ -41,8 +41,8 @@ public class SmsService {
         sendSms(phoneNumber, message);
     }
     
-    // Updated disposal warning method to include address
-    public void sendDisposalWarningNotification(String phoneNumber, String customerName, 
+    // Updated disposal warning method to include address; returns false if the SMS server didn't take it
+    public boolean sendDisposalWarningNotification(String phoneNumber, String customerName, 
                                               String transactionId, int daysUntilDisposal) {
         String message;
         
@@ -73,10 +73,10 @@ public class SmsService {
         System.out.println("📍 Address: " + LAUNDRY_ADDRESS);
         System.out.println("📅 Days until disposal: " + daysUntilDisposal);
         
-        sendSms(phoneNumber, message);
+        return sendSms(phoneNumber, message);
     }
     
-    private void sendSms(String phoneNumber, String message) {
+    private boolean sendSms(String phoneNumber, String message) {
         Map<String, String> request = new HashMap<>();
         request.put("phone", phoneNumber);
         request.put("message", message);
@@ -92,10 +92,12 @@ public class SmsService {
             
             System.out.println("✅ SMS Server Response Status: " + response.getStatusCode());
             System.out.println("✅ SMS Server Response Body: " + response.getBody());
+            return response.getStatusCode().is2xxSuccessful();
             
         } catch (Exception e) {
             System.err.println("❌ Failed to send SMS: " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+package com.starwash.authservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out for the /notifications/stream connections.
+ *
+ * Senders only drop events into each connection's bounded queue and return; one virtual thread
+ * per connection writes them out, so a stalled browser tab slows down nobody but itself. A user
+ * may have any number of connections (tabs, tablets) open at once. When a queue is full the
+ * overflow policy applies: "drop-oldest" throws away the oldest queued event (and closes the
+ * connection once it has lost a whole queue's worth without a successful write), "close" closes
+ * the connection at once so the client reconnects and reloads.
+ *
+ * Broadcasts and per-user events get a monotonic event ID and are kept in a bounded replay ring.
+ * A client reconnecting with Last-Event-ID gets just the events it missed (its own and broadcasts),
+ * or a single RESYNC event when the gap has already left the ring. IDs start from the boot
+ * time in milliseconds, so an ID from before a restart always reads as a gap.
+ */
+@Service
+public class SseHub {
+
+    public static final String POLICY_DROP_OLDEST = "drop-oldest";
+    public static final String POLICY_CLOSE = "close";
+
+    public static final String EVENT_RESYNC = "RESYNC";
+
+    private static final Event HEARTBEAT = new Event(0, null, "heartbeat", "ping");
+
+    private final int queueCapacity;
+    private final boolean closeOnOverflow;
+
+    // Guards lastEventId and the ring, and makes stamping + fan-out one step, so every connection
+    // sees events in ID order and a reconnect can't fall between its replay and live events
+    private final Object lock = new Object();
+    private final Event[] ring;
+    private long lastEventId = System.currentTimeMillis();
+
+    private final Map<Long, Connection> connections = new ConcurrentHashMap<>();
+    // userId -> that user's open connections
+    private final Map<String, Set<Connection>> byUser = new ConcurrentHashMap<>();
+    private final AtomicLong nextConnectionId = new AtomicLong();
+
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong eventsDropped = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public SseHub(@Value("${app.sse.queue-capacity:256}") int queueCapacity,
+            @Value("${app.sse.overflow-policy:drop-oldest}") String overflowPolicy,
+            @Value("${app.sse.replay-capacity:1024}") int replayCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("app.sse.queue-capacity must be positive");
+        }
+        if (replayCapacity <= 0) {
+            throw new IllegalArgumentException("app.sse.replay-capacity must be positive");
+        }
+        if (!POLICY_DROP_OLDEST.equals(overflowPolicy) && !POLICY_CLOSE.equals(overflowPolicy)) {
+            throw new IllegalArgumentException("Unknown app.sse.overflow-policy: " + overflowPolicy);
+        }
+        this.queueCapacity = queueCapacity;
+        this.closeOnOverflow = POLICY_CLOSE.equals(overflowPolicy);
+        this.ring = new Event[replayCapacity];
+    }
+
+    /**
+     * Opens a connection for the user (null/empty = anonymous) and queues the INIT event, followed
+     * by whatever the client missed since {@code lastEventId} (null = fresh connection).
+     */
+    public SseEmitter connect(String userId, String lastEventId) {
+        String owner = userId != null && !userId.isEmpty() ? userId : null;
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        Connection connection = new Connection(nextConnectionId.incrementAndGet(), owner, emitter,
+                new ArrayBlockingQueue<>(queueCapacity));
+
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+
+        connection.writer = Thread.ofVirtual()
+                .name("sse-writer-" + connection.id)
+                .start(() -> drain(connection));
+
+        synchronized (lock) {
+            enqueue(connection, new Event(0, null, "INIT", "Connected"));
+            replay(connection, lastEventId);
+            if (!connection.closed) { // the client may already be gone
+                connections.put(connection.id, connection);
+                if (owner != null) {
+                    byUser.computeIfAbsent(owner, k -> ConcurrentHashMap.newKeySet()).add(connection);
+                }
+            }
+        }
+
+        System.out.println("🔌 " + (owner != null ? "User " + owner : "Anonymous user") + " subscribed to SSE ("
+                + connections.size() + " connections open)");
+        return emitter;
+    }
+
+    /** Queues an event for every open connection. Never blocks. */
+    public int broadcast(String eventName, Object data) {
+        synchronized (lock) {
+            Event event = record(null, eventName, data);
+            int count = 0;
+            for (Connection connection : connections.values()) {
+                if (enqueue(connection, event)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /** Queues an event for each of the user's open connections; 0 if they have none. */
+    public int sendToUser(String userId, String eventName, Object data) {
+        if (userId == null) {
+            return 0;
+        }
+        synchronized (lock) {
+            // Kept even if the user is offline right now, so a quick reconnect still gets it
+            Event event = record(userId, eventName, data);
+            Set<Connection> userConnections = byUser.get(userId);
+            if (userConnections == null) {
+                return 0;
+            }
+            int count = 0;
+            for (Connection connection : userConnections) {
+                if (enqueue(connection, event)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private Event record(String userId, String eventName, Object data) {
+        Event event = new Event(++lastEventId, userId, eventName, data);
+        ring[(int) (event.id % ring.length)] = event;
+        return event;
+    }
+
+    // Queues the events after lastEventId meant for this connection, or RESYNC if some are gone
+    private void replay(Connection connection, String lastEventIdHeader) {
+        if (lastEventIdHeader == null || lastEventIdHeader.isBlank()) {
+            return;
+        }
+        long since;
+        try {
+            since = Long.parseLong(lastEventIdHeader.trim());
+        } catch (NumberFormatException e) {
+            resync(connection);
+            return;
+        }
+        if (since == lastEventId) {
+            return;
+        }
+        long missed = lastEventId - since;
+        // Future ID (another boot) or older than the ring reaches back
+        if (since > lastEventId || missed > ring.length) {
+            resync(connection);
+            return;
+        }
+        List<Event> events = new ArrayList<>();
+        for (long id = since + 1; id <= lastEventId; id++) {
+            Event event = ring[(int) (id % ring.length)];
+            if (event == null || event.id != id) {
+                resync(connection); // IDs before this boot's first event
+                return;
+            }
+            if (event.userId == null || event.userId.equals(connection.userId)) {
+                events.add(event);
+            }
+        }
+        if (events.size() >= queueCapacity) {
+            resync(connection); // wouldn't fit; reloading is cheaper anyway
+            return;
+        }
+        events.forEach(event -> enqueue(connection, event));
+        replayed.addAndGet(events.size());
+    }
+
+    private void resync(Connection connection) {
+        resyncs.incrementAndGet();
+        // Carries the current ID so the client resumes from here after reloading
+        enqueue(connection, new Event(lastEventId, null, EVENT_RESYNC, "Reload all data"));
+    }
+
+    public boolean isConnected(String userId) {
+        Set<Connection> userConnections = userId != null ? byUser.get(userId) : null;
+        return userConnections != null && !userConnections.isEmpty();
+    }
+
+    // Keep connections (and the proxies in front of them) alive; skipped for a connection that is backed up
+    @Scheduled(fixedRate = 20000)
+    public void sendHeartbeat() {
+        for (Connection connection : connections.values()) {
+            connection.queue.offer(HEARTBEAT);
+        }
+    }
+
+    private boolean enqueue(Connection connection, Event event) {
+        if (connection.closed) {
+            return false;
+        }
+        while (!connection.queue.offer(event)) {
+            if (closeOnOverflow) {
+                evict(connection, "queue full");
+                return false;
+            }
+            if (connection.queue.poll() != null) {
+                eventsDropped.incrementAndGet();
+                if (connection.droppedSinceWrite.incrementAndGet() >= queueCapacity) {
+                    evict(connection, "dropped " + queueCapacity + " events without a write");
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void drain(Connection connection) {
+        try {
+            while (!connection.closed) {
+                Event event = connection.queue.take();
+                SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name).data(event.data);
+                if (event.id > 0) {
+                    builder.id(Long.toString(event.id));
+                }
+                connection.emitter.send(builder);
+                connection.droppedSinceWrite.set(0);
+                eventsSent.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (Exception e) {
+            // client went away mid-write
+            remove(connection);
+            try {
+                connection.emitter.complete();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void evict(Connection connection, String reason) {
+        if (connection.closed) {
+            return;
+        }
+        evictions.incrementAndGet();
+        System.err.println("⚠️ Closing slow SSE connection " + connection.id
+                + (connection.userId != null ? " of user " + connection.userId : "") + ": " + reason);
+        remove(connection);
+        try {
+            connection.emitter.complete();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void remove(Connection connection) {
+        connection.closed = true;
+        Thread writer = connection.writer;
+        if (writer != null && writer != Thread.currentThread()) {
+            writer.interrupt();
+        }
+        synchronized (lock) { // can't interleave with connect() registering it
+            if (connections.remove(connection.id) != null && connection.userId != null) {
+                byUser.computeIfPresent(connection.userId, (k, set) -> {
+                    set.remove(connection);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        new ArrayList<>(connections.values()).forEach(connection -> {
+            remove(connection);
+            try {
+                connection.emitter.complete();
+            } catch (Exception ignored) {
+            }
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        int totalQueued = 0;
+        int maxQueued = 0;
+        for (Connection connection : connections.values()) {
+            int depth = connection.queue.size();
+            totalQueued += depth;
+            maxQueued = Math.max(maxQueued, depth);
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connections", connections.size());
+        metrics.put("users", byUser.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("overflowPolicy", closeOnOverflow ? POLICY_CLOSE : POLICY_DROP_OLDEST);
+        metrics.put("queuedEvents", totalQueued);
+        metrics.put("maxQueueDepth", maxQueued);
+        metrics.put("eventsSent", eventsSent.get());
+        metrics.put("eventsDropped", eventsDropped.get());
+        metrics.put("evictions", evictions.get());
+        synchronized (lock) {
+            metrics.put("lastEventId", lastEventId);
+        }
+        metrics.put("replayCapacity", ring.length);
+        metrics.put("replayedEvents", replayed.get());
+        metrics.put("resyncs", resyncs.get());
+        return metrics;
+    }
+
+    // Builders are single-use (build() appends to them), so each connection builds its own at write time
+    // id 0 = not replayable (INIT, heartbeat); userId null = broadcast
+    private static final class Event {
+        final long id;
+        final String userId;
+        final String name;
+        final Object data;
+
+        Event(long id, String userId, String name, Object data) {
+            this.id = id;
+            this.userId = userId;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private static final class Connection {
+        final long id;
+        final String userId;
+        final SseEmitter emitter;
+        final BlockingQueue<Event> queue;
+        final AtomicLong droppedSinceWrite = new AtomicLong();
+        volatile Thread writer;
+        volatile boolean closed;
+
+        Connection(long id, String userId, SseEmitter emitter, BlockingQueue<Event> queue) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
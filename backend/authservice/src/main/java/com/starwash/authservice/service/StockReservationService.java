@@ -0,0 +1,164 @@
+package com.starwash.authservice.service;
+
+import com.starwash.authservice.model.StockItem;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Deducts consumables for an invoice with guarded $inc updates ({quantity >= requested}), so two
+ * cashiers can never oversell the same item.
+ *
+ * Each item is one findAndModify on its _id that returns the document as it was before the
+ * write, so the previous quantity reported is the real one even with other cashiers deducting
+ * at the same time. When a guard doesn't match, the items already deducted are put back.
+ */
+@Service
+public class StockReservationService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public StockReservationService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Deducts every requested quantity or none of them.
+     *
+     * @param requested item name -> quantity; entries with quantity <= 0 are ignored
+     * @return one deduction per item, carrying the post-deduction item and its previous quantity
+     * @throws StockShortageException if any item lacks stock (nothing stays deducted)
+     */
+    public List<StockDeduction> deduct(Map<String, Integer> requested) {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        requested.forEach((name, qty) -> {
+            if (qty != null && qty > 0) {
+                wanted.put(name, qty);
+            }
+        });
+        if (wanted.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // One read for existence and an early, complete shortage report
+        Map<String, StockItem> snapshot = findByNames(wanted.keySet());
+        List<Shortage> shortages = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : wanted.entrySet()) {
+            StockItem item = snapshot.get(entry.getKey());
+            if (item == null) {
+                throw new RuntimeException("Stock item not found: " + entry.getKey());
+            }
+            if (item.getQuantity() < entry.getValue()) {
+                shortages.add(new Shortage(entry.getKey(), entry.getValue(), item.getQuantity()));
+            }
+        }
+        if (!shortages.isEmpty()) {
+            throw new StockShortageException(shortages);
+        }
+
+        // Applied in order; each guarded write hands back the item as it was just before it
+        List<StockDeduction> deductions = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : wanted.entrySet()) {
+            String name = entry.getKey();
+            int qty = entry.getValue();
+            LocalDateTime now = ManilaTimeUtil.now();
+            StockItem before = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(snapshot.get(name).getId()).and("quantity").gte(qty)),
+                    new Update().inc("quantity", -qty).set("lastUpdated", now),
+                    FindAndModifyOptions.options().returnNew(false),
+                    StockItem.class);
+
+            if (before == null) {
+                compensate(deductions);
+                // Lost the race for this item (or it was deleted) - report what is actually left now
+                StockItem current = findByNames(List.of(name)).get(name);
+                if (current == null) {
+                    throw new RuntimeException("Stock item not found: " + name);
+                }
+                throw new StockShortageException(List.of(new Shortage(name, qty, current.getQuantity())));
+            }
+
+            int previousQuantity = before.getQuantity();
+            before.setQuantity(previousQuantity - qty);
+            before.setLastUpdated(now);
+            deductions.add(new StockDeduction(before, qty, previousQuantity));
+        }
+        return deductions;
+    }
+
+    // Puts back the deductions already applied when a later item fails
+    private void compensate(List<StockDeduction> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        BulkOperations rollback = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockItem.class);
+        for (StockDeduction deduction : applied) {
+            rollback.updateOne(new Query(Criteria.where("_id").is(deduction.getItem().getId())),
+                    new Update().inc("quantity", deduction.getQuantity()));
+        }
+        rollback.execute();
+        System.out.println("↩️ Rolled back stock deduction for " + applied.size() + " item(s)");
+    }
+
+    private Map<String, StockItem> findByNames(Collection<String> names) {
+        Map<String, StockItem> byName = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("name").in(names)), StockItem.class)
+                .forEach(item -> byName.putIfAbsent(item.getName(), item));
+        return byName;
+    }
+
+    public static class StockDeduction {
+        private final StockItem item;
+        private final int quantity;
+        private final int previousQuantity;
+
+        public StockDeduction(StockItem item, int quantity, int previousQuantity) {
+            this.item = item;
+            this.quantity = quantity;
+            this.previousQuantity = previousQuantity;
+        }
+
+        public StockItem getItem() { return item; }
+        public int getQuantity() { return quantity; }
+        public int getPreviousQuantity() { return previousQuantity; }
+    }
+
+    public static class Shortage {
+        private final String itemName;
+        private final int requested;
+        private final int available;
+
+        public Shortage(String itemName, int requested, int available) {
+            this.itemName = itemName;
+            this.requested = requested;
+            this.available = available;
+        }
+
+        public String getItemName() { return itemName; }
+        public int getRequested() { return requested; }
+        public int getAvailable() { return available; }
+    }
+
+    public static class StockShortageException extends RuntimeException {
+        private final List<Shortage> shortages;
+
+        public StockShortageException(List<Shortage> shortages) {
+            super("Insufficient stock for: " + shortages.stream()
+                    .map(s -> String.format("%s (Requested: %d, Available: %d)",
+                            s.getItemName(), s.getRequested(), s.getAvailable()))
+                    .collect(Collectors.joining(", ")));
+            this.shortages = shortages;
+        }
+
+        public List<Shortage> getShortages() { return shortages; }
+    }
+}
@@ -17,13 +17,16 @@ public class StockService {
     private final StockRepository stockRepository;
     private final StockLogRepository stockLogRepository;
     private final NotificationService notificationService;
+    private final ReferenceDataCache referenceDataCache;
 
     private static final ZoneId MANILA_ZONE = ZoneId.of("Asia/Manila");
 
-    public StockService(StockRepository stockRepository, StockLogRepository stockLogRepository, NotificationService notificationService) {
+    public StockService(StockRepository stockRepository, StockLogRepository stockLogRepository,
+                        NotificationService notificationService, ReferenceDataCache referenceDataCache) {
         this.stockRepository = stockRepository;
         this.stockLogRepository = stockLogRepository;
         this.notificationService = notificationService;
+        this.referenceDataCache = referenceDataCache;
     }
 
     private LocalDateTime getCurrentManilaTime() {
@@ -46,6 +49,7 @@ public class StockService {
         newItem.setLastRestock(newItem.getLastRestock() != null ? newItem.getLastRestock() : manilaTime);
 
         StockItem savedItem = stockRepository.save(newItem);
+        referenceDataCache.refresh();
 
         // Log initial stock
         StockLog log = new StockLog(
@@ -83,6 +87,7 @@ public class StockService {
             existing.setLastUpdated(manilaTime);
 
             StockItem savedItem = stockRepository.save(existing);
+            referenceDataCache.refresh(); // name/price may have changed; restocks don't touch the catalog
 
             // Log update if quantity changed
             if (previousQuantity != newQuantity) {
@@ -108,6 +113,7 @@ public class StockService {
     public boolean deleteItem(String id) {
         if (stockRepository.existsById(id)) {
             stockRepository.deleteById(id);
+            referenceDataCache.refresh();
             return true;
         }
         return false;
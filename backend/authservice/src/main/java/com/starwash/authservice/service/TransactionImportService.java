@@ -0,0 +1,537 @@
+package com.starwash.authservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.starwash.authservice.model.ConsumableCategory;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.LaundryJob.LoadAssignment;
+import com.starwash.authservice.model.ServiceEntry;
+import com.starwash.authservice.model.ServiceItem;
+import com.starwash.authservice.model.StockItem;
+import com.starwash.authservice.model.Transaction;
+import com.starwash.authservice.security.ManilaTimeUtil;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Loads historical transactions (CSV with a header row, or NDJSON) straight into Mongo.
+ *
+ * Rows are read in chunks; each chunk is validated in parallel against the reference-data
+ * snapshot and written with one unordered bulk insert for transactions and one for their laundry
+ * jobs. No stock is deducted and no notifications or SSE events are sent - this is history, not
+ * live traffic. Sales rollups and the completed-load counter are updated after each chunk.
+ */
+@Service
+public class TransactionImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    private static final String PICKUP_CLAIMED = "CLAIMED";
+    private static final String PICKUP_UNCLAIMED = "UNCLAIMED";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final SalesRollupService salesRollupService;
+    private final CompletedLoadCounterService completedLoadCounterService;
+    private final LaundryJobService laundryJobService;
+    private final ObjectMapper objectMapper;
+
+    public TransactionImportService(MongoTemplate mongoTemplate,
+            ReferenceDataCache referenceDataCache,
+            InvoiceNumberAllocator invoiceNumberAllocator,
+            SalesRollupService salesRollupService,
+            CompletedLoadCounterService completedLoadCounterService,
+            LaundryJobService laundryJobService,
+            ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.salesRollupService = salesRollupService;
+        this.completedLoadCounterService = completedLoadCounterService;
+        this.laundryJobService = laundryJobService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports every row of the file. Bad rows are reported and skipped; good rows are kept.
+     *
+     * @param format  "csv" or "ndjson"
+     * @param staffId fallback staffId for rows that don't carry one
+     */
+    public ImportResult importRecords(InputStream in, String format, String staffId) throws IOException {
+        long startTime = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader rows = FORMAT_NDJSON.equalsIgnoreCase(format)
+                ? new NdjsonRowReader(reader, objectMapper)
+                : new CsvRowReader(reader);
+
+        int rowNumber = 0;
+        List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        Map<String, String> values;
+        while ((values = rows.next()) != null) {
+            rowNumber++;
+            chunk.add(new RawRow(rowNumber, values));
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, staffId, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, staffId, result);
+        }
+
+        result.totalRows = rowNumber;
+        result.durationMs = System.currentTimeMillis() - startTime;
+        System.out.println("📥 Imported " + result.imported + "/" + result.totalRows + " transactions ("
+                + result.failed + " failed) in " + result.durationMs + "ms");
+        return result;
+    }
+
+    private void importChunk(List<RawRow> chunk, String staffId, ImportResult result) {
+        // Validation only touches the immutable reference snapshot, so rows can be checked in parallel
+        List<ParsedRow> parsed = chunk.parallelStream()
+                .map(row -> parse(row, staffId))
+                .collect(Collectors.toList());
+
+        List<ParsedRow> valid = new ArrayList<>(parsed.size());
+        Set<String> invoicesInChunk = new HashSet<>();
+        for (ParsedRow row : parsed) {
+            if (row.error != null) {
+                result.addError(row.rowNumber, row.invoiceNumber, row.error);
+            } else if (row.invoiceNumber != null && !invoicesInChunk.add(row.invoiceNumber)) {
+                result.addError(row.rowNumber, row.invoiceNumber, "Duplicate invoice number in file");
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Invoices allocated here are only needed for rows that didn't bring their own
+        for (ParsedRow row : valid) {
+            if (row.transaction.getInvoiceNumber() == null) {
+                String invoiceNumber = invoiceNumberAllocator.nextInvoiceNumber();
+                row.transaction.setInvoiceNumber(invoiceNumber);
+                row.job.setTransactionId(invoiceNumber);
+            }
+        }
+
+        List<Transaction> transactions = valid.stream().map(r -> r.transaction).collect(Collectors.toList());
+        Set<Integer> failedIndexes = insertUnordered(transactions, Transaction.class, valid, result);
+
+        List<ParsedRow> inserted = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                inserted.add(valid.get(i));
+            }
+        }
+        if (inserted.isEmpty()) {
+            return;
+        }
+
+        List<LaundryJob> jobs = inserted.stream().map(r -> r.job).collect(Collectors.toList());
+        Set<Integer> failedJobs = insertUnordered(jobs, LaundryJob.class, inserted, result);
+        if (!failedJobs.isEmpty()) {
+            // A transaction without its job would never show up for pickup/claiming; drop it
+            List<Object> orphanIds = failedJobs.stream()
+                    .map(i -> new ObjectId(inserted.get(i).transaction.getId()))
+                    .collect(Collectors.toList());
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(orphanIds)), Transaction.class);
+        }
+
+        List<Transaction> imported = new ArrayList<>(inserted.size());
+        long completedLoads = 0;
+        for (int i = 0; i < inserted.size(); i++) {
+            if (!failedJobs.contains(i)) {
+                imported.add(inserted.get(i).transaction);
+                completedLoads += inserted.get(i).job.getLoadAssignments().stream()
+                        .filter(load -> "COMPLETED".equals(load.getStatus()))
+                        .count();
+                result.imported++;
+            }
+        }
+
+        // Folded in per chunk so a large file never holds more than one chunk of transactions
+        try {
+            salesRollupService.recordTransactions(imported);
+        } catch (Exception e) {
+            // Rows are already in; a rollup rebuild will pick them up
+            System.err.println("❌ Sales rollup update after import failed: " + e.getMessage());
+        }
+        try {
+            completedLoadCounterService.loadsImported(completedLoads);
+        } catch (Exception e) {
+            // Same here: the nightly reconcile recounts them
+            System.err.println("❌ Completed-load counter update after import failed: " + e.getMessage());
+        }
+    }
+
+    // Unordered bulk insert; returns the positions that failed and records why against their rows
+    private <T> Set<Integer> insertUnordered(List<T> documents, Class<T> type, List<ParsedRow> rows,
+            ImportResult result) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+            return Collections.emptySet();
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                ParsedRow row = rows.get(error.getIndex());
+                String message = error.getCode() == 11000 ? "Invoice number already exists" : error.getMessage();
+                result.addError(row.rowNumber, row.transaction.getInvoiceNumber(), message);
+            }
+            return failed;
+        }
+    }
+
+    private ParsedRow parse(RawRow raw, String defaultStaffId) {
+        Map<String, String> v = raw.values;
+        String invoiceNumber = blankToNull(v.get("invoiceNumber"));
+        try {
+            if (v.containsKey("__parseError")) {
+                throw new IllegalArgumentException(v.get("__parseError"));
+            }
+            String customerName = required(v, "customerName");
+            String serviceName = required(v, "serviceName");
+            int loads = parseInt(required(v, "loads"), "loads");
+            if (loads <= 0) {
+                throw new IllegalArgumentException("loads must be positive");
+            }
+            LocalDateTime issueDate = parseDate(required(v, "issueDate"), "issueDate");
+
+            ServiceItem service = referenceDataCache.findServiceByName(serviceName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown service: " + serviceName));
+            double servicePrice = service.getPrice() != null ? service.getPrice() : 0.0;
+
+            List<ServiceEntry> consumables = new ArrayList<>();
+            double consumablesTotal = 0.0;
+            consumablesTotal += addConsumable(consumables, ConsumableCategory.DETERGENT, v.get("detergentQty"));
+            consumablesTotal += addConsumable(consumables, ConsumableCategory.FABRIC, v.get("fabricQty"));
+            consumablesTotal += addConsumable(consumables, ConsumableCategory.PLASTIC, v.get("plasticQty"));
+
+            String totalText = blankToNull(v.get("totalPrice"));
+            double totalPrice = totalText != null
+                    ? parseDouble(totalText, "totalPrice")
+                    : servicePrice * loads + consumablesTotal;
+            String amountText = blankToNull(v.get("amountGiven"));
+            double amountGiven = amountText != null ? parseDouble(amountText, "amountGiven") : totalPrice;
+            if (amountGiven < totalPrice) {
+                throw new IllegalArgumentException("amountGiven is less than totalPrice");
+            }
+
+            String paymentMethod = Optional.ofNullable(blankToNull(v.get("paymentMethod"))).orElse("Cash");
+            String dueText = blankToNull(v.get("dueDate"));
+            LocalDateTime dueDate = dueText != null ? parseDate(dueText, "dueDate") : issueDate.plusDays(7);
+            String staffId = Optional.ofNullable(blankToNull(v.get("staffId"))).orElse(defaultStaffId);
+
+            String pickupStatus = Optional.ofNullable(blankToNull(v.get("pickupStatus")))
+                    .map(String::toUpperCase).orElse(PICKUP_CLAIMED);
+            if (!PICKUP_CLAIMED.equals(pickupStatus) && !PICKUP_UNCLAIMED.equals(pickupStatus)) {
+                throw new IllegalArgumentException("pickupStatus must be CLAIMED or UNCLAIMED");
+            }
+            String claimText = blankToNull(v.get("claimDate"));
+            LocalDateTime claimDate = claimText != null ? parseDate(claimText, "claimDate") : null;
+
+            // Imported history sorts by when it happened, not when it was loaded
+            Transaction tx = new Transaction(new ObjectId().toHexString(), invoiceNumber, customerName,
+                    blankToNull(v.get("contact")), service.getName(), servicePrice, loads, consumables,
+                    totalPrice, paymentMethod, amountGiven, amountGiven - totalPrice, issueDate, dueDate,
+                    staffId, issueDate);
+
+            LaundryJob job = buildJob(tx, pickupStatus, claimDate, staffId);
+            return new ParsedRow(raw.rowNumber, invoiceNumber, tx, job, null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow(raw.rowNumber, invoiceNumber, null, null, e.getMessage());
+        }
+    }
+
+    // Historical loads are finished: every load sits at the last step of its flow
+    private LaundryJob buildJob(Transaction tx, String pickupStatus, LocalDateTime claimDate, String staffId) {
+        List<String> flow = laundryJobService.getFlowByServiceType(tx.getServiceName());
+        String finalStatus = flow.get(flow.size() - 1);
+
+        List<LoadAssignment> assignments = new ArrayList<>();
+        for (int i = 1; i <= tx.getServiceQuantity(); i++) {
+            assignments.add(new LoadAssignment(i, null, finalStatus, null, null, null));
+        }
+
+        LaundryJob job = new LaundryJob();
+        job.setTransactionId(tx.getInvoiceNumber());
+        job.setCustomerName(tx.getCustomerName());
+        job.setContact(tx.getContact());
+        job.setLoadAssignments(assignments);
+        job.setDetergentQty(tx.getDetergentQty());
+        job.setFabricQty(tx.getFabricQty());
+        job.setServiceType(tx.getServiceName());
+        job.setPaymentMethod(tx.getPaymentMethod());
+        job.setGcashVerified(tx.getGcashVerified());
+        job.setStatusFlow(flow);
+        job.setCurrentStep(flow.size() - 1);
+        job.setPickupStatus(pickupStatus);
+        job.setDueDate(tx.getDueDate());
+        // A pickup already past due is expired on arrival, so it is never armed or texted
+        job.setExpired(PICKUP_UNCLAIMED.equals(pickupStatus) && tx.getDueDate() != null
+                && tx.getDueDate().isBefore(ManilaTimeUtil.now()));
+        job.setCreatedAt(tx.getCreatedAt());
+        job.setVersion(0L); // bulk inserts don't initialize @Version
+        if (PICKUP_CLAIMED.equals(pickupStatus)) {
+            job.setClaimDate(claimDate != null ? claimDate : tx.getIssueDate());
+            job.setClaimedByStaffId(staffId);
+        }
+        return job;
+    }
+
+    private double addConsumable(List<ServiceEntry> consumables, ConsumableCategory category, String qtyText) {
+        String text = blankToNull(qtyText);
+        if (text == null) {
+            return 0.0;
+        }
+        int qty = parseInt(text, category.name().toLowerCase() + "Qty");
+        if (qty < 0) {
+            throw new IllegalArgumentException(category.name().toLowerCase() + "Qty cannot be negative");
+        }
+        if (qty == 0) {
+            return 0.0;
+        }
+        StockItem item = referenceDataCache.findStockItem(category)
+                .orElseThrow(() -> new IllegalArgumentException("No stock item for " + category.name().toLowerCase()));
+        double price = item.getPrice();
+        consumables.add(new ServiceEntry(item.getName(), price, qty));
+        return price * qty;
+    }
+
+    private static String required(Map<String, String> values, String column) {
+        String value = blankToNull(values.get(column));
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static int parseInt(String value, String column) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private static double parseDouble(String value, String column) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    // Accepts 2024-05-01 or 2024-05-01T14:30[:00]
+    private static LocalDateTime parseDate(String value, String column) {
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " is not an ISO date: " + value);
+        }
+    }
+
+    public static class ImportResult {
+        private int totalRows;
+        private int imported;
+        private int failed;
+        private long durationMs;
+        private final List<RowError> errors = new ArrayList<>();
+
+        synchronized void addError(int row, String invoiceNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, invoiceNumber, message));
+            }
+        }
+
+        public int getTotalRows() { return totalRows; }
+        public int getImported() { return imported; }
+        public int getFailed() { return failed; }
+        public long getDurationMs() { return durationMs; }
+        public List<RowError> getErrors() { return errors; }
+    }
+
+    public static class RowError {
+        private final int row;
+        private final String invoiceNumber;
+        private final String message;
+
+        RowError(int row, String invoiceNumber, String message) {
+            this.row = row;
+            this.invoiceNumber = invoiceNumber;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getInvoiceNumber() { return invoiceNumber; }
+        public String getMessage() { return message; }
+    }
+
+    private static final class RawRow {
+        final int rowNumber;
+        final Map<String, String> values;
+
+        RawRow(int rowNumber, Map<String, String> values) {
+            this.rowNumber = rowNumber;
+            this.values = values;
+        }
+    }
+
+    private static final class ParsedRow {
+        final int rowNumber;
+        final String invoiceNumber;
+        final Transaction transaction;
+        final LaundryJob job;
+        final String error;
+
+        ParsedRow(int rowNumber, String invoiceNumber, Transaction transaction, LaundryJob job, String error) {
+            this.rowNumber = rowNumber;
+            this.invoiceNumber = invoiceNumber;
+            this.transaction = transaction;
+            this.job = job;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader {
+        /** Next row as column -> value, or null at end of input. */
+        Map<String, String> next() throws IOException;
+    }
+
+    private static final class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+
+        NdjsonRowReader(Reader reader, ObjectMapper objectMapper) {
+            this.reader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    node.properties().forEach(e -> values.put(e.getKey(),
+                            e.getValue().isNull() ? null : e.getValue().asText()));
+                } catch (IOException e) {
+                    values.put("__parseError", "Malformed JSON line");
+                }
+                return values;
+            }
+            return null;
+        }
+    }
+
+    // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+    private static final class CsvRowReader implements RowReader {
+        private final Reader reader;
+        private List<String> header;
+
+        CsvRowReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                header.replaceAll(String::trim);
+            }
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return values;
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
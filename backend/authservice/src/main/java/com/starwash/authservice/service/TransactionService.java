@@ -5,12 +5,17 @@ import com.starwash.authservice.model.*;
 import com.starwash.authservice.repository.*;
 import com.starwash.authservice.security.ManilaTimeUtil;
 
+import org.bson.Document;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -24,31 +29,37 @@ import jakarta.servlet.http.HttpServletRequest;
 @Service
 public class TransactionService {
 
-    private final ServiceRepository serviceRepository;
-    private final StockRepository stockRepository;
     private final TransactionRepository transactionRepository;
-    private final FormatSettingsRepository formatSettingsRepository;
     private final LaundryJobRepository laundryJobRepository;
     private final NotificationService notificationService;
     private final AuditService auditService;
     private final MachineService machineService;
+    private final SalesRollupService salesRollupService;
+    private final StockReservationService stockReservationService;
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final ReferenceDataCache referenceDataCache;
 
-    public TransactionService(ServiceRepository serviceRepository,
-            StockRepository stockRepository,
-            TransactionRepository transactionRepository,
-            FormatSettingsRepository formatSettingsRepository,
+    public TransactionService(TransactionRepository transactionRepository,
             LaundryJobRepository laundryJobRepository,
             NotificationService notificationService,
             AuditService auditService,
-            MachineService machineService) {
-        this.serviceRepository = serviceRepository;
-        this.stockRepository = stockRepository;
+            MachineService machineService,
+            SalesRollupService salesRollupService,
+            StockReservationService stockReservationService,
+            MongoTemplate mongoTemplate,
+            InvoiceNumberAllocator invoiceNumberAllocator,
+            ReferenceDataCache referenceDataCache) {
         this.transactionRepository = transactionRepository;
-        this.formatSettingsRepository = formatSettingsRepository;
         this.laundryJobRepository = laundryJobRepository;
         this.notificationService = notificationService;
         this.auditService = auditService;
         this.machineService = machineService;
+        this.salesRollupService = salesRollupService;
+        this.stockReservationService = stockReservationService;
+        this.mongoTemplate = mongoTemplate;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.referenceDataCache = referenceDataCache;
     }
 
     // Use ManilaTimeUtil for all date/time operations
@@ -65,7 +76,7 @@ public class TransactionService {
         if (sid.isEmpty()) {
             throw new IllegalArgumentException("Service ID must not be null or empty");
         }
-        ServiceItem service = serviceRepository.findById(sid)
+        ServiceItem service = referenceDataCache.getService(sid)
                 .orElseThrow(() -> new RuntimeException("Service not found"));
 
         // AUTO-CALCULATION: Calculate loads based on weight if provided
@@ -116,14 +127,11 @@ public class TransactionService {
 
         // Only auto-add plastic when we're in auto-calculation mode
         if (shouldAutoManagePlastic && autoPlasticBags > 0) {
-            // Find plastic items in stock
-            List<StockItem> plasticItems = stockRepository.findAll().stream()
-                    .filter(item -> item.getName().toLowerCase().contains("plastic"))
-                    .collect(Collectors.toList());
+            // Find the plastic item in the stock catalog
+            Optional<StockItem> plasticItem = referenceDataCache.findStockItem(ConsumableCategory.PLASTIC);
 
-            if (!plasticItems.isEmpty()) {
-                StockItem plasticItem = plasticItems.get(0); // Use first plastic item found
-                String plasticName = plasticItem.getName();
+            if (plasticItem.isPresent()) {
+                String plasticName = plasticItem.get().getName();
 
                 // Add or update plastic quantity - only if not already manually set
                 int currentPlastic = consumableQuantities.getOrDefault(plasticName, 0);
@@ -138,48 +146,26 @@ public class TransactionService {
             }
         }
 
-        // Check stock availability for all consumables
-        for (Map.Entry<String, Integer> entry : consumableQuantities.entrySet()) {
-            String itemName = entry.getKey();
-            int quantity = entry.getValue();
-
-            // Skip if quantity is 0
-            if (quantity <= 0)
-                continue;
-
-            StockItem item = stockRepository.findByName(itemName)
-                    .orElseThrow(() -> new RuntimeException("Stock item not found: " + itemName));
-
-            if (item.getQuantity() < quantity) {
+        // Check and deduct all consumables: one guarded findAndModify per item, and if any item is
+        // short the ones already taken are put back with a single bulk $inc (all or nothing)
+        List<StockReservationService.StockDeduction> deductions;
+        try {
+            deductions = stockReservationService.deduct(consumableQuantities);
+        } catch (StockReservationService.StockShortageException e) {
+            for (StockReservationService.Shortage shortage : e.getShortages()) {
                 insufficientStockItems.add(String.format("%s (Requested: %d, Available: %d)",
-                        itemName, quantity, item.getQuantity()));
+                        shortage.getItemName(), shortage.getRequested(), shortage.getAvailable()));
 
                 notificationService.notifyTransactionStockIssue(
-                        itemName, quantity, item.getQuantity(), "pending-transaction");
+                        shortage.getItemName(), shortage.getRequested(), shortage.getAvailable(), "pending-transaction");
             }
-        }
-
-        if (!insufficientStockItems.isEmpty()) {
             String errorMessage = "Insufficient stock for: " + String.join(", ", insufficientStockItems);
             throw new InsufficientStockException(errorMessage, insufficientStockItems);
         }
 
-        // Process consumables and update stock (using updated consumableQuantities)
-        for (Map.Entry<String, Integer> entry : consumableQuantities.entrySet()) {
-            String itemName = entry.getKey();
-            int quantity = entry.getValue();
-
-            // Skip if quantity is 0
-            if (quantity <= 0)
-                continue;
-
-            StockItem item = stockRepository.findByName(itemName)
-                    .orElseThrow(() -> new RuntimeException("Stock item not found: " + itemName));
-
-            Integer previousQuantity = item.getQuantity();
-
-            item.setQuantity(item.getQuantity() - quantity);
-            stockRepository.save(item);
+        for (StockReservationService.StockDeduction deduction : deductions) {
+            StockItem item = deduction.getItem();
+            int quantity = deduction.getQuantity();
 
             double itemTotal = item.getPrice() * quantity;
             total += itemTotal;
@@ -187,7 +173,7 @@ public class TransactionService {
             consumableDtos.add(new ServiceEntryDto(item.getName(), item.getPrice(), quantity));
             consumables.add(new ServiceEntry(item.getName(), item.getPrice(), quantity));
 
-            notificationService.checkAndNotifyStockLevel(item, previousQuantity);
+            notificationService.checkAndNotifyStockLevel(item, deduction.getPreviousQuantity());
         }
 
         double amountGiven = Optional.ofNullable(request.getAmountGiven()).orElse(0.0);
@@ -228,7 +214,7 @@ public class TransactionService {
             System.out.println("   - Machine Info: " + machineInfo);
         }
 
-        String invoiceNumber = "INV-" + Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        String invoiceNumber = invoiceNumberAllocator.nextInvoiceNumber();
 
         // Create transaction with ALL dates in Manila time
         Transaction transaction = new Transaction(
@@ -256,26 +242,22 @@ public class TransactionService {
 
         transactionRepository.save(transaction);
 
+        try {
+            salesRollupService.recordTransaction(transaction);
+        } catch (Exception e) {
+            // Reports can be repaired with a rollup rebuild; never fail the sale over it
+            System.err.println("❌ Failed to update sales rollup for " + invoiceNumber + ": " + e.getMessage());
+        }
+
         createNewLaundryServiceNotification(transaction);
-        notificationService.broadcast(NotificationService.EVENT_TRANSACTION, "New transaction: " + transaction.getInvoiceNumber());
+        notificationService.broadcast(NotificationService.EVENT_TRANSACTION, transaction.getInvoiceNumber(), "New transaction: " + transaction.getInvoiceNumber());
 
-        FormatSettings settings = formatSettingsRepository.findTopByOrderByIdDesc()
+        FormatSettings settings = referenceDataCache.getFormatSettings()
                 .orElseThrow(() -> new RuntimeException("Format settings not found"));
 
-        int detergentQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
-
-        int fabricQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
-
-        int plasticQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("plastic"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
+        int detergentQty = transaction.getDetergentQty();
+        int fabricQty = transaction.getFabricQty();
+        int plasticQty = transaction.getPlasticQty();
 
         // Include auto-calculation info in response
         ServiceInvoiceDto invoiceDto = new ServiceInvoiceDto(
@@ -359,23 +341,12 @@ public class TransactionService {
                 .map(c -> new ServiceEntryDto(c.getName(), c.getPrice(), c.getQuantity()))
                 .collect(Collectors.toList());
 
-        FormatSettings settings = formatSettingsRepository.findTopByOrderByIdDesc()
+        FormatSettings settings = referenceDataCache.getFormatSettings()
                 .orElseThrow(() -> new RuntimeException("Format settings not found"));
 
-        int detergentQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
-
-        int fabricQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
-
-        int plasticQty = consumableDtos.stream()
-                .filter(c -> c.getName().toLowerCase().contains("plastic"))
-                .mapToInt(ServiceEntryDto::getQuantity)
-                .sum();
+        int detergentQty = tx.getDetergentQty();
+        int fabricQty = tx.getFabricQty();
+        int plasticQty = tx.getPlasticQty();
 
         return new ServiceInvoiceDto(
                 tx.getInvoiceNumber(),
@@ -409,45 +380,43 @@ public class TransactionService {
 
         LocalDateTime currentManilaTime = getCurrentManilaTime();
 
-        return allTransactions.stream().map(tx -> {
-            RecordResponseDto dto = new RecordResponseDto();
-            dto.setId(tx.getId());
-            dto.setInvoiceNumber(tx.getInvoiceNumber());
-            dto.setCustomerName(tx.getCustomerName());
-            dto.setServiceName(tx.getServiceName());
-            dto.setLoads(tx.getServiceQuantity());
-            dto.setContact(tx.getContact());
-
-            dto.setDetergent(tx.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                    .map(c -> String.valueOf(c.getQuantity()))
-                    .findFirst().orElse("—"));
-
-            dto.setFabric(tx.getConsumables().stream()
-                    .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                    .map(c -> String.valueOf(c.getQuantity()))
-                    .findFirst().orElse("—"));
-
-            dto.setTotalPrice(tx.getTotalPrice());
-            dto.setPaymentMethod(tx.getPaymentMethod());
-            dto.setPickupStatus("Unclaimed");
-            dto.setWashed(false);
+        return allTransactions.stream()
+                .map(tx -> buildRecordDto(tx, laundryJobMap.get(tx.getInvoiceNumber()), currentManilaTime))
+                .collect(Collectors.toList());
+    }
 
+    // Row shape shared by GET /records and the streaming export
+    public RecordResponseDto buildRecordDto(Transaction tx, LaundryJob job, LocalDateTime currentManilaTime) {
+        RecordResponseDto dto = new RecordResponseDto();
+        dto.setId(tx.getId());
+        dto.setInvoiceNumber(tx.getInvoiceNumber());
+        dto.setCustomerName(tx.getCustomerName());
+        dto.setServiceName(tx.getServiceName());
+        dto.setLoads(tx.getServiceQuantity());
+        dto.setContact(tx.getContact());
+
+        dto.setDetergent(tx.getDetergentQty() > 0 ? String.valueOf(tx.getDetergentQty()) : "—");
+        dto.setFabric(tx.getFabricQty() > 0 ? String.valueOf(tx.getFabricQty()) : "—");
+
+        dto.setTotalPrice(tx.getTotalPrice());
+        dto.setPaymentMethod(tx.getPaymentMethod());
+        dto.setPickupStatus("Unclaimed");
+        dto.setWashed(false);
+
+        dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
+        dto.setCreatedAt(tx.getCreatedAt());
+        dto.setIssueDate(tx.getIssueDate());
+
+        if (job != null) {
+            dto.setPickupStatus(job.getPickupStatus());
+            dto.setExpired(job.isExpired());
+            dto.setDisposed(job.isDisposed());
+        } else {
+            dto.setPickupStatus("UNCLAIMED");
             dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
-            dto.setCreatedAt(tx.getCreatedAt());
-
-            LaundryJob job = laundryJobMap.get(tx.getInvoiceNumber());
-            if (job != null) {
-                dto.setPickupStatus(job.getPickupStatus());
-                dto.setExpired(job.isExpired());
-                dto.setDisposed(job.isDisposed());
-            } else {
-                dto.setPickupStatus("UNCLAIMED");
-                dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
-            }
+        }
 
-            return dto;
-        }).collect(Collectors.toList());
+        return dto;
     }
 
     public List<RecordResponseDto> getStaffRecords() {
@@ -464,20 +433,45 @@ public class TransactionService {
     }
 
     public Map<String, Object> getStaffRecordsPaginated(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        return getStaffRecordsPaginated(page, size, null, true);
+    }
 
-        // This is tricky because we need to filter by status AND expired in DIFFERENT
-        // collections
-        // For efficiency, we'll fetch from LaundryJobRepository which has these fields
-        Page<LaundryJob> jobPage = laundryJobRepository.findByPickupStatusAndExpiredAndDisposed("UNCLAIMED", false,
-                false, pageable);
+    /**
+     * Staff list of unclaimed jobs. With an {@code after} cursor (or when the caller does not need
+     * totals) it walks (createdAt, _id) by keyset instead of skip/limit + count.
+     */
+    public Map<String, Object> getStaffRecordsPaginated(int page, int size, String after, boolean includeTotal) {
+        Criteria filter = Criteria.where("pickupStatus").is("UNCLAIMED")
+                .and("expired").is(false)
+                .and("disposed").is(false);
 
-        // Actually, we need UNCLAIMED OR EXPIRED.
-        // Let's use a custom query in LaundryJobRepository for this.
-        // For now, let's keep it simple and just fetch UNCLAIMED first.
-        // Wait, the original method combined them.
+        Map<String, Object> response = new HashMap<>();
+        List<LaundryJob> jobs;
+        boolean hasMore;
+
+        if (after != null || !includeTotal) {
+            RecordCursor cursor = RecordCursor.decode(after, "createdAt");
+            jobs = new ArrayList<>(mongoTemplate.find(RecordCursor.pageQuery(filter, cursor, "createdAt", size),
+                    LaundryJob.class));
+            hasMore = jobs.size() > size;
+            if (hasMore) {
+                jobs = jobs.subList(0, size);
+            }
+            if (includeTotal) {
+                response.put("totalElements", mongoTemplate.count(new Query(filter), LaundryJob.class));
+            }
+        } else {
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")));
+            Page<LaundryJob> jobPage = laundryJobRepository.findByPickupStatusAndExpiredAndDisposed("UNCLAIMED",
+                    false, false, pageable);
+            jobs = jobPage.getContent();
+            hasMore = jobPage.hasNext();
+
+            response.put("totalPages", jobPage.getTotalPages());
+            response.put("totalElements", jobPage.getTotalElements());
+            response.put("currentPage", jobPage.getNumber());
+        }
 
-        List<LaundryJob> jobs = jobPage.getContent();
         List<String> transactionIds = jobs.stream().map(LaundryJob::getTransactionId).collect(Collectors.toList());
 
         List<Transaction> transactions = transactionRepository.findByInvoiceNumberIn(transactionIds);
@@ -495,15 +489,8 @@ public class TransactionService {
                 dto.setServiceName(tx.getServiceName());
                 dto.setLoads(tx.getServiceQuantity());
 
-                dto.setDetergent(tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("—"));
-
-                dto.setFabric(tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("—"));
+                dto.setDetergent(tx.getDetergentQty() > 0 ? String.valueOf(tx.getDetergentQty()) : "—");
+                dto.setFabric(tx.getFabricQty() > 0 ? String.valueOf(tx.getFabricQty()) : "—");
 
                 dto.setTotalPrice(tx.getTotalPrice());
                 dto.setCreatedAt(tx.getCreatedAt());
@@ -519,11 +506,12 @@ public class TransactionService {
             return dto;
         }).collect(Collectors.toList());
 
-        Map<String, Object> response = new HashMap<>();
         response.put("records", mapped);
-        response.put("totalPages", jobPage.getTotalPages());
-        response.put("totalElements", jobPage.getTotalElements());
-        response.put("currentPage", jobPage.getNumber());
+        response.put("hasMore", hasMore);
+        if (hasMore && !jobs.isEmpty()) {
+            LaundryJob last = jobs.get(jobs.size() - 1);
+            response.put("nextCursor", new RecordCursor("createdAt", last.getCreatedAt(), last.getId()).encode());
+        }
 
         return response;
     }
@@ -610,137 +598,178 @@ public class TransactionService {
         try {
             System.out.println("🔄 Fetching admin records - Page: " + page + ", Size: " + size + ", Search: " + search);
 
-            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")));
             Page<Transaction> transactionPage;
 
             if (search != null && !search.trim().isEmpty()) {
-                transactionPage = transactionRepository.findByCustomerNameContainingIgnoreCase(search.trim(), pageable);
+                transactionPage = findByCustomerSearch(null, search, pageable);
             } else {
                 transactionPage = transactionRepository.findAll(pageable);
             }
 
             List<Transaction> transactions = transactionPage.getContent();
 
-            List<String> transactionIds = transactions.stream()
-                    .map(Transaction::getInvoiceNumber)
-                    .collect(Collectors.toList());
+            List<AdminRecordResponseDto> result = toAdminRecordDtos(transactions);
 
-            List<LaundryJob> laundryJobs = laundryJobRepository.findByTransactionIdIn(transactionIds);
-            Map<String, LaundryJob> laundryJobMap = laundryJobs.stream()
-                    .collect(Collectors.toMap(LaundryJob::getTransactionId, Function.identity()));
+            return result;
+        } finally {
+            long duration = System.currentTimeMillis() - startTime;
+            System.out.println("🕒 getAllAdminRecords took: " + duration + "ms");
+        }
+    }
 
-            LocalDateTime currentManilaTime = getCurrentManilaTime();
+    // Keep old method for backward compatibility
+    public List<AdminRecordResponseDto> getAllAdminRecords(int page, int size) {
+        return getAllAdminRecords(page, size, null);
+    }
 
-            List<AdminRecordResponseDto> result = transactions.stream().map(tx -> {
-                AdminRecordResponseDto dto = new AdminRecordResponseDto();
-                dto.setId(tx.getId());
-                dto.setInvoiceNumber(tx.getInvoiceNumber());
-                dto.setCustomerName(tx.getCustomerName());
-                dto.setContact(tx.getContact());
-                dto.setServiceName(tx.getServiceName());
-                dto.setLoads(tx.getServiceQuantity());
+    // Keep old method for backward compatibility
+    public List<AdminRecordResponseDto> getAllAdminRecords() {
+        return getAllAdminRecords(0, 50, null); // Default to first 50 records
+    }
 
-                // ✅ Add issueDate and dueDate to the response
-                dto.setIssueDate(tx.getIssueDate());
-                dto.setDueDate(tx.getDueDate());
+    /**
+     * Keyset page of admin records: the "all" view walks (createdAt, _id), time-filtered views walk
+     * (issueDate, _id) so the range filter and the sort share one index. Pass the previous
+     * nextCursor as {@code after}; no skip and no count query is involved.
+     */
+    public AdminRecordPageDto getAdminRecordsPage(String after, int size, String timeFilter, String search) {
+        long startTime = System.currentTimeMillis();
 
-                String detergentQty = tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("0");
+        try {
+            boolean timeFiltered = timeFilter != null && !"all".equals(timeFilter);
+            String sortField = timeFiltered ? "issueDate" : "createdAt";
+            RecordCursor cursor = RecordCursor.decode(after, sortField);
 
-                String fabricQty = tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("0");
+            List<Criteria> filters = new ArrayList<>();
+            if (timeFiltered) {
+                filters.add(Criteria.where("issueDate").gte(calculateStartDate(timeFilter, getCurrentManilaTime())));
+            }
+            if (search != null && !search.trim().isEmpty()) {
+                filters.add(CustomerNameKey.searchCriteria(search));
+            }
+            Criteria filter = filters.isEmpty() ? null : new Criteria().andOperator(filters);
 
-                dto.setDetergent(detergentQty);
-                dto.setFabric(fabricQty);
+            List<Transaction> transactions = new ArrayList<>(mongoTemplate.find(
+                    RecordCursor.pageQuery(filter, cursor, sortField, size), Transaction.class));
 
-                dto.setTotalPrice(tx.getTotalPrice());
-                dto.setPaymentMethod(tx.getPaymentMethod());
-                dto.setProcessedByStaff(tx.getStaffId());
-                dto.setPaid(tx.getPaymentMethod() != null && !tx.getPaymentMethod().isEmpty());
-                dto.setCreatedAt(tx.getCreatedAt());
+            boolean hasMore = transactions.size() > size;
+            if (hasMore) {
+                transactions = transactions.subList(0, size);
+            }
 
-                dto.setGcashVerified(tx.getGcashVerified());
+            String nextCursor = null;
+            if (hasMore) {
+                Transaction last = transactions.get(transactions.size() - 1);
+                LocalDateTime lastValue = timeFiltered ? last.getIssueDate() : last.getCreatedAt();
+                nextCursor = new RecordCursor(sortField, lastValue, last.getId()).encode();
+            }
 
-                LaundryJob job = laundryJobMap.get(tx.getInvoiceNumber());
-                if (job != null) {
-                    dto.setPickupStatus(
-                            job.getPickupStatus() != null ? job.getPickupStatus() : "UNCLAIMED");
+            return new AdminRecordPageDto(toAdminRecordDtos(transactions), nextCursor, hasMore);
+        } finally {
+            long duration = System.currentTimeMillis() - startTime;
+            System.out.println("🕒 getAdminRecordsPage took: " + duration + "ms");
+        }
+    }
 
-                    // ADD CLAIM DATE HERE
-                    dto.setClaimDate(job.getClaimDate()); // This is the claimed date
+    // Joins one page of transactions with their laundry jobs (one $in query) and maps them for the admin table
+    private List<AdminRecordResponseDto> toAdminRecordDtos(List<Transaction> transactions) {
+        List<String> transactionIds = transactions.stream()
+                .map(Transaction::getInvoiceNumber)
+                .collect(Collectors.toList());
 
-                    if (job.getLoadAssignments() != null && !job.getLoadAssignments().isEmpty()) {
-                        long completedLoads = job.getLoadAssignments().stream()
-                                .filter(load -> "COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
+        List<LaundryJob> laundryJobs = laundryJobRepository.findByTransactionIdIn(transactionIds);
+        Map<String, LaundryJob> laundryJobMap = laundryJobs.stream()
+                .collect(Collectors.toMap(LaundryJob::getTransactionId, Function.identity()));
 
-                        long totalLoads = job.getLoadAssignments().size();
+        LocalDateTime currentManilaTime = getCurrentManilaTime();
 
-                        if (completedLoads == totalLoads) {
-                            dto.setLaundryStatus("Completed");
-                        } else if (completedLoads > 0) {
-                            dto.setLaundryStatus("In Progress");
-                        } else {
-                            boolean anyInProgress = job.getLoadAssignments().stream()
-                                    .anyMatch(load -> !"NOT_STARTED".equalsIgnoreCase(load.getStatus()) &&
-                                            !"COMPLETED".equalsIgnoreCase(load.getStatus()));
-
-                            if (anyInProgress) {
-                                dto.setLaundryStatus("In Progress");
-                            } else {
-                                dto.setLaundryStatus("Not Started");
-                            }
-                        }
+        List<AdminRecordResponseDto> result = transactions.stream().map(tx -> {
+            AdminRecordResponseDto dto = new AdminRecordResponseDto();
+            dto.setId(tx.getId());
+            dto.setInvoiceNumber(tx.getInvoiceNumber());
+            dto.setCustomerName(tx.getCustomerName());
+            dto.setContact(tx.getContact());
+            dto.setServiceName(tx.getServiceName());
+            dto.setLoads(tx.getServiceQuantity());
 
-                        long unwashedLoadsCount = job.getLoadAssignments().stream()
-                                .filter(load -> !"COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
-                        dto.setUnwashedLoadsCount((int) unwashedLoadsCount);
+            // ✅ Add issueDate and dueDate to the response
+            dto.setIssueDate(tx.getIssueDate());
+            dto.setDueDate(tx.getDueDate());
+
+            dto.setDetergent(String.valueOf(tx.getDetergentQty()));
+            dto.setFabric(String.valueOf(tx.getFabricQty()));
+
+            dto.setTotalPrice(tx.getTotalPrice());
+            dto.setPaymentMethod(tx.getPaymentMethod());
+            dto.setProcessedByStaff(tx.getStaffId());
+            dto.setPaid(tx.getPaymentMethod() != null && !tx.getPaymentMethod().isEmpty());
+            dto.setCreatedAt(tx.getCreatedAt());
+
+            dto.setGcashVerified(tx.getGcashVerified());
+
+            LaundryJob job = laundryJobMap.get(tx.getInvoiceNumber());
+            if (job != null) {
+                dto.setPickupStatus(
+                        job.getPickupStatus() != null ? job.getPickupStatus() : "UNCLAIMED");
+
+                // ADD CLAIM DATE HERE
+                dto.setClaimDate(job.getClaimDate()); // This is the claimed date
+
+                if (job.getLoadAssignments() != null && !job.getLoadAssignments().isEmpty()) {
+                    long completedLoads = job.getLoadAssignments().stream()
+                            .filter(load -> "COMPLETED".equalsIgnoreCase(load.getStatus()))
+                            .count();
+
+                    long totalLoads = job.getLoadAssignments().size();
 
+                    if (completedLoads == totalLoads) {
+                        dto.setLaundryStatus("Completed");
+                    } else if (completedLoads > 0) {
+                        dto.setLaundryStatus("In Progress");
                     } else {
-                        dto.setLaundryStatus("Not Started");
-                        dto.setUnwashedLoadsCount(tx.getServiceQuantity());
+                        boolean anyInProgress = job.getLoadAssignments().stream()
+                                .anyMatch(load -> !"NOT_STARTED".equalsIgnoreCase(load.getStatus()) &&
+                                        !"COMPLETED".equalsIgnoreCase(load.getStatus()));
+
+                        if (anyInProgress) {
+                            dto.setLaundryStatus("In Progress");
+                        } else {
+                            dto.setLaundryStatus("Not Started");
+                        }
                     }
 
-                    dto.setExpired(job.isExpired());
-                    dto.setLaundryProcessedBy(job.getLaundryProcessedBy());
-                    dto.setClaimProcessedBy(job.getClaimedByStaffId());
-                    dto.setDisposed(job.isDisposed());
-                    dto.setDisposedBy(job.getDisposedBy());
+                    long unwashedLoadsCount = job.getLoadAssignments().stream()
+                            .filter(load -> !"COMPLETED".equalsIgnoreCase(load.getStatus()))
+                            .count();
+                    dto.setUnwashedLoadsCount((int) unwashedLoadsCount);
+
                 } else {
-                    dto.setPickupStatus("UNCLAIMED");
                     dto.setLaundryStatus("Not Started");
                     dto.setUnwashedLoadsCount(tx.getServiceQuantity());
-                    dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
-                    dto.setLaundryProcessedBy(null);
-                    dto.setClaimProcessedBy(null);
-                    dto.setDisposed(false);
-                    dto.setDisposedBy(null);
-                    dto.setClaimDate(null); // No claim date if no job exists
                 }
 
-                return dto;
-            }).collect(Collectors.toList());
-
-            return result;
-        } finally {
-            long duration = System.currentTimeMillis() - startTime;
-            System.out.println("🕒 getAllAdminRecords took: " + duration + "ms");
-        }
-    }
+                dto.setExpired(job.isExpired());
+                dto.setLaundryProcessedBy(job.getLaundryProcessedBy());
+                dto.setClaimProcessedBy(job.getClaimedByStaffId());
+                dto.setDisposed(job.isDisposed());
+                dto.setDisposedBy(job.getDisposedBy());
+            } else {
+                dto.setPickupStatus("UNCLAIMED");
+                dto.setLaundryStatus("Not Started");
+                dto.setUnwashedLoadsCount(tx.getServiceQuantity());
+                dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
+                dto.setLaundryProcessedBy(null);
+                dto.setClaimProcessedBy(null);
+                dto.setDisposed(false);
+                dto.setDisposedBy(null);
+                dto.setClaimDate(null); // No claim date if no job exists
+            }
 
-    // Keep old method for backward compatibility
-    public List<AdminRecordResponseDto> getAllAdminRecords(int page, int size) {
-        return getAllAdminRecords(page, size, null);
-    }
+            return dto;
+        }).collect(Collectors.toList());
 
-    // Keep old method for backward compatibility
-    public List<AdminRecordResponseDto> getAllAdminRecords() {
-        return getAllAdminRecords(0, 50, null); // Default to first 50 records
+        return result;
     }
 
     @CacheEvict(value = "adminRecords", allEntries = true)
@@ -749,83 +778,26 @@ public class TransactionService {
     }
 
     // Get summary data for all records (not paginated)
+    // Computed server-side in a single aggregation ($facet + $lookup into laundry_jobs);
+    // unclaimed only counts jobs whose loads are all COMPLETED
     @Cacheable(value = "adminSummary", key = "'all'")
-    // Also update the getAdminRecordsSummary method to only count COMPLETED
-    // unclaimed:
     public Map<String, Object> getAdminRecordsSummary() {
         long startTime = System.currentTimeMillis();
 
         try {
             System.out.println("📊 Calculating admin records summary...");
 
-            List<Transaction> allTransactions = transactionRepository.findAll();
-            List<LaundryJob> allLaundryJobs = laundryJobRepository.findAll();
-
-            Map<String, LaundryJob> laundryJobMap = allLaundryJobs.stream()
-                    .collect(Collectors.toMap(LaundryJob::getTransactionId, Function.identity()));
-
-            LocalDateTime currentManilaTime = getCurrentManilaTime();
-
-            // Calculate totals from ALL records
-            double totalIncome = allTransactions.stream()
-                    .mapToDouble(Transaction::getTotalPrice)
-                    .sum();
-
-            int totalLoads = allTransactions.stream()
-                    .mapToInt(Transaction::getServiceQuantity)
-                    .sum();
-
-            int totalFabric = allTransactions.stream()
-                    .mapToInt(tx -> tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                            .mapToInt(ServiceEntry::getQuantity)
-                            .sum())
-                    .sum();
-
-            int totalDetergent = allTransactions.stream()
-                    .mapToInt(tx -> tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                            .mapToInt(ServiceEntry::getQuantity)
-                            .sum())
-                    .sum();
-
-            long expiredCount = allTransactions.stream()
-                    .filter(tx -> {
-                        LaundryJob job = laundryJobMap.get(tx.getInvoiceNumber());
-                        if (job != null) {
-                            return job.isExpired() && !job.isDisposed();
-                        }
-                        return tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime);
-                    })
-                    .count();
-
-            // ✅ FIXED: Only count unclaimed if laundry is COMPLETED
-            long unclaimedCount = allLaundryJobs.stream()
-                    .filter(job -> job.getLoadAssignments() != null &&
-                            job.getLoadAssignments().stream()
-                                    .allMatch(load -> "COMPLETED".equalsIgnoreCase(load.getStatus())))
-                    .filter(job -> "UNCLAIMED".equalsIgnoreCase(job.getPickupStatus()))
-                    .filter(job -> !job.isExpired())
-                    .filter(job -> !job.isDisposed())
-                    .count();
-
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("totalIncome", totalIncome);
-            summary.put("totalLoads", totalLoads);
-            summary.put("totalFabric", totalFabric);
-            summary.put("totalDetergent", totalDetergent);
-            summary.put("expiredCount", expiredCount);
-            summary.put("unclaimedCount", unclaimedCount);
-            summary.put("totalRecords", allTransactions.size());
+            Document result = transactionRepository.summarizeAdminRecords(getCurrentManilaTime());
+            Map<String, Object> summary = toAdminSummary(result);
 
             System.out.println("📈 Admin Summary Results:");
-            System.out.println("   - Total Income: ₱" + totalIncome);
-            System.out.println("   - Total Loads: " + totalLoads);
-            System.out.println("   - Total Fabric: " + totalFabric);
-            System.out.println("   - Total Detergent: " + totalDetergent);
-            System.out.println("   - Expired Count: " + expiredCount);
-            System.out.println("   - Unclaimed Count: " + unclaimedCount);
-            System.out.println("   - Total Records: " + allTransactions.size());
+            System.out.println("   - Total Income: ₱" + summary.get("totalIncome"));
+            System.out.println("   - Total Loads: " + summary.get("totalLoads"));
+            System.out.println("   - Total Fabric: " + summary.get("totalFabric"));
+            System.out.println("   - Total Detergent: " + summary.get("totalDetergent"));
+            System.out.println("   - Expired Count: " + summary.get("expiredCount"));
+            System.out.println("   - Unclaimed Count: " + summary.get("unclaimedCount"));
+            System.out.println("   - Total Records: " + summary.get("totalRecords"));
 
             return summary;
         } finally {
@@ -834,8 +806,7 @@ public class TransactionService {
         }
     }
 
-    // OPTIMIZED: Get time-filtered summary using aggregation queries - UPDATED to
-    // use issueDate
+    // OPTIMIZED: Time-filtered summary in one aggregation round-trip - filters on issueDate
     @Cacheable(value = "adminSummary", key = "'optimized-' + #timeFilter")
     public Map<String, Object> getOptimizedAdminRecordsSummaryByTime(String timeFilter) {
         long startTime = System.currentTimeMillis();
@@ -844,44 +815,21 @@ public class TransactionService {
             System.out.println("🚀 OPTIMIZED: Calculating time-filtered admin records summary: " + timeFilter);
 
             LocalDateTime currentManilaTime = getCurrentManilaTime();
-            LocalDateTime startDate = calculateStartDate(timeFilter, currentManilaTime);
-
-            // Use MongoDB aggregation for income and loads (no Java filtering needed)
-            double totalIncome = calculateTotalIncome(timeFilter, startDate);
-            int totalLoads = calculateTotalLoads(timeFilter, startDate);
-
-            // Load filtered transactions ONCE for fabric + detergent (requires embedded doc inspection)
-            List<Transaction> filteredForConsumables = getFilteredTransactionsForConsumables(timeFilter, startDate);
-            int totalFabric = filteredForConsumables.stream()
-                    .mapToInt(tx -> tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                            .mapToInt(ServiceEntry::getQuantity)
-                            .sum())
-                    .sum();
-            int totalDetergent = filteredForConsumables.stream()
-                    .mapToInt(tx -> tx.getConsumables().stream()
-                            .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                            .mapToInt(ServiceEntry::getQuantity)
-                            .sum())
-                    .sum();
-
-            // Use dedicated count queries instead of loading all records
-            long expiredCount = laundryJobRepository.countByExpiredTrueAndDisposedFalse();
-            long unclaimedCount = laundryJobRepository.countByPickupStatusAndExpiredFalseAndDisposedFalse("UNCLAIMED");
-
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("totalIncome", totalIncome);
-            summary.put("totalLoads", totalLoads);
-            summary.put("totalFabric", totalFabric);
-            summary.put("totalDetergent", totalDetergent);
-            summary.put("expiredCount", expiredCount);
-            summary.put("unclaimedCount", unclaimedCount);
-            summary.put("totalRecords", getTotalRecordsCount(timeFilter));
+
+            Document result;
+            if ("all".equals(timeFilter)) {
+                result = transactionRepository.summarizeAdminRecords(currentManilaTime);
+            } else {
+                LocalDateTime startDate = calculateStartDate(timeFilter, currentManilaTime);
+                result = transactionRepository.summarizeAdminRecordsIssuedSince(currentManilaTime, startDate);
+            }
+
+            Map<String, Object> summary = toAdminSummary(result);
             summary.put("timeFilter", timeFilter);
 
             System.out.println("🚀 OPTIMIZED Time-Filtered Summary Results (" + timeFilter + "):");
-            System.out.println("   - Total Income: ₱" + totalIncome);
-            System.out.println("   - Total Loads: " + totalLoads);
+            System.out.println("   - Total Income: ₱" + summary.get("totalIncome"));
+            System.out.println("   - Total Loads: " + summary.get("totalLoads"));
             System.out.println("   - Total Records: " + summary.get("totalRecords"));
             System.out.println("   - Calculation time: " + (System.currentTimeMillis() - startTime) + "ms");
 
@@ -892,87 +840,30 @@ public class TransactionService {
         }
     }
 
-    // Get time-filtered summary - cached per timeFilter
-    @Cacheable(value = "adminSummary", key = "#timeFilter")
-    public Map<String, Object> getAdminRecordsSummaryByTime(String timeFilter) {
-        // Directly execute optimized logic (not delegating to avoid cache proxy bypass)
-        return getOptimizedAdminRecordsSummaryByTime(timeFilter);
-    }
+    // Maps the aggregation output to the response shape the admin records page expects
+    private Map<String, Object> toAdminSummary(Document result) {
+        Document row = result != null ? result : new Document();
 
-    // Helper methods for optimized calculations - uses MongoDB aggregation instead of loading all records
-    private double calculateTotalIncome(String timeFilter, LocalDateTime startDate) {
-        if ("all".equals(timeFilter)) {
-            Double result = transactionRepository.sumTotalPrice();
-            return result != null ? result : 0.0;
-        } else {
-            // ✅ OPTIMIZED: Use MongoDB aggregation instead of findAll() + Java filter
-            try {
-                Double result = transactionRepository.sumTotalPriceByIssueDateAfter(startDate);
-                return result != null ? result : 0.0;
-            } catch (Exception e) {
-                System.out.println("⚠️  Falling back to createdAt aggregation for income: " + e.getMessage());
-                Double result = transactionRepository.sumTotalPriceByCreatedAtAfter(startDate);
-                return result != null ? result : 0.0;
-            }
-        }
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalIncome", toNumber(row.get("totalIncome")).doubleValue());
+        summary.put("totalLoads", toNumber(row.get("totalLoads")).intValue());
+        summary.put("totalFabric", toNumber(row.get("totalFabric")).intValue());
+        summary.put("totalDetergent", toNumber(row.get("totalDetergent")).intValue());
+        summary.put("expiredCount", toNumber(row.get("expiredCount")).longValue());
+        summary.put("unclaimedCount", toNumber(row.get("unclaimedCount")).longValue());
+        summary.put("totalRecords", toNumber(row.get("totalRecords")).longValue());
+        return summary;
     }
 
-    private int calculateTotalLoads(String timeFilter, LocalDateTime startDate) {
-        if ("all".equals(timeFilter)) {
-            Integer result = transactionRepository.sumServiceQuantity();
-            return result != null ? result : 0;
-        } else {
-            // ✅ OPTIMIZED: Use MongoDB aggregation instead of findAll() + Java filter
-            try {
-                Integer result = transactionRepository.sumServiceQuantityByIssueDateAfter(startDate);
-                return result != null ? result : 0;
-            } catch (Exception e) {
-                System.out.println("⚠️  Falling back to createdAt aggregation for loads: " + e.getMessage());
-                Integer result = transactionRepository.sumServiceQuantityByCreatedAtAfter(startDate);
-                return result != null ? result : 0;
-            }
-        }
+    private Number toNumber(Object value) {
+        return value instanceof Number ? (Number) value : 0;
     }
 
-
-
-    // ✅ OPTIMIZED: Single DB query for consumable calculations - uses issueDate filtering at DB level
-    private List<Transaction> getFilteredTransactionsForConsumables(String timeFilter, LocalDateTime startDate) {
-        if ("all".equals(timeFilter)) {
-            return transactionRepository.findAll();
-        } else {
-            try {
-                return transactionRepository.findByIssueDateAfter(startDate);
-            } catch (Exception e) {
-                System.out.println("⚠️  Falling back to createdAt filtering for consumables: " + e.getMessage());
-                return transactionRepository.findByCreatedAtAfter(startDate);
-            }
-        }
-    }
-
-    // Update the helper method to use issueDate-based counting
-    private long getTotalRecordsCount(String timeFilter) {
-        if ("all".equals(timeFilter)) {
-            return transactionRepository.count();
-        } else {
-            LocalDateTime currentManilaTime = getCurrentManilaTime();
-            LocalDateTime startDate = calculateStartDate(timeFilter, currentManilaTime);
-
-            // ✅ FIXED: Use issueDate for counting
-            try {
-                return transactionRepository.countByIssueDateAfter(startDate);
-            } catch (Exception e) {
-                System.out.println("⚠️  Falling back to Java filtering for counting: " + e.getMessage());
-                // Fallback to Java filtering
-                return transactionRepository.findAll().stream()
-                        .filter(tx -> {
-                            LocalDateTime recordDate = tx.getIssueDate() != null ? tx.getIssueDate()
-                                    : tx.getCreatedAt();
-                            return recordDate != null && !recordDate.isBefore(startDate);
-                        })
-                        .count();
-            }
-        }
+    // Get time-filtered summary - cached per timeFilter
+    @Cacheable(value = "adminSummary", key = "#timeFilter")
+    public Map<String, Object> getAdminRecordsSummaryByTime(String timeFilter) {
+        // Directly execute optimized logic (not delegating to avoid cache proxy bypass)
+        return getOptimizedAdminRecordsSummaryByTime(timeFilter);
     }
 
     private LocalDateTime calculateStartDate(String timeFilter, LocalDateTime currentTime) {
@@ -1091,11 +982,28 @@ public class TransactionService {
     @Cacheable(value = "adminRecordsCount", key = "'all-search-' + (#search ?: '')")
     public long getTotalAdminRecordsCount(String search) {
         if (search != null && !search.trim().isEmpty()) {
-            return transactionRepository.countByCustomerNameContainingIgnoreCase(search.trim());
+            return mongoTemplate.count(new Query(CustomerNameKey.searchCriteria(search)), Transaction.class);
         }
         return transactionRepository.count();
     }
 
+    // Indexed customer search (searchTerms prefix match), optionally narrowed by a date filter
+    private Page<Transaction> findByCustomerSearch(Criteria dateFilter, String search, Pageable pageable) {
+        Criteria criteria = CustomerNameKey.searchCriteria(search);
+        if (dateFilter != null) {
+            criteria = new Criteria().andOperator(dateFilter, criteria);
+        }
+        Query query = new Query(criteria);
+        long total = mongoTemplate.count(query, Transaction.class);
+        List<Transaction> content = mongoTemplate.find(Query.of(query).with(pageable), Transaction.class);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // O(1) collection-metadata count for the unfiltered list; exact count is only needed for page numbers
+    public long getEstimatedAdminRecordsCount() {
+        return mongoTemplate.estimatedCount(Transaction.class);
+    }
+
     // Keep old method for backward compatibility
     public long getTotalAdminRecordsCount() {
         return getTotalAdminRecordsCount(null);
@@ -1111,14 +1019,15 @@ public class TransactionService {
             System.out.println("🔄 OPTIMIZED: Fetching time-filtered admin records - Page: " + page + ", Size: " + size
                     + ", Filter: " + timeFilter + ", Search: " + search);
 
-            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            // Same order as getAdminRecordsPage: (createdAt, _id) for "all", (issueDate, _id) when time-filtered
+            String sortField = "all".equals(timeFilter) ? "createdAt" : "issueDate";
+            Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc(sortField), Sort.Order.desc("_id")));
             List<Transaction> transactions;
 
             // Use database-level filtering instead of Java filtering
             if ("all".equals(timeFilter)) {
                 if (search != null && !search.trim().isEmpty()) {
-                    transactions = transactionRepository.findByCustomerNameContainingIgnoreCase(search.trim(), pageable)
-                            .getContent();
+                    transactions = findByCustomerSearch(null, search, pageable).getContent();
                 } else {
                     transactions = transactionRepository.findAll(pageable).getContent();
                 }
@@ -1129,8 +1038,8 @@ public class TransactionService {
                 // Try to use issueDate-based query first, fall back to createdAt if needed
                 try {
                     if (search != null && !search.trim().isEmpty()) {
-                        transactions = transactionRepository.findByIssueDateAfterAndCustomerNameContainingIgnoreCase(
-                                startDate, search.trim(), pageable).getContent();
+                        transactions = findByCustomerSearch(Criteria.where("issueDate").gte(startDate), search,
+                                pageable).getContent();
                     } else {
                         transactions = transactionRepository.findByIssueDateAfter(startDate, pageable).getContent();
                     }
@@ -1138,117 +1047,15 @@ public class TransactionService {
                 } catch (Exception e) {
                     System.out.println("⚠️  Falling back to createdAt filtering: " + e.getMessage());
                     if (search != null && !search.trim().isEmpty()) {
-                        transactions = transactionRepository.findByCreatedAtAfterAndCustomerNameContainingIgnoreCase(
-                                startDate, search.trim(), pageable).getContent();
+                        transactions = findByCustomerSearch(Criteria.where("createdAt").gte(startDate), search,
+                                pageable).getContent();
                     } else {
                         transactions = transactionRepository.findByCreatedAtAfter(startDate, pageable).getContent();
                     }
                 }
             }
 
-            // Get only the laundry jobs needed for these transactions
-            List<String> transactionIds = transactions.stream()
-                    .map(Transaction::getInvoiceNumber)
-                    .collect(Collectors.toList());
-
-            List<LaundryJob> laundryJobs = laundryJobRepository.findByTransactionIdIn(transactionIds);
-            Map<String, LaundryJob> laundryJobMap = laundryJobs.stream()
-                    .collect(Collectors.toMap(LaundryJob::getTransactionId, Function.identity()));
-
-            LocalDateTime currentManilaTime = getCurrentManilaTime();
-
-            List<AdminRecordResponseDto> result = transactions.stream().map(tx -> {
-                AdminRecordResponseDto dto = new AdminRecordResponseDto();
-                dto.setId(tx.getId());
-                dto.setInvoiceNumber(tx.getInvoiceNumber());
-                dto.setCustomerName(tx.getCustomerName());
-                dto.setContact(tx.getContact());
-                dto.setServiceName(tx.getServiceName());
-                dto.setLoads(tx.getServiceQuantity());
-
-                // ✅ Add issueDate to the response
-                dto.setIssueDate(tx.getIssueDate());
-
-                // ✅ Add dueDate to the response
-                dto.setDueDate(tx.getDueDate());
-
-                String detergentQty = tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("detergent"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("0");
-
-                String fabricQty = tx.getConsumables().stream()
-                        .filter(c -> c.getName().toLowerCase().contains("fabric"))
-                        .map(c -> String.valueOf(c.getQuantity()))
-                        .findFirst().orElse("0");
-
-                dto.setDetergent(detergentQty);
-                dto.setFabric(fabricQty);
-
-                dto.setTotalPrice(tx.getTotalPrice());
-                dto.setPaymentMethod(tx.getPaymentMethod());
-                dto.setProcessedByStaff(tx.getStaffId());
-                dto.setPaid(tx.getPaymentMethod() != null && !tx.getPaymentMethod().isEmpty());
-                dto.setCreatedAt(tx.getCreatedAt());
-
-                dto.setGcashVerified(tx.getGcashVerified());
-
-                LaundryJob job = laundryJobMap.get(tx.getInvoiceNumber());
-                if (job != null) {
-                    dto.setPickupStatus(
-                            job.getPickupStatus() != null ? job.getPickupStatus() : "UNCLAIMED");
-
-                    if (job.getLoadAssignments() != null && !job.getLoadAssignments().isEmpty()) {
-                        long completedLoads = job.getLoadAssignments().stream()
-                                .filter(load -> "COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
-
-                        long totalLoads = job.getLoadAssignments().size();
-
-                        if (completedLoads == totalLoads) {
-                            dto.setLaundryStatus("Completed");
-                        } else if (completedLoads > 0) {
-                            dto.setLaundryStatus("In Progress");
-                        } else {
-                            boolean anyInProgress = job.getLoadAssignments().stream()
-                                    .anyMatch(load -> !"NOT_STARTED".equalsIgnoreCase(load.getStatus()) &&
-                                            !"COMPLETED".equalsIgnoreCase(load.getStatus()));
-
-                            if (anyInProgress) {
-                                dto.setLaundryStatus("In Progress");
-                            } else {
-                                dto.setLaundryStatus("Not Started");
-                            }
-                        }
-
-                        long unwashedLoadsCount = job.getLoadAssignments().stream()
-                                .filter(load -> !"COMPLETED".equalsIgnoreCase(load.getStatus()))
-                                .count();
-                        dto.setUnwashedLoadsCount((int) unwashedLoadsCount);
-
-                    } else {
-                        dto.setLaundryStatus("Not Started");
-                        dto.setUnwashedLoadsCount(tx.getServiceQuantity());
-                    }
-
-                    dto.setExpired(job.isExpired());
-                    dto.setLaundryProcessedBy(job.getLaundryProcessedBy());
-                    dto.setClaimProcessedBy(job.getClaimedByStaffId());
-                    dto.setDisposed(job.isDisposed());
-                    dto.setDisposedBy(job.getDisposedBy());
-                } else {
-                    dto.setPickupStatus("UNCLAIMED");
-                    dto.setLaundryStatus("Not Started");
-                    dto.setUnwashedLoadsCount(tx.getServiceQuantity());
-                    dto.setExpired(tx.getDueDate() != null && tx.getDueDate().isBefore(currentManilaTime));
-                    dto.setLaundryProcessedBy(null);
-                    dto.setClaimProcessedBy(null);
-                    dto.setDisposed(false);
-                    dto.setDisposedBy(null);
-                }
-
-                return dto;
-            }).collect(Collectors.toList());
+            List<AdminRecordResponseDto> result = toAdminRecordDtos(transactions);
 
             System.out.println("✅ OPTIMIZED: Loaded " + result.size() + " time-filtered records");
             return result;
@@ -1270,8 +1077,9 @@ public class TransactionService {
                 LocalDateTime startDate = calculateStartDate(timeFilter, getCurrentManilaTime());
 
                 if (search != null && !search.trim().isEmpty()) {
-                    return transactionRepository.countByIssueDateAfterAndCustomerNameContainingIgnoreCase(startDate,
-                            search.trim());
+                    return mongoTemplate.count(new Query(new Criteria().andOperator(
+                            Criteria.where("issueDate").gte(startDate), CustomerNameKey.searchCriteria(search))),
+                            Transaction.class);
                 }
 
                 // ✅ FIXED: Use issueDate instead of createdAt for counting
@@ -0,0 +1,108 @@
+package com.starwash.authservice.config;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.Notification;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// No database needed: checks which index definitions reach createIndex at startup
+class MongoIndexInitializerTests {
+
+    private final Map<Class<?>, List<Document>> created = new HashMap<>();
+    private final Map<Class<?>, IndexOperations> opsByType = new HashMap<>();
+    private String conflictOn;
+    private MongoClient client;
+    private MongoIndexInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        // Built like MongoConfig's template; the client only connects on first use, which never comes
+        client = MongoClients.create("mongodb://localhost:27017");
+        MongoTemplate mongoTemplate = spy(new MongoTemplate(client, "starwashDB"));
+        doAnswer(inv -> {
+            Class<?> type = inv.getArgument(0);
+            IndexOperations ops = opsByType.computeIfAbsent(type, t -> mock(IndexOperations.class));
+            when(ops.createIndex(any(IndexDefinition.class))).thenAnswer(create -> {
+                IndexDefinition index = create.getArgument(0);
+                if (index.getIndexOptions().getString("name").equals(conflictOn)) {
+                    throw new MongoCommandException(new BsonDocument("code", new BsonInt32(85))
+                            .append("errmsg", new BsonString("Index already exists with different options")),
+                            new ServerAddress());
+                }
+                created.computeIfAbsent(type, t -> new ArrayList<>()).add(index.getIndexOptions());
+                return index.getIndexOptions().getString("name");
+            });
+            return ops;
+        }).when(mongoTemplate).indexOps(any(Class.class));
+        initializer = new MongoIndexInitializer(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void createsThePartialLaundryJobIndexes() {
+        initializer.createIndexes();
+
+        Document completedUnclaimed = find(LaundryJob.class, "completed_unclaimed_idx");
+        Document filter = (Document) completedUnclaimed.get("partialFilterExpression");
+        assertEquals(true, filter.get("allLoadsCompleted"));
+        assertEquals("UNCLAIMED", filter.get("pickupStatus"));
+        assertNotNull(find(LaundryJob.class, "pending_loads_idx").get("partialFilterExpression"));
+    }
+
+    @Test
+    void createsTheNotificationIndexesWithTheReadTtl() {
+        initializer.createIndexes();
+
+        assertNotNull(find(Notification.class, "user_read_created_idx"));
+        assertNotNull(find(Notification.class, "user_created_idx"));
+        Document ttl = find(Notification.class, "read_at_ttl_idx");
+        assertEquals(Duration.ofDays(30).toSeconds(), ((Number) ttl.get("expireAfterSeconds")).longValue());
+    }
+
+    @Test
+    void existingTtlIndexWithAnotherExpiryIsAltered() {
+        conflictOn = "read_at_ttl_idx";
+        initializer.createIndexes();
+
+        IndexOperations ops = opsByType.get(Notification.class);
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(ops).alterIndex(eq("read_at_ttl_idx"), options.capture());
+        assertEquals(Duration.ofDays(30), options.getValue().getExpire());
+    }
+
+    private Document find(Class<?> type, String name) {
+        return created.getOrDefault(type, List.of()).stream()
+                .filter(options -> name.equals(options.getString("name")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(name + " was not created on " + type.getSimpleName()));
+    }
+}
@@ -0,0 +1,129 @@
+package com.starwash.authservice.model;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.starwash.authservice.config.MongoIndexInitializer;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Old case-insensitive $regex vs. the indexed searchTerms prefix match, against a real MongoDB
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+class CustomerNameKeyBenchmarkTests {
+
+    private static final int DOCUMENTS = 50_000;
+    private static final int RUNS = 20;
+
+    private static final String[] FIRST = { "Juan", "Maria", "José", "Ana", "Pedro", "Liza", "Marco", "Rosa" };
+    private static final String[] LAST = { "Dela Cruz", "Santos", "Reyes", "Garcia", "Mendoza", "Bautista",
+            "Villanueva", "Ramos", "Aquino", "Castillo" };
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void seed() {
+        client = MongoClients.create(System.getenv("MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(client, "starwashDB_search_bench");
+        mongoTemplate.dropCollection(Transaction.class);
+        mongoTemplate.dropCollection(LaundryJob.class);
+        // The indexes come from the same startup step the app runs, not from the test
+        new MongoIndexInitializer(mongoTemplate).createIndexes();
+
+        Random random = new Random(42);
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Transaction tx = new Transaction();
+            tx.setInvoiceNumber("BENCH-" + i);
+            tx.setCustomerName(FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)]
+                    + " " + Integer.toString(i, 36));
+            tx.setCreatedAt(LocalDateTime.now());
+            batch.add(tx);
+            if (batch.size() == 5_000) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class).insert(batch).execute();
+                batch.clear();
+            }
+        }
+    }
+
+    @AfterAll
+    static void drop() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void termPrefixSearchUsesIndexAndMatchesRegexResults() {
+        String search = "villan";
+
+        Query oldQuery = new Query(Criteria.where("customerName").regex(Pattern.quote(search), "i"));
+        Query newQuery = new Query(CustomerNameKey.searchCriteria(search));
+
+        long oldMs = time(oldQuery);
+        long newMs = time(newQuery);
+        Document oldStats = explain(oldQuery);
+        Document newStats = explain(newQuery);
+
+        System.out.println("🔎 '" + search + "' over " + DOCUMENTS + " docs, " + RUNS + " runs:"
+                + " regex " + oldMs + "ms (" + oldStats.get("totalDocsExamined") + " docs examined),"
+                + " searchTerms " + newMs + "ms (" + newStats.get("totalDocsExamined") + " docs examined)");
+
+        assertEquals(mongoTemplate.count(oldQuery, Transaction.class), mongoTemplate.count(newQuery, Transaction.class));
+        assertEquals(DOCUMENTS, ((Number) oldStats.get("totalDocsExamined")).intValue());
+        assertTrue(((Number) newStats.get("totalDocsExamined")).intValue() < DOCUMENTS / 5);
+        assertTrue(((Number) newStats.get("totalKeysExamined")).intValue() < DOCUMENTS / 5);
+    }
+
+    @Test
+    void startupCreatesTheSearchTermsIndexes() {
+        assertTrue(hasIndexOn(Transaction.class, "searchTerms"));
+        assertTrue(hasIndexOn(LaundryJob.class, "searchTerms"));
+    }
+
+    @Test
+    void accentsCaseAndWordOrderDoNotMatter() {
+        long plain = mongoTemplate.count(new Query(CustomerNameKey.searchCriteria("jose dela")), Transaction.class);
+        long accented = mongoTemplate.count(new Query(CustomerNameKey.searchCriteria("  JOSÉ   Dela ")), Transaction.class);
+        long reversed = mongoTemplate.count(new Query(CustomerNameKey.searchCriteria("dela jose")), Transaction.class);
+
+        assertTrue(plain > 0);
+        assertEquals(plain, accented);
+        assertEquals(plain, reversed);
+    }
+
+    private long time(Query query) {
+        mongoTemplate.find(query, Transaction.class); // warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            mongoTemplate.find(query, Transaction.class);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private boolean hasIndexOn(Class<?> type, String field) {
+        return mongoTemplate.indexOps(type).getIndexInfo().stream()
+                .anyMatch(index -> index.isIndexForFields(List.of(field)));
+    }
+
+    private Document explain(Query query) {
+        Document plan = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Transaction.class))
+                .find(query.getQueryObject())
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+        return plan.get("executionStats", Document.class);
+    }
+}
@@ -0,0 +1,194 @@
+package com.starwash.authservice.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.starwash.authservice.dto.LoadOperationDto;
+import com.starwash.authservice.dto.LoadOperationResultDto;
+import com.starwash.authservice.model.LaundryJob;
+import com.starwash.authservice.model.LaundryJob.LoadAssignment;
+import com.starwash.authservice.model.MachineItem;
+import com.starwash.authservice.repository.LaundryJobRepository;
+import com.starwash.authservice.repository.MachineRepository;
+import com.starwash.authservice.repository.TransactionRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Plain unit tests for the batch path: Mongo is mocked, so the guarded write "misses" simply by
+// the re-read returning a load that isn't in the state the batch wrote
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LaundryJobBatchOperationsTests {
+
+    @Mock private LaundryJobRepository laundryJobRepository;
+    @Mock private TransactionRepository transactionRepository;
+    @Mock private MachineRepository machineRepository;
+    @Mock private SmsService smsService;
+    @Mock private NotificationService notificationService;
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private CompletedLoadCounterService completedLoadCounterService;
+    @Mock private MachineAvailabilityRegistry machineAvailabilityRegistry;
+    @Mock private LoadDispatcher loadDispatcher;
+    @Mock private JobExpiryScheduler jobExpiryScheduler;
+    @Mock private DisposalWarningService disposalWarningService;
+    @Mock private CycleTimerService cycleTimerService;
+
+    @Mock private BulkOperations jobBulk;
+    @Mock private BulkOperations machineBulk;
+
+    @InjectMocks
+    private LaundryJobService laundryJobService;
+
+    private final MachineItem washer1 = new MachineItem("W1", "Washer 1", "Washer", 8.0, "Available", null, null);
+    private final MachineItem washer2 = new MachineItem("W2", "Washer 2", "Washer", 8.0, "Available", null, null);
+
+    @BeforeEach
+    void stubMongo() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(LaundryJob.class))).thenReturn(jobBulk);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(MachineItem.class))).thenReturn(machineBulk);
+        when(jobBulk.updateOne(any(Query.class), any(Update.class))).thenReturn(jobBulk);
+        when(machineBulk.updateOne(any(Query.class), any(Update.class))).thenReturn(machineBulk);
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(LaundryJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(machineRepository.findAllById(any())).thenReturn(List.of(washer1, washer2));
+        when(machineAvailabilityRegistry.claim(anyString()))
+                .thenAnswer(inv -> "W1".equals(inv.getArgument(0)) ? washer1 : washer2);
+    }
+
+    @Test
+    void conflictingLoadFailsAllOfItsOperations() {
+        LaundryJob before = job("TX-1", "Wash & Dry",
+                load(1, null, "NOT_STARTED"),
+                load(2, null, "NOT_STARTED"));
+        // Someone else started load 1 on another washer between our read and our write
+        LaundryJob after = job("TX-1", "Wash & Dry",
+                load(1, "W9", "WASHING"),
+                load(2, "W2", "NOT_STARTED"));
+        when(mongoTemplate.find(any(Query.class), eq(LaundryJob.class))).thenReturn(List.of(before))
+                .thenReturn(List.of(after));
+
+        List<LoadOperationResultDto> results = laundryJobService.applyLoadOperations(List.of(
+                new LoadOperationDto("ASSIGN", "TX-1", 1, "W1", null),
+                new LoadOperationDto("START", "TX-1", 1, null, null),
+                new LoadOperationDto("ASSIGN", "TX-1", 2, "W2", null)), "staff1");
+
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(0).getError().contains("changed by someone else"));
+        assertTrue(results.get(1).getError().contains("changed by someone else"));
+
+        // The other load of the same batch still applies
+        assertTrue(results.get(2).isSuccess());
+        assertEquals("W2", results.get(2).getMachineId());
+        verify(cycleTimerService, never()).schedule(eq("TX-1"), argThat(l -> l.getLoadNumber() == 1));
+    }
+
+    @Test
+    void failedLoadHandsBackItsBooking() {
+        LaundryJob before = job("TX-2", "Wash & Dry",
+                load(1, null, "NOT_STARTED"),
+                load(2, null, "NOT_STARTED"));
+        LaundryJob after = job("TX-2", "Wash & Dry",
+                load(1, null, "WASHING"),
+                load(2, "W2", "NOT_STARTED"));
+        when(mongoTemplate.find(any(Query.class), eq(LaundryJob.class))).thenReturn(List.of(before))
+                .thenReturn(List.of(after));
+
+        List<LoadOperationResultDto> results = laundryJobService.applyLoadOperations(List.of(
+                new LoadOperationDto("ASSIGN", "TX-2", 1, "W1", null),
+                new LoadOperationDto("ASSIGN", "TX-2", 2, "W2", null)), "staff1");
+
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        verify(machineAvailabilityRegistry).claim("W1");
+        verify(machineAvailabilityRegistry).claim("W2");
+
+        // W1 was booked for the load that failed, so it goes back; W2 stays with load 2
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(machineBulk).updateOne(queries.capture(), updates.capture());
+        assertEquals("W1", queries.getValue().getQueryObject().get("_id"));
+        Document set = (Document) updates.getValue().getUpdateObject().get("$set");
+        assertEquals(MachineAvailabilityRegistry.STATUS_AVAILABLE, set.get("status"));
+        verify(machineBulk).execute();
+    }
+
+    @Test
+    void advanceOnlyMovesForwardAlongTheFlow() {
+        LaundryJob before = job("TX-3", "Wash & Dry", load(1, null, "DRIED"));
+        LaundryJob after = job("TX-3", "Wash & Dry", load(1, null, "FOLDING"));
+        when(mongoTemplate.find(any(Query.class), eq(LaundryJob.class))).thenReturn(List.of(before))
+                .thenReturn(List.of(after));
+
+        List<LoadOperationResultDto> results = laundryJobService.applyLoadOperations(List.of(
+                new LoadOperationDto("ADVANCE", "TX-3", 1, null, "WASHING"),
+                new LoadOperationDto("ADVANCE", "TX-3", 1, null, "DRIED"),
+                new LoadOperationDto("ADVANCE", "TX-3", 1, null, "FOLDING"),
+                // Checked against the pending FOLDING, not the DRIED that was read
+                new LoadOperationDto("ADVANCE", "TX-3", 1, null, "DRIED")), "staff1");
+
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("Cannot move load from DRIED to WASHING", results.get(0).getError());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Cannot move load from DRIED to DRIED", results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals("FOLDING", results.get(2).getStatus());
+        assertFalse(results.get(3).isSuccess());
+        assertEquals("Cannot move load from FOLDING to DRIED", results.get(3).getError());
+
+        // One guarded write for the load, carrying only the forward move
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(jobBulk).updateOne(any(Query.class), updates.capture());
+        Document set = (Document) updates.getValue().getUpdateObject().get("$set");
+        assertTrue(set.containsValue("FOLDING"));
+        assertFalse(set.containsValue("WASHING"));
+    }
+
+    @Test
+    void batchWithOnlyRejectedOperationsWritesNothing() {
+        LaundryJob before = job("TX-4", "Wash", load(1, null, "WASHED"));
+        when(mongoTemplate.find(any(Query.class), eq(LaundryJob.class))).thenReturn(List.of(before));
+
+        List<LoadOperationResultDto> results = laundryJobService.applyLoadOperations(List.of(
+                new LoadOperationDto("ADVANCE", "TX-4", 1, null, "WASHING"),
+                new LoadOperationDto("ADVANCE", "TX-4", 1, null, "DRYING")), "staff1");
+
+        assertTrue(results.stream().noneMatch(LoadOperationResultDto::isSuccess));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(LaundryJob.class));
+        verify(notificationService, never()).broadcast(anyString(), anyCollection(), any());
+    }
+
+    private static LaundryJob job(String transactionId, String serviceType, LoadAssignment... loads) {
+        LaundryJob job = new LaundryJob();
+        job.setTransactionId(transactionId);
+        job.setCustomerName("Juan Dela Cruz");
+        job.setServiceType(serviceType);
+        job.setLoadAssignments(new ArrayList<>(List.of(loads)));
+        return job;
+    }
+
+    private static LoadAssignment load(int loadNumber, String machineId, String status) {
+        return new LoadAssignment(loadNumber, machineId, status, null, null, null);
+    }
+}
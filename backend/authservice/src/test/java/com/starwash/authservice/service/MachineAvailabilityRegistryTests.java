@@ -0,0 +1,130 @@
+package com.starwash.authservice.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.starwash.authservice.model.MachineItem;
+import com.starwash.authservice.repository.MachineRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against a real MongoDB (same MONGODB_URI the app uses) in a throwaway database
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+class MachineAvailabilityRegistryTests {
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static MachineRepository machineRepository;
+    private MachineAvailabilityRegistry registry;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(System.getenv("MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(client, "starwashDB_machine_test");
+        machineRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(MachineRepository.class);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        mongoTemplate.dropCollection(MachineItem.class);
+        registry = new MachineAvailabilityRegistry(mongoTemplate, machineRepository);
+    }
+
+    @Test
+    void sameWasherIsNeverBookedTwice() throws Exception {
+        MachineItem washer = machineRepository.save(new MachineItem(null, "Washer 1", "Washer", 8.0, "Available", null, null));
+        registry.reload();
+
+        int threads = 16;
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                try {
+                    registry.claim(washer.getId());
+                    booked.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(1, booked.get());
+        assertEquals(threads - 1, rejected.get());
+        assertFalse(registry.isFree(washer.getId()));
+    }
+
+    @Test
+    void claimAnyHandsOutEachDryerOnce() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            machineRepository.save(new MachineItem(null, "Dryer " + i, "Dryer", 8.0, "Available", null, null));
+        }
+        registry.reload();
+
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger empty = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                start.await();
+                Optional<MachineItem> dryer = registry.claimAny("DRYER");
+                if (dryer.isPresent()) {
+                    claimed.add(dryer.get().getId()); // a double booking would leave fewer ids than claims
+                } else {
+                    empty.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(3, claimed.size());
+        assertEquals(5, empty.get());
+    }
+
+    @Test
+    void releasedMachineCanBeClaimedAgain() {
+        MachineItem washer = machineRepository.save(new MachineItem(null, "Washer 1", "Washer", 8.0, "Available", null, null));
+        registry.reload();
+
+        registry.claim(washer.getId());
+        assertTrue(registry.claimAny("WASHER").isEmpty());
+
+        assertTrue(registry.release(washer.getId()));
+        assertTrue(registry.isFree(washer.getId()));
+        assertEquals(washer.getId(), registry.claimAny("washer").orElseThrow().getId());
+    }
+}
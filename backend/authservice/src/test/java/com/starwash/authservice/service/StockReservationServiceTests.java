@@ -0,0 +1,134 @@
+package com.starwash.authservice.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.starwash.authservice.model.StockItem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against a real MongoDB (same MONGODB_URI the app uses) in a throwaway database
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+class StockReservationServiceTests {
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private StockReservationService stockReservationService;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(System.getenv("MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(client, "starwashDB_stock_test");
+    }
+
+    @AfterAll
+    static void disconnect() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        mongoTemplate.dropCollection(StockItem.class);
+        stockReservationService = new StockReservationService(mongoTemplate);
+    }
+
+    @Test
+    void concurrentDeductionsNeverOversell() throws Exception {
+        mongoTemplate.save(new StockItem("Detergent", 100, "pcs", 15.0));
+
+        int threads = 32;
+        int attemptsPerThread = 10;
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        stockReservationService.deduct(Map.of("Detergent", 1));
+                        succeeded.incrementAndGet();
+                    } catch (StockReservationService.StockShortageException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        StockItem item = mongoTemplate.findAll(StockItem.class).get(0);
+        assertEquals(100, succeeded.get());
+        assertEquals(threads * attemptsPerThread - 100, rejected.get());
+        assertEquals(0, item.getQuantity());
+    }
+
+    @Test
+    void raceOnSecondItemRollsBackFirstItem() throws Exception {
+        mongoTemplate.save(new StockItem("Detergent", 100, "pcs", 15.0));
+        mongoTemplate.save(new StockItem("Fabric Conditioner", 50, "pcs", 12.0));
+
+        // Conditioner runs out first, so late invoices fail mid-batch after detergent was already deducted
+        int threads = 16;
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 8; i++) {
+                    Map<String, Integer> order = new LinkedHashMap<>();
+                    order.put("Detergent", 1);
+                    order.put("Fabric Conditioner", 1);
+                    try {
+                        stockReservationService.deduct(order);
+                        succeeded.incrementAndGet();
+                    } catch (StockReservationService.StockShortageException ignored) {
+                        // expected once the conditioner is gone
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertEquals(50, succeeded.get());
+        for (StockItem item : mongoTemplate.findAll(StockItem.class)) {
+            assertEquals(item.getName().equals("Detergent") ? 50 : 0, item.getQuantity());
+        }
+    }
+
+    @Test
+    void returnsPreviousQuantityForNotifications() {
+        mongoTemplate.save(new StockItem("Plastic", 20, "pcs", 2.0));
+
+        List<StockReservationService.StockDeduction> deductions =
+                stockReservationService.deduct(Map.of("Plastic", 5));
+
+        assertEquals(1, deductions.size());
+        assertEquals(20, deductions.get(0).getPreviousQuantity());
+        assertEquals(15, deductions.get(0).getItem().getQuantity());
+    }
+}
@@ -10,6 +10,8 @@ export const useSse = (eventHandlers = {}, userId = '') => {
     const eventSourceRef = useRef(null);
     const [retryCount, setRetryCount] = useState(0);
     const handlersRef = useRef(eventHandlers);
+    // Last event ID seen, so a rebuilt EventSource resumes where the old one stopped
+    const lastEventIdRef = useRef(null);
     
     // Update ref when handlers change to avoid stale closures
     useEffect(() => {
@@ -26,6 +28,9 @@ export const useSse = (eventHandlers = {}, userId = '') => {
         const baseUrl = getApiUrl('notifications/stream');
         const url = new URL(baseUrl);
         url.searchParams.append('userId', userId);
+        if (lastEventIdRef.current) {
+            url.searchParams.append('lastEventId', lastEventIdRef.current);
+        }
 
         console.log(`🔌 SSE: Connecting for User ${userId}... (Attempt ${retryCount + 1})`);
 
@@ -54,6 +59,7 @@ export const useSse = (eventHandlers = {}, userId = '') => {
             if (eventName === 'onStatus') return;
             
             eventSource.addEventListener(eventName, (event) => {
+                if (event.lastEventId) lastEventIdRef.current = event.lastEventId;
                 const handler = handlersRef.current[eventName];
                 if (handler && typeof handler === 'function') {
                     let parsedData = event.data;
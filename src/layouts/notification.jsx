@@ -818,6 +818,16 @@ export const NotificationSystem = () => {
             console.log("📝 Real-time Audit update! Broadcasting...");
             window.dispatchEvent(new CustomEvent('STARWASH_AUDIT_UPDATE'));
         },
+        // Missed too much while disconnected to replay; reload everything once
+        'RESYNC': () => {
+            console.log("🔄 SSE resync requested, refreshing everything...");
+            fetchUnreadCount(true);
+            if (notificationOpen) {
+                smartRefreshNotifications(true);
+            }
+            ['STARWASH_TRANSACTION_UPDATE', 'STARWASH_LAUNDRY_UPDATE', 'STARWASH_STOCK_UPDATE', 'STARWASH_AUDIT_UPDATE']
+                .forEach((name) => window.dispatchEvent(new CustomEvent(name)));
+        },
     }, user?.id);
 
     // Infinite scroll setup - SMART REFRESH when scrolling to bottom